@@ -27,6 +27,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.util.EntityUtils;
 import org.eclipse.osgi.util.NLS;
+import org.fedoraproject.eclipse.packager.IHttpClientService;
 import org.fedoraproject.eclipse.packager.bodhi.api.errors.BodhiClientException;
 import org.fedoraproject.eclipse.packager.bodhi.api.errors.BodhiClientLoginException;
 import org.fedoraproject.eclipse.packager.bodhi.deserializers.DateTimeDeserializer;
@@ -148,6 +149,8 @@ public class BodhiClient {
 			int returnCode = response.getStatusLine().getStatusCode();
 
 			if (returnCode != HttpURLConnection.HTTP_OK) {
+				// return the connection to the pool
+				EntityUtils.consume(resEntity);
 				throw new BodhiClientLoginException(NLS.bind(
 						"{0} {1}", response.getStatusLine().getStatusCode(), //$NON-NLS-1$
 						response.getStatusLine().getReasonPhrase()), response);
@@ -177,6 +180,7 @@ public class BodhiClient {
 			int returnCode = response.getStatusLine().getStatusCode();
 
 			if (returnCode >= 400) {
+				EntityUtils.consume(resEntity);
 				throw new BodhiClientException(NLS.bind(
 						"{0} {1}", response.getStatusLine().getStatusCode(), //$NON-NLS-1$
 						response.getStatusLine().getReasonPhrase()), response);
@@ -193,12 +197,12 @@ public class BodhiClient {
 	}
 
 	/**
-	 * Shut down the connection of this client.
+	 * Shut down the connection of this client. Pooled connections stay open
+	 * for other clients.
 	 */
 	public void shutDownConnection() {
-		// When HttpClient instance is no longer needed,
-		// shut down the connection manager to ensure
-		// immediate deallocation of all system resources
+		// When HttpClient instance is no longer needed, close it to
+		// release all of its resources
 		try {
 			httpclient.close();
 		} catch (IOException e) {
@@ -275,6 +279,8 @@ public class BodhiClient {
 			int returnCode = response.getStatusLine().getStatusCode();
 
 			if (returnCode != HttpURLConnection.HTTP_OK) {
+				// return the connection to the pool
+				EntityUtils.consume(resEntity);
 				throw new BodhiClientException(NLS.bind(
 						"{0} {1}", response.getStatusLine().getStatusCode(), //$NON-NLS-1$
 						response.getStatusLine().getReasonPhrase()), response);
@@ -301,7 +307,8 @@ public class BodhiClient {
 	}
 
 	/**
-	 * @return A properly configured HTTP client instance
+	 * @return A properly configured HTTP client instance, using the pooled
+	 *         connections of the {@link IHttpClientService}.
 	 */
 	protected CloseableHttpClient getClient() {
 		try {
@@ -10,10 +10,17 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.git;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.egit.core.project.RepositoryMapping;
+import org.eclipse.jgit.events.ListenerHandle;
+import org.eclipse.jgit.events.RefsChangedEvent;
+import org.eclipse.jgit.events.RefsChangedListener;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.eclipse.ui.statushandlers.StatusManager;
+import org.fedoraproject.eclipse.packager.utils.ProjectRootCache;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -27,6 +34,9 @@ public class Activator extends AbstractUIPlugin {
 	// The shared instance
 	private static Activator plugin;
 
+	// Drops cached VCS handlers, which know the branches of their repository
+	private ListenerHandle refsChangedHandle;
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -38,6 +48,23 @@ public class Activator extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		refsChangedHandle = Repository.getGlobalListenerList()
+				.addRefsChangedListener(new RefsChangedListener() {
+					@Override
+					public void onRefsChanged(RefsChangedEvent event) {
+						ProjectRootCache cache = ProjectRootCache.getInstance();
+						for (IProject project : cache
+								.getProjectsWithVcsHandlers()) {
+							RepositoryMapping mapping = RepositoryMapping
+									.getMapping(project);
+							if (mapping == null
+									|| mapping.getRepository() == event
+											.getRepository()) {
+								cache.invalidateVcsHandlers(project);
+							}
+						}
+					}
+				});
 	}
 
 	/*
@@ -49,6 +76,7 @@ public class Activator extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		refsChangedHandle.remove();
 		plugin = null;
 		super.stop(context);
 	}
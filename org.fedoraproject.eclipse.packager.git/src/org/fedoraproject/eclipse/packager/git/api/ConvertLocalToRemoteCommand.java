@@ -41,6 +41,7 @@ import org.fedoraproject.eclipse.packager.git.GitUtils;
 import org.fedoraproject.eclipse.packager.git.api.errors.LocalProjectConversionFailedException;
 import org.fedoraproject.eclipse.packager.git.api.errors.RemoteAlreadyExistsException;
 import org.fedoraproject.eclipse.packager.utils.FedoraPackagerUtils;
+import org.fedoraproject.eclipse.packager.utils.ProjectRootCache;
 
 /**
  * A class used to execute a {@code convert local to remote} command. It has
@@ -149,6 +150,8 @@ public class ConvertLocalToRemoteCommand extends
 					PackagerPlugin.PROJECT_PROP, "true"); //$NON-NLS-1$
 			projectRoot.getProject().setPersistentProperty(
 					PackagerPlugin.PROJECT_LOCAL_PROP, null);
+			// the cached root is of the local project type
+			ProjectRootCache.getInstance().invalidate(projectRoot.getProject());
 
 		} catch (CoreException|IOException e) {
 			throw new LocalProjectConversionFailedException(e.getMessage(), e);
@@ -11,7 +11,8 @@
 package org.fedoraproject.eclipse.packager.koji.api;
 
 import static org.easymock.EasyMock.and;
-import static org.easymock.EasyMock.anyInt;
+import static org.easymock.EasyMock.anyBoolean;
+import static org.easymock.EasyMock.anyLong;
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.aryEq;
 import static org.easymock.EasyMock.createMock;
@@ -21,13 +22,16 @@ import static org.easymock.EasyMock.gt;
 import static org.easymock.EasyMock.leq;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
+import org.apache.xmlrpc.XmlRpcException;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -38,11 +42,15 @@ import org.fedoraproject.eclipse.packager.IProjectRoot;
 import org.fedoraproject.eclipse.packager.api.DownloadSourceCommand;
 import org.fedoraproject.eclipse.packager.api.FedoraPackager;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerAPIException;
+import org.fedoraproject.eclipse.packager.koji.api.errors.KojiHubClientException;
+import org.fedoraproject.eclipse.packager.koji.internal.utils.UploadSessionStore;
 import org.fedoraproject.eclipse.packager.rpm.RpmText;
 import org.fedoraproject.eclipse.packager.rpm.api.RpmBuildCommand;
 import org.fedoraproject.eclipse.packager.rpm.api.RpmBuildResult;
 import org.fedoraproject.eclipse.packager.rpm.api.SRPMBuildJob;
 import org.fedoraproject.eclipse.packager.tests.utils.git.GitTestProject;
+import org.fedoraproject.eclipse.packager.utils.ChecksumCache;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
 import org.fedoraproject.eclipse.packager.utils.FedoraPackagerUtils;
 import org.fedoraproject.eclipse.packager.utils.RPMUtils;
 import org.junit.After;
@@ -109,11 +117,20 @@ public class KojiScratchWithSRPMTest {
 				+ FedoraPackagerUtils.getUniqueIdentifier(); //$NON-NLS-1$
 		IKojiHubClient kojiClient = createMock(IKojiHubClient.class);
 		expect(kojiClient.login()).andReturn(null);
+		// the hub has no earlier upload
 		expect(
-				kojiClient.uploadFile((String) anyObject(),
-						eq("ed-1.5-2.fc15.src.rpm"), and(gt(0), leq(1000000)),
-						(String) anyObject(), anyInt(), (String) anyObject()))
+				kojiClient.checkUpload((String) anyObject(),
+						eq("ed-1.5-2.fc15.src.rpm"), anyBoolean()))
+				.andReturn(null).anyTimes();
+		expect(
+				kojiClient.uploadChunk((String) anyObject(),
+						eq("ed-1.5-2.fc15.src.rpm"), (byte[]) anyObject(),
+						and(gt(0), leq(1000000)), anyLong()))
 				.andReturn(true).atLeastOnce();
+		expect(
+				kojiClient.verifyUpload((String) anyObject(),
+						eq("ed-1.5-2.fc15.src.rpm"), gt(0L), (String) anyObject()))
+				.andReturn(true);
 		expect(
 				kojiClient.build(eq("f15-candidate"), (List<?>) anyObject(),
 						aryEq(new String[] { "ed-1.5-2.fc15" }), eq(true)))
@@ -141,4 +158,82 @@ public class KojiScratchWithSRPMTest {
 		assertTrue(kojiBuildCmd.call(new NullProgressMonitor()).isSuccessful());
 		verify(kojiClient);
 	}
+
+	/**
+	 * An unchanged SRPM which the hub still has isn't uploaded again.
+	 */
+	@Test
+	public void canReuseUploadOfUnchangedSRPM() throws Exception {
+		File srpm = new File(srpmBuildResult.getAbsoluteSRPMFilePath());
+		String md5sum = ChecksumCache.getInstance().getChecksum(srpm,
+				Algorithm.MD5);
+		UploadSessionStore.getInstance().remove(srpm.getName(), md5sum);
+		final String firstPath = "cli-build/" //$NON-NLS-1$
+				+ FedoraPackagerUtils.getUniqueIdentifier();
+		HashMap<String, Object> uploaded = new HashMap<>();
+		uploaded.put("size", Long.valueOf(srpm.length())); //$NON-NLS-1$
+		uploaded.put("hexdigest", md5sum); //$NON-NLS-1$
+		IKojiHubClient kojiClient = createMock(IKojiHubClient.class);
+		expect(kojiClient.login()).andReturn(null).times(2);
+		expect(
+				kojiClient.uploadChunk(eq(firstPath), eq(srpm.getName()),
+						(byte[]) anyObject(), gt(0), anyLong()))
+				.andReturn(true).atLeastOnce();
+		expect(
+				kojiClient.verifyUpload(firstPath, srpm.getName(),
+						srpm.length(), md5sum)).andReturn(true);
+		expect(kojiClient.checkUpload(firstPath, srpm.getName(), true))
+				.andReturn(uploaded);
+		replay(kojiClient);
+
+		KojiUploadSRPMCommand first = (KojiUploadSRPMCommand) packager
+				.getCommandInstance(KojiUploadSRPMCommand.ID);
+		assertTrue(first.setKojiClient(kojiClient).setRemotePath(firstPath)
+				.setSRPM(srpm.getPath()).call(new NullProgressMonitor())
+				.isSuccessful());
+		KojiUploadSRPMCommand second = (KojiUploadSRPMCommand) packager
+				.getCommandInstance(KojiUploadSRPMCommand.ID);
+		assertTrue(second.setKojiClient(kojiClient)
+				.setRemotePath(firstPath + "-retry") //$NON-NLS-1$
+				.setSRPM(srpm.getPath()).call(new NullProgressMonitor())
+				.isSuccessful());
+		assertEquals(firstPath, second.getRemotePath());
+		verify(kojiClient);
+	}
+
+	/**
+	 * A chunk the hub couldn't lock the file for is uploaded again.
+	 */
+	@Test
+	public void canRetryChunkOnLockContention() throws Exception {
+		File srpm = new File(srpmBuildResult.getAbsoluteSRPMFilePath());
+		String md5sum = ChecksumCache.getInstance().getChecksum(srpm,
+				Algorithm.MD5);
+		UploadSessionStore.getInstance().remove(srpm.getName(), md5sum);
+		final String uploadPath = "cli-build/" //$NON-NLS-1$
+				+ FedoraPackagerUtils.getUniqueIdentifier();
+		IKojiHubClient kojiClient = createMock(IKojiHubClient.class);
+		expect(kojiClient.login()).andReturn(null);
+		expect(
+				kojiClient.uploadChunk(eq(uploadPath), eq(srpm.getName()),
+						(byte[]) anyObject(), gt(0), eq(0L)))
+				.andThrow(
+						new KojiHubClientException(new XmlRpcException(1001,
+								"LockError"))).andReturn(true); //$NON-NLS-1$
+		expect(
+				kojiClient.uploadChunk(eq(uploadPath), eq(srpm.getName()),
+						(byte[]) anyObject(), gt(0), gt(0L))).andReturn(true)
+				.anyTimes();
+		expect(
+				kojiClient.verifyUpload(uploadPath, srpm.getName(),
+						srpm.length(), md5sum)).andReturn(true);
+		replay(kojiClient);
+
+		KojiUploadSRPMCommand upload = (KojiUploadSRPMCommand) packager
+				.getCommandInstance(KojiUploadSRPMCommand.ID);
+		assertTrue(upload.setKojiClient(kojiClient).setRemotePath(uploadPath)
+				.setSRPM(srpm.getPath()).call(new NullProgressMonitor())
+				.isSuccessful());
+		verify(kojiClient);
+	}
 }
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.koji.api;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for KojiTaskWatcher.
+ */
+public class KojiTaskWatcherTest {
+
+	private static HashMap<String, Object> taskInfo(int id, int state,
+			Integer parent, String method) {
+		HashMap<String, Object> info = new HashMap<>();
+		info.put("id", id);
+		info.put("state", state);
+		info.put("parent", parent);
+		info.put("method", method);
+		info.put("arch", "noarch");
+		return info;
+	}
+
+	/**
+	 * The watched task and its subtasks are reported with their states,
+	 * parents first, and a finished task is no longer watched.
+	 */
+	@Test
+	public void canReportFinishedTaskTree() throws Exception {
+		HashMap<String, Object> descendents = new HashMap<>();
+		descendents.put("100", new Object[] {
+				taskInfo(101, KojiTaskInfo.STATE_CLOSED, 100, "buildSRPMFromSCM"),
+				taskInfo(102, KojiTaskInfo.STATE_FAILED, 100, "buildArch") });
+		descendents.put("101", new Object[0]);
+		descendents.put("102", new Object[0]);
+		Object[] results = new Object[] {
+				taskInfo(100, KojiTaskInfo.STATE_FAILED, null, "build"),
+				descendents };
+
+		IKojiHubClient client = createMock(IKojiHubClient.class);
+		expect(client.multicall(anyObject())).andReturn(results)
+				.anyTimes();
+		replay(client);
+
+		final List<KojiTaskInfo> changed = new ArrayList<>();
+		final List<Integer> previousStates = new ArrayList<>();
+		final CountDownLatch events = new CountDownLatch(3);
+		KojiTaskWatcher watcher = new KojiTaskWatcher(client);
+		watcher.watch(100, new IKojiTaskListener() {
+			@Override
+			public void taskChanged(KojiTaskInfo task, int previousState,
+					KojiTaskInfo root) {
+				changed.add(task);
+				previousStates.add(previousState);
+				events.countDown();
+			}
+		});
+		assertTrue(events.await(10, TimeUnit.SECONDS));
+
+		assertEquals(100, changed.get(0).getId());
+		assertEquals(2, changed.get(0).getChildren().size());
+		assertEquals(-1, changed.get(0).getParent());
+		assertEquals(101, changed.get(1).getId());
+		assertEquals(100, changed.get(1).getParent());
+		assertEquals(KojiTaskInfo.STATE_FAILED, changed.get(2).getState());
+		assertEquals(-1, previousStates.get(0).intValue());
+		assertFalse(watcher.isWatching(100));
+	}
+
+	/**
+	 * A failing listener neither keeps other listeners from being notified
+	 * nor stops the polling.
+	 */
+	@Test
+	public void survivesFailingListener() throws Exception {
+		HashMap<String, Object> descendents = new HashMap<>();
+		descendents.put("200", new Object[0]);
+		IKojiHubClient client = createMock(IKojiHubClient.class);
+		expect(client.multicall(anyObject())).andReturn(
+				new Object[] {
+						taskInfo(200, KojiTaskInfo.STATE_OPEN, null, "build"),
+						descendents }).andReturn(
+				new Object[] {
+						taskInfo(200, KojiTaskInfo.STATE_CLOSED, null, "build"),
+						descendents }).anyTimes();
+		replay(client);
+
+		final CountDownLatch closed = new CountDownLatch(1);
+		KojiTaskWatcher watcher = new KojiTaskWatcher(client);
+		watcher.watch(200, new IKojiTaskListener() {
+			@Override
+			public void taskChanged(KojiTaskInfo task, int previousState,
+					KojiTaskInfo root) {
+				throw new IllegalStateException();
+			}
+		});
+		// may miss the open state, but not the closed one
+		watcher.watch(200, new IKojiTaskListener() {
+			@Override
+			public void taskChanged(KojiTaskInfo task, int previousState,
+					KojiTaskInfo root) {
+				if (task.getState() == KojiTaskInfo.STATE_CLOSED) {
+					closed.countDown();
+				}
+			}
+		});
+		assertTrue(closed.await(20, TimeUnit.SECONDS));
+		assertFalse(watcher.isWatching(200));
+	}
+}
@@ -1,11 +1,15 @@
 package org.fedoraproject.eclipse.packager.koji.api;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.xmlrpc.client.XmlRpcClient;
@@ -59,6 +63,79 @@ public class TestAbstractKojiHubBaseClientTest {
 				info.equals(testInfo));
 	}
 
+	@Test
+	public void testGetBuildsInOneRequest() throws KojiHubClientException,
+			MalformedURLException {
+		final String nvr = "foo-1.0-1.fc20";
+
+		final HashMap<String, Object> buildMap = new HashMap<>();
+		buildMap.put("state", 1);
+		buildMap.put("task_id", 42);
+		buildMap.put("package_id", 7);
+		buildMap.put("nvr", nvr);
+
+		final int[] requests = new int[1];
+		// Mock xmlRpcClient answering getBuild calls of a multicall
+		final XmlRpcClient mockXmlRpcClient = new XmlRpcClient() {
+			@Override
+			public Object execute(String methodName,
+					@SuppressWarnings("rawtypes") List params) {
+				requests[0]++;
+				if (!methodName.equals("system.multicall"))
+					return null;
+				List<?> calls = (List<?>) params.get(0);
+				Object[] results = new Object[calls.size()];
+				for (int i = 0; i < calls.size(); i++) {
+					Map<?, ?> call = (Map<?, ?>) calls.get(i);
+					List<?> callParams = (List<?>) call.get("params");
+					if (!call.get("methodName").equals("getBuild")) {
+						HashMap<String, Object> fault = new HashMap<>();
+						fault.put("faultCode", 1000);
+						fault.put("faultString", "no such method");
+						results[i] = fault;
+					} else if (callParams.get(0).equals(nvr)) {
+						results[i] = new Object[] { buildMap };
+					} else {
+						results[i] = new Object[] { null };
+					}
+				}
+				return results;
+			}
+		};
+
+		AbstractKojiHubBaseClient mockKojiClient = new AbstractKojiHubBaseClient(
+				"http://example.com") {
+			@Override
+			public HashMap<?, ?> login() {
+				return null;
+			}
+
+			@Override
+			protected void setupXmlRpcClient() {
+				xmlRpcClient = mockXmlRpcClient;
+			}
+		};
+
+		KojiBuildInfo[] builds = mockKojiClient.getBuilds(new String[] { nvr,
+				"bar-2.0-1.fc20", "baz-3.0-1.fc20" });
+		assertEquals("one request for all builds", 1, requests[0]);
+		assertEquals(3, builds.length);
+		assertEquals(42, builds[0].getTaskId());
+		assertNull(builds[1]);
+		assertNull(builds[2]);
+
+		// a failing call fails the whole multicall
+		List<KojiCall> calls = new ArrayList<>();
+		calls.add(new KojiCall("getBuild", nvr));
+		calls.add(new KojiCall("noSuchMethod"));
+		try {
+			mockKojiClient.multicall(calls);
+			fail("fault was not reported");
+		} catch (KojiHubClientException e) {
+			assertEquals("no such method", e.getMessage());
+		}
+	}
+
 	@Test
 	public void testListBuildTags() throws MalformedURLException, KojiHubClientException{
 
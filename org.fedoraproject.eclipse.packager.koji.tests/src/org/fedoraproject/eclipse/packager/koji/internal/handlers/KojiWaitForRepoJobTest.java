@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.koji.internal.handlers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.xmlrpc.client.XmlRpcClient;
+import org.fedoraproject.eclipse.packager.koji.api.AbstractKojiHubBaseClient;
+import org.fedoraproject.eclipse.packager.koji.api.KojiRepoInfo;
+import org.fedoraproject.eclipse.packager.koji.api.errors.KojiHubClientException;
+import org.fedoraproject.eclipse.packager.koji.internal.handlers.KojiWaitForRepoJob.Progress;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for polling the hub while waiting for a repo in KojiWaitForRepoJob.
+ */
+public class KojiWaitForRepoJobTest {
+
+	private static final String TAG = "f20-build";
+	private static final String NVR = "foo-1.0-1.fc20";
+	private static final int REPO_EVENT = 100;
+
+	private HashMap<String, Object> repoMap;
+	private boolean tagChanged;
+	// builds tagged into TAG, the latest one last
+	private List<HashMap<String, Object>> tagged;
+	private AbstractKojiHubBaseClient client;
+
+	@Before
+	public void setUp() throws MalformedURLException {
+		repoMap = repo(5, REPO_EVENT);
+		tagChanged = false;
+		tagged = new ArrayList<>();
+
+		// Mock xmlRpcClient answering the calls of a multicall
+		final XmlRpcClient mockXmlRpcClient = new XmlRpcClient() {
+			@Override
+			public Object execute(String methodName,
+					@SuppressWarnings("rawtypes") List params) {
+				if (!methodName.equals("system.multicall"))
+					return answer(methodName, params);
+				List<?> calls = (List<?>) params.get(0);
+				Object[] results = new Object[calls.size()];
+				for (int i = 0; i < calls.size(); i++) {
+					Map<?, ?> call = (Map<?, ?>) calls.get(i);
+					results[i] = new Object[] { answer(
+							(String) call.get("methodName"),
+							(List<?>) call.get("params")) };
+				}
+				return results;
+			}
+		};
+
+		client = new AbstractKojiHubBaseClient("http://example.com") {
+			@Override
+			public HashMap<?, ?> login() {
+				return null;
+			}
+
+			@Override
+			protected void setupXmlRpcClient() {
+				xmlRpcClient = mockXmlRpcClient;
+			}
+		};
+	}
+
+	private Object answer(String methodName, List<?> params) {
+		if (methodName.equals("getRepo") && params.get(0).equals(TAG))
+			return repoMap;
+		if (methodName.equals("tagChangedSinceEvent"))
+			return tagChanged;
+		if (methodName.equals("listTagged") && params.get(0).equals(TAG)) {
+			if (tagged.isEmpty())
+				return new Object[0];
+			if (Boolean.TRUE.equals(params.get(4)))
+				return new Object[] { tagged.get(tagged.size() - 1) };
+			return tagged.toArray();
+		}
+		return null;
+	}
+
+	private static HashMap<String, Object> repo(int id, int createEvent) {
+		HashMap<String, Object> repo = new HashMap<>();
+		repo.put("id", id);
+		repo.put("creation_time", "yesterday");
+		repo.put("create_event", createEvent);
+		return repo;
+	}
+
+	private static HashMap<String, Object> build(String nvr, int createEvent) {
+		HashMap<String, Object> build = new HashMap<>();
+		build.put("nvr", nvr);
+		build.put("create_event", createEvent);
+		return build;
+	}
+
+	private Progress pollBuilds(List<String> superseded)
+			throws KojiHubClientException {
+		return KojiWaitForRepoJob.pollBuilds(client, TAG,
+				new String[] { NVR }, superseded);
+	}
+
+	@Test
+	public void buildInRepo() throws KojiHubClientException {
+		tagged.add(build(NVR, REPO_EVENT - 10));
+		assertEquals(Progress.DONE, pollBuilds(new ArrayList<String>()));
+	}
+
+	@Test
+	public void buildTaggedAfterRepo() throws KojiHubClientException {
+		tagged.add(build(NVR, REPO_EVENT + 10));
+		assertEquals(Progress.REGEN_PENDING,
+				pollBuilds(new ArrayList<String>()));
+	}
+
+	@Test
+	public void buildNotTagged() throws KojiHubClientException {
+		tagged.add(build("foo-0.9-1.fc20", REPO_EVENT - 10));
+		assertEquals(Progress.WAITING, pollBuilds(new ArrayList<String>()));
+
+		repoMap = null;
+		tagged.add(build(NVR, REPO_EVENT - 5));
+		assertEquals("no repo yet", Progress.WAITING,
+				pollBuilds(new ArrayList<String>()));
+	}
+
+	@Test
+	public void buildSuperseded() throws KojiHubClientException {
+		tagged.add(build(NVR, REPO_EVENT - 10));
+		tagged.add(build("foo-1.1-1.fc20", REPO_EVENT - 5));
+		List<String> superseded = new ArrayList<>();
+		assertEquals(Progress.SUPERSEDED, pollBuilds(superseded));
+		assertEquals(Arrays.asList(NVR), superseded);
+	}
+
+	@Test
+	public void repoRegenerated() throws KojiHubClientException {
+		KojiRepoInfo oldRepo = new KojiRepoInfo(repoMap);
+		assertEquals(Progress.WAITING,
+				KojiWaitForRepoJob.pollRepo(client, TAG, oldRepo));
+
+		tagChanged = true;
+		assertEquals(Progress.REGEN_PENDING,
+				KojiWaitForRepoJob.pollRepo(client, TAG, oldRepo));
+
+		repoMap = repo(6, REPO_EVENT + 20);
+		assertEquals(Progress.DONE,
+				KojiWaitForRepoJob.pollRepo(client, TAG, oldRepo));
+	}
+}
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.koji;
 
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
 
 /**
  * Plug-in responsible for pushing Koji builds.
@@ -21,4 +23,10 @@ public class KojiPlugin {
 	 */
 	public static final String PLUGIN_ID = "org.fedoraproject.eclipse.packager.koji"; //$NON-NLS-1$
 
+	/**
+	 * @return The location in the workspace for data of this plug-in.
+	 */
+	public static IPath getStateLocation() {
+		return Platform.getStateLocation(Platform.getBundle(PLUGIN_ID));
+	}
 }
@@ -113,9 +113,20 @@ public class KojiText extends NLS {
 	/****/ public static String KojiUploadSRPMCommand_CouldNotRead;
 	/****/ public static String KojiUploadSRPMCommand_FileNotFound;
 	/****/ public static String KojiUploadSRPMCommand_InvalidSRPM;
-	/****/ public static String KojiUploadSRPMCommand_NoMD5;
 	/****/ public static String KojiUploadSRPMCommand_NoSRPM;
 	/****/ public static String KojiUploadSRPMCommand_NoUploadPath;
+	// UploadSessionStore
+	/****/ public static String UploadSessionStore_loadFailed;
+	/****/ public static String UploadSessionStore_saveFailed;
+	// KojiTaskWatcher
+	/****/ public static String KojiTaskWatcher_pollFailed;
+	/****/ public static String KojiTaskWatcher_listenerFailed;
+	/****/ public static String KojiTaskWatcher_unexpectedReply;
+	// KojiUtils
+	/****/ public static String KojiUtils_taskFinishedTitle;
+	/****/ public static String KojiUtils_taskClosedMsg;
+	/****/ public static String KojiUtils_taskFailedMsg;
+	/****/ public static String KojiUtils_taskCanceledMsg;
 	// KojiUplaodSRPMJob
 	/****/ public static String KojiUploadSRPMJob_KojiUpload;
 	// Generic Strings
@@ -127,6 +138,10 @@ public class KojiText extends NLS {
 	/****/ public static String KojiWaitForRepoJob_repoUpdatedDialogText;
 	/****/ public static String KojiWaitForRepoJob_collectingRepoTags;
 	/****/ public static String KojiWaitForRepoJob_WaitingForUpdateMessage;
+	/****/ public static String KojiWaitForRepoJob_WaitingForBuildsMessage;
+	/****/ public static String KojiWaitForRepoJob_buildsInRepoDialogText;
+	/****/ public static String KojiWaitForRepoJob_buildsSupersededDialogTitle;
+	/****/ public static String KojiWaitForRepoJob_buildsSupersededDialogText;
 
 	// Generic Koji Strings
 	/****/ public static String KojiWaitForRepoHandler_errorGettingRepoInfo;
@@ -27,7 +27,13 @@ import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
 import org.fedoraproject.eclipse.packager.FedoraPackagerPreferencesConstants;
 import org.fedoraproject.eclipse.packager.IProjectRoot;
 import org.fedoraproject.eclipse.packager.koji.api.BuildResult;
+import org.fedoraproject.eclipse.packager.koji.api.IKojiHubClient;
+import org.fedoraproject.eclipse.packager.koji.api.IKojiTaskListener;
 import org.fedoraproject.eclipse.packager.koji.api.KojiBuildJob;
+import org.fedoraproject.eclipse.packager.koji.api.KojiTaskInfo;
+import org.fedoraproject.eclipse.packager.koji.api.KojiTaskWatcher;
+import org.fedoraproject.eclipse.packager.koji.internal.utils.KojiClientFactory;
+import org.fedoraproject.eclipse.packager.utils.FedoraHandlerUtils;
 
 /**
  * Helper dealing with task URLs.
@@ -93,7 +99,8 @@ public class KojiUtils {
 	}
 
 	/**
-	 * Create a job listener for the event {@code done}.
+	 * Create a job listener for the event {@code done}. It opens the pushed
+	 * task in a browser and tells the user once the task is finished.
 	 *
 	 * @param kojiInfo
 	 *            Comma-delineated string listing server info.
@@ -102,8 +109,8 @@ public class KojiUtils {
 	 *
 	 * @return The job change listener.
 	 */
-	public static IJobChangeListener getJobChangeListener(String[] kojiInfo,
-			final IProjectRoot projectRoot) {
+	public static IJobChangeListener getJobChangeListener(
+			final String[] kojiInfo, final IProjectRoot projectRoot) {
 		final FedoraPackagerLogger logger = FedoraPackagerLogger.getInstance();
 		String webUrl = kojiInfo[0];
 		URL kojiWebUrl = null;
@@ -131,6 +138,11 @@ public class KojiUtils {
 				KojiBuildJob job = (KojiBuildJob) event.getJob();
 				final BuildResult buildResult = job.getBuildResult();
 				final IStatus jobStatus = event.getResult();
+				if (jobStatus.isOK() && buildResult != null
+						&& buildResult.isSuccessful()) {
+					watchTask(buildResult.getTaskId(), kojiInfo[1],
+							staticWebUrl, projectRoot);
+				}
 				PlatformUI.getWorkbench().getDisplay()
 						.asyncExec(new Runnable() {
 							@Override
@@ -149,6 +161,59 @@ public class KojiUtils {
 		return listener;
 	}
 
+	/**
+	 * Watch a task and show a message once it is finished.
+	 *
+	 * @param taskId
+	 *            The ID of the task.
+	 * @param hubUrl
+	 *            The URL of the Koji hub.
+	 * @param kojiWebUrl
+	 *            The url to Koji Web without any parameters.
+	 * @param projectRoot
+	 *            Root of the project the task builds.
+	 */
+	private static void watchTask(final int taskId, String hubUrl,
+			final URL kojiWebUrl, final IProjectRoot projectRoot) {
+		IKojiHubClient client;
+		try {
+			client = KojiClientFactory.getHubClient(hubUrl);
+		} catch (MalformedURLException e) {
+			FedoraPackagerLogger.getInstance().logError(e.getMessage(), e);
+			return;
+		}
+		KojiTaskWatcher.getWatcher(client).watch(taskId,
+				new IKojiTaskListener() {
+					@Override
+					public void taskChanged(KojiTaskInfo task,
+							int previousState, KojiTaskInfo root) {
+						// only the end of the whole build is of interest
+						if (task != root || !task.isFinished()) {
+							return;
+						}
+						String message;
+						switch (task.getState()) {
+						case KojiTaskInfo.STATE_CLOSED:
+							message = KojiText.KojiUtils_taskClosedMsg;
+							break;
+						case KojiTaskInfo.STATE_CANCELED:
+							message = KojiText.KojiUtils_taskCanceledMsg;
+							break;
+						default:
+							message = KojiText.KojiUtils_taskFailedMsg;
+						}
+						String label = task.getLabel() != null ? task
+								.getLabel() : task.getMethod();
+						FedoraHandlerUtils.showInformationDialog(null, NLS
+								.bind(KojiText.KojiUtils_taskFinishedTitle,
+										projectRoot.getProductStrings()
+												.getBuildToolName()), NLS
+								.bind(message, new Object[] { taskId, label,
+										constructTaskUrl(taskId, kojiWebUrl) }));
+					}
+				});
+	}
+
 	/**
 	 * @param taskId
 	 *            The task ID to use for the URL.
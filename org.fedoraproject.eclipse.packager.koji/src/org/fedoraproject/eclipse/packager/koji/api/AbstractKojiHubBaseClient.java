@@ -25,6 +25,7 @@ import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
 import org.fedoraproject.eclipse.packager.koji.api.errors.BuildAlreadyExistsException;
 import org.fedoraproject.eclipse.packager.koji.api.errors.KojiHubClientException;
 import org.fedoraproject.eclipse.packager.koji.api.errors.KojiHubClientLoginException;
+import org.fedoraproject.eclipse.packager.koji.internal.utils.Base64Data;
 import org.fedoraproject.eclipse.packager.koji.internal.utils.KojiTypeFactory;
 
 /**
@@ -32,6 +33,12 @@ import org.fedoraproject.eclipse.packager.koji.internal.utils.KojiTypeFactory;
  */
 public abstract class AbstractKojiHubBaseClient implements IKojiHubClient {
 
+	/**
+	 * Maximal number of calls sent in one {@code system.multicall} request,
+	 * so a single request doesn't keep the hub busy for too long.
+	 */
+	private static final int MULTICALL_BATCH_SIZE = 100;
+
 	/**
 	 * Default constructor to set up a basic client.
 	 *
@@ -102,8 +109,8 @@ public abstract class AbstractKojiHubBaseClient implements IKojiHubClient {
 		scratchParam.put("scratch", true); //$NON-NLS-1$
 
 		if (nvrs != null && !scratch) {
-			for (String nvr : nvrs) {
-				KojiBuildInfo buildInfo = getBuild(nvr);
+			// check all builds of a chain at once
+			for (KojiBuildInfo buildInfo : getBuilds(nvrs)) {
 				if (buildInfo != null && buildInfo.isComplete()) {
 					throw new BuildAlreadyExistsException(buildInfo.getTaskId());
 				}
@@ -113,6 +120,8 @@ public abstract class AbstractKojiHubBaseClient implements IKojiHubClient {
 		Object result;
 		try {
 			if (scmURLs.get(0) instanceof String) {
+				// not as a multicall, which would go on submitting builds
+				// after one failed and lose their task ids
 				taskIds = new int[scmURLs.size()];
 				for (int i = 0; i < scmURLs.size(); i++) {
 					params = new ArrayList<>();
@@ -137,6 +146,55 @@ public abstract class AbstractKojiHubBaseClient implements IKojiHubClient {
 		return taskIds;
 	}
 
+	@Override
+	public Object[] multicall(List<KojiCall> calls)
+			throws KojiHubClientException {
+		Object[] results = new Object[calls.size()];
+		if (calls.size() == 1) {
+			// no need to wrap a single call
+			KojiCall call = calls.get(0);
+			try {
+				results[0] = xmlRpcClient.execute(call.getMethodName(),
+						call.getParams());
+			} catch (XmlRpcException e) {
+				throw new KojiHubClientException(e.getMessage(), e);
+			}
+			return results;
+		}
+		for (int start = 0; start < calls.size(); start += MULTICALL_BATCH_SIZE) {
+			List<KojiCall> batch = calls.subList(start,
+					Math.min(start + MULTICALL_BATCH_SIZE, calls.size()));
+			List<Object> entries = new ArrayList<>();
+			for (KojiCall call : batch) {
+				entries.add(call.toMulticallEntry());
+			}
+			ArrayList<Object> params = new ArrayList<>();
+			params.add(entries);
+			Object[] batchResults;
+			try {
+				batchResults = (Object[]) xmlRpcClient.execute(
+						"system.multicall", params); //$NON-NLS-1$
+			} catch (XmlRpcException e) {
+				throw new KojiHubClientException(e.getMessage(), e);
+			}
+			for (int i = 0; i < batchResults.length; i++) {
+				// a result is wrapped in an array, a fault is a struct
+				if (batchResults[i] instanceof Map<?, ?>) {
+					Map<?, ?> fault = (Map<?, ?>) batchResults[i];
+					Object faultCode = fault.get("faultCode"); //$NON-NLS-1$
+					String faultString = String.valueOf(fault
+							.get("faultString")); //$NON-NLS-1$
+					throw new KojiHubClientException(faultString,
+							new XmlRpcException(
+									faultCode instanceof Integer ? (Integer) faultCode
+											: 0, faultString));
+				}
+				results[start + i] = ((Object[]) batchResults[i])[0];
+			}
+		}
+		return results;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public KojiRepoInfo getRepo(String tag) throws KojiHubClientException {
@@ -217,6 +275,73 @@ public abstract class AbstractKojiHubBaseClient implements IKojiHubClient {
 		return success;
 	}
 
+	@Override
+	public boolean uploadChunk(String path, String name, byte[] buffer,
+			int length, long offset) throws KojiHubClientException {
+		ArrayList<Object> params = new ArrayList<>();
+		params.add(path);
+		params.add(name);
+		params.add(length);
+		// no checksum, the whole file is verified at the end
+		params.add(null);
+		params.add(encodeLong(offset));
+		// encoded while the request is written
+		params.add(new Base64Data(buffer, length));
+		Object result;
+		try {
+			result = xmlRpcClient.execute("uploadFile", params); //$NON-NLS-1$
+		} catch (XmlRpcException e) {
+			throw new KojiHubClientException(e);
+		}
+		return Boolean.parseBoolean(result.toString());
+	}
+
+	@Override
+	public boolean verifyUpload(String path, String name, long size,
+			String md5sum) throws KojiHubClientException {
+		ArrayList<Object> params = new ArrayList<>();
+		params.add(path);
+		params.add(name);
+		params.add(encodeLong(size));
+		params.add(md5sum);
+		// an offset of -1 asks koji to verify the whole file
+		params.add(-1);
+		params.add(""); //$NON-NLS-1$
+		Object result;
+		try {
+			result = xmlRpcClient.execute("uploadFile", params); //$NON-NLS-1$
+		} catch (XmlRpcException e) {
+			throw new KojiHubClientException(e);
+		}
+		return Boolean.parseBoolean(result.toString());
+	}
+
+	@Override
+	public HashMap<?, ?> checkUpload(String path, String name, boolean md5)
+			throws KojiHubClientException {
+		ArrayList<Object> params = new ArrayList<>();
+		params.add(path);
+		params.add(name);
+		if (md5) {
+			params.add("md5"); //$NON-NLS-1$
+		}
+		try {
+			return (HashMap<?, ?>) xmlRpcClient.execute("checkUpload", params); //$NON-NLS-1$
+		} catch (XmlRpcException e) {
+			throw new KojiHubClientException(e);
+		}
+	}
+
+	/**
+	 * XMLRPC integers have 32 bits, so koji accepts larger ones as strings.
+	 */
+	private static Object encodeLong(long value) {
+		if (value > Integer.MAX_VALUE) {
+			return Long.toString(value);
+		}
+		return (int) value;
+	}
+
 	@Override
 	public HashMap<?, ?>[] listTargets() throws KojiHubClientException {
 		try {
@@ -10,8 +10,12 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.koji.api;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.fedoraproject.eclipse.packager.koji.api.errors.KojiHubClientException;
@@ -76,6 +80,78 @@ public interface IKojiHubClient {
 	 */
 	public KojiBuildInfo getBuild(String nvr) throws KojiHubClientException;
 
+	/**
+	 * Send several calls to the hub in as few requests as possible. The hub
+	 * runs each call on its own, so calls which changed something are not
+	 * undone if another call fails. Only use it for calls which don't change
+	 * anything on the hub.
+	 * 
+	 * @param calls
+	 *            The calls to make.
+	 * @return The results of the calls, in the order of {@code calls}.
+	 * @throws KojiHubClientException
+	 *             If the request or any of the calls fails.
+	 * @since 0.5
+	 */
+	public Object[] multicall(List<KojiCall> calls)
+			throws KojiHubClientException;
+
+	/**
+	 * Fetch information about several builds at once.
+	 * 
+	 * @param nvrs
+	 *            The name-version-release tokens of the builds.
+	 * @return The build information for each of {@code nvrs}, {@code null}
+	 *         for builds which don't exist.
+	 * @throws KojiHubClientException
+	 *             If some error occurred.
+	 * @since 0.5
+	 */
+	@SuppressWarnings("unchecked")
+	public default KojiBuildInfo[] getBuilds(String[] nvrs)
+			throws KojiHubClientException {
+		List<KojiCall> calls = new ArrayList<>();
+		for (String nvr : nvrs) {
+			calls.add(new KojiCall("getBuild", nvr)); //$NON-NLS-1$
+		}
+		Object[] results = multicall(calls);
+		KojiBuildInfo[] builds = new KojiBuildInfo[results.length];
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] != null) {
+				builds[i] = new KojiBuildInfo(
+						(Map<String, Object>) results[i]);
+			}
+		}
+		return builds;
+	}
+
+	/**
+	 * Fetch information about several tasks at once.
+	 * 
+	 * @param taskIds
+	 *            The ids of the tasks.
+	 * @return The task information for each of {@code taskIds}, {@code null}
+	 *         for tasks which don't exist.
+	 * @throws KojiHubClientException
+	 *             If some error occurred.
+	 * @since 0.5
+	 */
+	public default KojiTaskInfo[] getTaskInfos(int[] taskIds)
+			throws KojiHubClientException {
+		List<KojiCall> calls = new ArrayList<>();
+		for (int taskId : taskIds) {
+			calls.add(new KojiCall("getTaskInfo", taskId)); //$NON-NLS-1$
+		}
+		Object[] results = multicall(calls);
+		KojiTaskInfo[] tasks = new KojiTaskInfo[results.length];
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] != null) {
+				tasks[i] = new KojiTaskInfo((Map<?, ?>) results[i]);
+			}
+		}
+		return tasks;
+	}
+
 	/**
 	 * @param path
 	 *            Path to upload to on the koji server.
@@ -98,6 +174,80 @@ public interface IKojiHubClient {
 			String md5sum, int offset, String data)
 			throws KojiHubClientException;
 
+	/**
+	 * Upload a chunk of a file without a checksum of its own. Chunks may be
+	 * uploaded concurrently and in any order; use
+	 * {@link #verifyUpload(String, String, long, String)} once all of them
+	 * are uploaded.
+	 * 
+	 * @param path
+	 *            Path to upload to on the koji server.
+	 * @param name
+	 *            The name of the file being uploaded.
+	 * @param buffer
+	 *            The array holding the chunk. It is not modified.
+	 * @param length
+	 *            The number of bytes at the start of {@code buffer} to upload.
+	 * @param offset
+	 *            The position of the chunk in the file.
+	 * @return True if successful, false if not.
+	 * @throws KojiHubClientException
+	 *             If the upload fails for any reason.
+	 * @since 0.5
+	 */
+	public default boolean uploadChunk(String path, String name,
+			byte[] buffer, int length, long offset)
+			throws KojiHubClientException {
+		return uploadFile(path, name, length, null, Math.toIntExact(offset),
+				Base64.getEncoder().encodeToString(
+						Arrays.copyOf(buffer, length)));
+	}
+
+	/**
+	 * Let the server check the size and checksum of a file uploaded in
+	 * chunks.
+	 * 
+	 * @param path
+	 *            Path the file was uploaded to on the koji server.
+	 * @param name
+	 *            The name of the uploaded file.
+	 * @param size
+	 *            The size of the file in bytes.
+	 * @param md5sum
+	 *            The MD5 sum of the whole file.
+	 * @return True if the uploaded file is complete and intact, false if
+	 *         not.
+	 * @throws KojiHubClientException
+	 *             If the verification fails for any reason.
+	 * @since 0.5
+	 */
+	public default boolean verifyUpload(String path, String name, long size,
+			String md5sum) throws KojiHubClientException {
+		// an offset of -1 asks koji to verify the whole file
+		return uploadFile(path, name, Math.toIntExact(size), md5sum, -1, ""); //$NON-NLS-1$
+	}
+
+	/**
+	 * Ask the hub about a file uploaded earlier.
+	 * 
+	 * @param path
+	 *            Path the file was uploaded to on the koji server.
+	 * @param name
+	 *            The name of the uploaded file.
+	 * @param md5
+	 *            Whether to let the hub compute the MD5 sum of the file.
+	 * @return A map containing the {@code size} of the file and, if
+	 *         requested, its {@code hexdigest}, or {@code null} if the hub
+	 *         doesn't have the file or the client can't tell.
+	 * @throws KojiHubClientException
+	 *             If the query fails for any reason.
+	 * @since 0.5
+	 */
+	public default HashMap<?, ?> checkUpload(String path, String name,
+			boolean md5) throws KojiHubClientException {
+		return null;
+	}
+
 	/**
 	 * Query the Koji server for known build targets.
 	 * 
@@ -119,6 +269,35 @@ public interface IKojiHubClient {
 	 */
 	public KojiRepoInfo getRepo(String tag) throws KojiHubClientException;
 
+	/**
+	 * Get information about the repositories of several tags at once.
+	 * 
+	 * @param tags
+	 *            The tags of the repositories to inspect.
+	 * @return The repository information for each of {@code tags},
+	 *         {@code null} for tags without a repository.
+	 * @throws KojiHubClientException
+	 *             If the method fails for any reason.
+	 * @since 0.5
+	 */
+	@SuppressWarnings("unchecked")
+	public default KojiRepoInfo[] getRepos(String[] tags)
+			throws KojiHubClientException {
+		List<KojiCall> calls = new ArrayList<>();
+		for (String tag : tags) {
+			calls.add(new KojiCall("getRepo", tag)); //$NON-NLS-1$
+		}
+		Object[] results = multicall(calls);
+		KojiRepoInfo[] repos = new KojiRepoInfo[results.length];
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] != null) {
+				repos[i] = new KojiRepoInfo(
+						(HashMap<String, Object>) results[i]);
+			}
+		}
+		return repos;
+	}
+
 	/**
 	 * @return A list of all the unique available build targets for the current
 	 *         list of tags as returned by {@link #listTargets()}
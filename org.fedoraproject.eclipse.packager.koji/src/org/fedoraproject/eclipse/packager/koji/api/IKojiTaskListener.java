@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.koji.api;
+
+/**
+ * Listener for state changes of tasks watched by a {@link KojiTaskWatcher}.
+ *
+ * @since 0.5
+ */
+public interface IKojiTaskListener {
+
+	/**
+	 * Called from the thread of the watcher whenever the watched task or one
+	 * of its subtasks is seen in a new state, including the first time it is
+	 * seen.
+	 *
+	 * @param task
+	 *            The task whose state changed.
+	 * @param previousState
+	 *            The state the task was seen in before or -1 if it is seen for
+	 *            the first time.
+	 * @param root
+	 *            The watched task with the current tree of its subtasks.
+	 */
+	public void taskChanged(KojiTaskInfo task, int previousState,
+			KojiTaskInfo root);
+}
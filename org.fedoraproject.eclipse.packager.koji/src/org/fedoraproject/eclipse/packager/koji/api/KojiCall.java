@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.koji.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A call of a Koji hub method, to be sent together with other calls in one
+ * request using {@link IKojiHubClient#multicall(List)}.
+ *
+ * @since 0.5
+ */
+public class KojiCall {
+
+	private final String methodName;
+	private final List<Object> params;
+
+	/**
+	 * @param methodName
+	 *            The name of the hub method, e.g. {@code getBuild}.
+	 * @param params
+	 *            The parameters of the call.
+	 */
+	public KojiCall(String methodName, Object... params) {
+		this.methodName = methodName;
+		this.params = Collections.unmodifiableList(Arrays.asList(params));
+	}
+
+	/**
+	 * @return The name of the hub method.
+	 */
+	public String getMethodName() {
+		return methodName;
+	}
+
+	/**
+	 * @return The parameters of the call.
+	 */
+	public List<Object> getParams() {
+		return params;
+	}
+
+	/**
+	 * @return The call as expected by {@code system.multicall}.
+	 */
+	Map<String, Object> toMulticallEntry() {
+		Map<String, Object> entry = new HashMap<>();
+		entry.put("methodName", methodName); //$NON-NLS-1$
+		entry.put("params", params); //$NON-NLS-1$
+		return entry;
+	}
+
+	@Override
+	public String toString() {
+		return methodName + params;
+	}
+}
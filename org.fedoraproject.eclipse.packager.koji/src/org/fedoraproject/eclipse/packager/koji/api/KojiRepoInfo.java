@@ -10,9 +10,11 @@ public class KojiRepoInfo {
 
 	private static final String KEY_ID = "id"; //$NON-NLS-1$
 	private static final String KEY_CREATION_TIME = "creation_time"; //$NON-NLS-1$
+	private static final String KEY_CREATE_EVENT = "create_event"; //$NON-NLS-1$
 
 	private int id;
 	private String creationTime;
+	private int createEvent;
 
 	/**
 	 * Creates a new object with no attributes
@@ -21,9 +23,29 @@ public class KojiRepoInfo {
 		this.creationTime = new String();
 	}
 
-	KojiRepoInfo(HashMap<String, Object> attributes) {
+	/**
+	 * Construct the repo info from the map returned by the API call.
+	 * 
+	 * @param attributes
+	 *            The repository information returned by Koji.
+	 * @since 0.5
+	 */
+	public KojiRepoInfo(HashMap<String, Object> attributes) {
 		this.id = ((Integer) attributes.get(KEY_ID)).intValue();
 		this.creationTime = (String) attributes.get(KEY_CREATION_TIME);
+		Object event = attributes.get(KEY_CREATE_EVENT);
+		if (event instanceof Integer) {
+			this.createEvent = (Integer) event;
+		}
+	}
+
+	/**
+	 * @return The id of the event the repo was created at. Builds tagged at
+	 *         a later event are not in the repo.
+	 * @since 0.5
+	 */
+	public int getCreateEvent() {
+		return createEvent;
 	}
 
 	/**
@@ -186,7 +186,7 @@ public class KojiSRPMBuildJob extends KojiBuildJob {
 		subMonitor.worked(5);
 		kojiBuildCmd.setKojiClient(kojiClient);
 		List<String> sourceLocation = new ArrayList<>();
-		sourceLocation.add(uploadPath + "/" + srpmPath.lastSegment()); //$NON-NLS-1$
+		sourceLocation.add(uploadSRPMCommand.getRemotePath() + "/" + srpmPath.lastSegment()); //$NON-NLS-1$
 		kojiBuildCmd.sourceLocation(sourceLocation);
 		String nvr = RPMUtils.getNVR(fedoraProjectRoot, bci);
 		kojiBuildCmd.nvr(new String[] { nvr }).isScratchBuild(true);
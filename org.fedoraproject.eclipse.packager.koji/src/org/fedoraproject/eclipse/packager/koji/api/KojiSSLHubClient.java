@@ -18,21 +18,26 @@ import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.HashMap;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSession;
 
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.xmlrpc.XmlRpcException;
 import org.fedoraproject.eclipse.packager.FedoraSSL;
+import org.fedoraproject.eclipse.packager.IHttpClientService;
+import org.fedoraproject.eclipse.packager.IHttpClientService.SslPolicy;
+import org.fedoraproject.eclipse.packager.PackagerPlugin;
 import org.fedoraproject.eclipse.packager.koji.KojiText;
 import org.fedoraproject.eclipse.packager.koji.api.errors.KojiHubClientLoginException;
+import org.fedoraproject.eclipse.packager.koji.internal.utils.HttpClientXmlRpcTransportFactory;
 
 /**
  * Koji hub client which uses certificate based authentication (SSL).
  */
 public class KojiSSLHubClient extends AbstractKojiHubBaseClient {
 
+	// Client using the Fedora certificate, set up on login
+	private CloseableHttpClient httpClient;
+
 	/**
 	 * @param kojiHubUrl
 	 *            The koji hub URL to use.
@@ -108,23 +113,28 @@ public class KojiSSLHubClient extends AbstractKojiHubBaseClient {
 	}
 
 	/**
-	 * Initialize SSL connection
+	 * Initialize SSL connection. Calls are sent through the pooled,
+	 * certificate authenticated connections of the
+	 * {@link IHttpClientService}, so consecutive calls reuse the TLS session.
 	 */
 	protected void initSSLConnection() throws FileNotFoundException,
 			GeneralSecurityException, IOException {
-		// Create empty HostnameVerifier
-		HostnameVerifier hv = new HostnameVerifier() {
-			@Override
-			public boolean verify(String arg0, SSLSession arg1) {
-				return true;
-			}
-		};
-		SSLContext ctxt = null;
 		// may throw exceptions (dealt with in login())
-		ctxt = new FedoraSSL().getInitializedSSLContext();
-		// set up the proper socket
-		HttpsURLConnection.setDefaultSSLSocketFactory(ctxt.getSocketFactory());
-		HttpsURLConnection.setDefaultHostnameVerifier(hv);
+		CloseableHttpClient client = PackagerPlugin.getDefault()
+				.getHttpClientService().createClient(SslPolicy.FEDORA_CERT);
+		if (httpClient != null) {
+			httpClient.close();
+		}
+		httpClient = client;
+	}
+
+	@Override
+	protected void setupXmlRpcClient() {
+		super.setupXmlRpcClient();
+		if (httpClient != null) {
+			xmlRpcClient.setTransportFactory(new HttpClientXmlRpcTransportFactory(
+					xmlRpcClient, httpClient));
+		}
 	}
 
 	/**
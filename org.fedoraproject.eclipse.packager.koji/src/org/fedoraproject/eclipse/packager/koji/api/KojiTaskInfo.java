@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.koji.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class representing task info as returned by getTaskInfo XMLRPC call.
+ *
+ * @since 0.5
+ */
+public class KojiTaskInfo {
+
+	/* states of a task as numbered by koji */
+	/** The task waits for a builder */
+	public static final int STATE_FREE = 0;
+	/** The task is running */
+	public static final int STATE_OPEN = 1;
+	/** The task finished successfully */
+	public static final int STATE_CLOSED = 2;
+	/** The task was canceled */
+	public static final int STATE_CANCELED = 3;
+	/** The task is assigned to a builder, but not yet running */
+	public static final int STATE_ASSIGNED = 4;
+	/** The task failed */
+	public static final int STATE_FAILED = 5;
+
+	/* relevant keys of the returned map */
+	/** Koji info key for the task id */
+	public static final String KEY_ID = "id"; //$NON-NLS-1$
+	/** Koji info key for the state of the task */
+	public static final String KEY_STATE = "state"; //$NON-NLS-1$
+	/** Koji info key for the method of the task */
+	public static final String KEY_METHOD = "method"; //$NON-NLS-1$
+	/** Koji info key for the id of the parent task */
+	public static final String KEY_PARENT = "parent"; //$NON-NLS-1$
+	/** Koji info key for the label of the task */
+	public static final String KEY_LABEL = "label"; //$NON-NLS-1$
+	/** Koji info key for the architecture of the task */
+	public static final String KEY_ARCH = "arch"; //$NON-NLS-1$
+
+	private int id;
+	private int state;
+	private String method;
+	private int parent;
+	private String label;
+	private String arch;
+	private final List<KojiTaskInfo> children = new ArrayList<>();
+
+	/**
+	 * Construct the task info from the map returned by the API call.
+	 *
+	 * @param taskInfo
+	 *            The task information returned by Koji.
+	 */
+	public KojiTaskInfo(Map<?, ?> taskInfo) {
+		this.id = (Integer) taskInfo.get(KEY_ID);
+		this.state = (Integer) taskInfo.get(KEY_STATE);
+		this.method = (String) taskInfo.get(KEY_METHOD);
+		// top level tasks have no parent
+		Object parentId = taskInfo.get(KEY_PARENT);
+		this.parent = parentId instanceof Integer ? (Integer) parentId : -1;
+		this.label = (String) taskInfo.get(KEY_LABEL);
+		this.arch = (String) taskInfo.get(KEY_ARCH);
+	}
+
+	/**
+	 * @return The id of the task.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @return The state of the task, one of the {@code STATE_} constants.
+	 */
+	public int getState() {
+		return state;
+	}
+
+	/**
+	 * @return {@code true} if the task won't change its state any more.
+	 */
+	public boolean isFinished() {
+		return state == STATE_CLOSED || state == STATE_CANCELED
+				|| state == STATE_FAILED;
+	}
+
+	/**
+	 * @return The method of the task, e.g. {@code buildArch}.
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return The id of the parent task or -1 for a top level task.
+	 */
+	public int getParent() {
+		return parent;
+	}
+
+	/**
+	 * @return The label of the task, may be {@code null}.
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * @return The architecture the task runs on.
+	 */
+	public String getArch() {
+		return arch;
+	}
+
+	/**
+	 * @return The subtasks of the task, if they were fetched.
+	 */
+	public List<KojiTaskInfo> getChildren() {
+		return Collections.unmodifiableList(children);
+	}
+
+	void addChild(KojiTaskInfo child) {
+		children.add(child);
+	}
+}
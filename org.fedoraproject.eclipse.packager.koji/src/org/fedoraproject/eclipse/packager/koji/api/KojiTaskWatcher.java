@@ -0,0 +1,350 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.koji.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.osgi.util.NLS;
+import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
+import org.fedoraproject.eclipse.packager.koji.KojiText;
+import org.fedoraproject.eclipse.packager.koji.api.errors.KojiHubClientException;
+
+/**
+ * Watches Koji tasks until they are finished and notifies listeners about
+ * state changes of the tasks and their subtasks. All watched tasks of a hub
+ * are polled with one multicall. The poll interval starts at
+ * {@value #MIN_INTERVAL} ms, grows exponentially while nothing changes, up to
+ * {@value #MAX_INTERVAL} ms, and is randomized a little so many clients don't
+ * poll in lockstep. The watchers of all hubs share one scheduler thread.
+ *
+ * @since 0.5
+ */
+public class KojiTaskWatcher {
+
+	private static final long MIN_INTERVAL = 5000;
+	private static final long MAX_INTERVAL = 120000;
+	private static final double BACKOFF_FACTOR = 1.5;
+	private static final double JITTER = 0.2;
+
+	private static final ScheduledExecutorService scheduler = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Koji task watcher"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/**
+	 * The watchers indexed by the client they poll with.
+	 */
+	private static HashMap<IKojiHubClient, KojiTaskWatcher> watchers = new HashMap<>(1);
+
+	/**
+	 * A watched task.
+	 */
+	private static class Watch {
+		final List<IKojiTaskListener> listeners = new CopyOnWriteArrayList<>();
+		// last seen states of the task and its subtasks by task id
+		final Map<Integer, Integer> states = new HashMap<>();
+	}
+
+	private final IKojiHubClient client;
+	private final Map<Integer, Watch> watches = new LinkedHashMap<>();
+	private final Random random = new Random();
+	private long interval = MIN_INTERVAL;
+	private ScheduledFuture<?> nextPoll;
+
+	KojiTaskWatcher(IKojiHubClient client) {
+		this.client = client;
+	}
+
+	/**
+	 * @param client
+	 *            The client to poll the hub with.
+	 * @return The watcher of the hub of {@code client}.
+	 */
+	public static synchronized KojiTaskWatcher getWatcher(IKojiHubClient client) {
+		KojiTaskWatcher watcher = watchers.get(client);
+		if (watcher == null) {
+			watcher = new KojiTaskWatcher(client);
+			watchers.put(client, watcher);
+		}
+		return watcher;
+	}
+
+	/**
+	 * Start watching a task. The task is polled right away, so the listener
+	 * soon learns about its current state.
+	 *
+	 * @param taskId
+	 *            The id of the task.
+	 * @param listener
+	 *            The listener to notify about state changes of the task and
+	 *            its subtasks.
+	 */
+	public synchronized void watch(int taskId, IKojiTaskListener listener) {
+		Watch watch = watches.get(taskId);
+		if (watch == null) {
+			watch = new Watch();
+			watches.put(taskId, watch);
+		}
+		watch.listeners.add(listener);
+		// a new task is likely to change soon
+		interval = MIN_INTERVAL;
+		schedule(0);
+	}
+
+	/**
+	 * Stop notifying a listener about a task. The task is no longer polled
+	 * once it has no listeners.
+	 *
+	 * @param taskId
+	 *            The id of the task.
+	 * @param listener
+	 *            The listener to remove.
+	 */
+	public synchronized void unwatch(int taskId, IKojiTaskListener listener) {
+		Watch watch = watches.get(taskId);
+		if (watch != null) {
+			watch.listeners.remove(listener);
+			if (watch.listeners.isEmpty()) {
+				watches.remove(taskId);
+			}
+		}
+	}
+
+	/**
+	 * @param taskId
+	 *            The id of a task.
+	 * @return {@code true} if the task is watched and not finished yet.
+	 */
+	public synchronized boolean isWatching(int taskId) {
+		return watches.containsKey(taskId);
+	}
+
+	/**
+	 * Schedule the next poll, unless one is due earlier anyway.
+	 */
+	private void schedule(long delay) {
+		if (nextPoll != null) {
+			if (nextPoll.getDelay(TimeUnit.MILLISECONDS) <= delay) {
+				return;
+			}
+			nextPoll.cancel(false);
+		}
+		nextPoll = scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				poll();
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Fetch the states of all watched tasks and their subtasks in one
+	 * request and notify the listeners about changes. The next poll is
+	 * scheduled whatever happens, so one failure doesn't stop the watches of
+	 * the hub.
+	 */
+	void poll() {
+		List<Integer> taskIds;
+		synchronized (this) {
+			nextPoll = null;
+			if (watches.isEmpty()) {
+				return;
+			}
+			taskIds = new ArrayList<>(watches.keySet());
+		}
+		List<KojiCall> calls = new ArrayList<>();
+		for (Integer taskId : taskIds) {
+			calls.add(new KojiCall("getTaskInfo", taskId)); //$NON-NLS-1$
+			calls.add(new KojiCall("getTaskDescendents", taskId)); //$NON-NLS-1$
+		}
+		boolean changed = false;
+		try {
+			Object[] results = client.multicall(calls);
+			if (results.length != calls.size()) {
+				throw unexpectedReply(Arrays.asList(results));
+			}
+			// check the whole reply before anything is updated
+			List<KojiTaskInfo> roots = new ArrayList<>();
+			for (int i = 0; i < taskIds.size(); i++) {
+				roots.add(toTaskTree(results[2 * i], results[2 * i + 1]));
+			}
+			for (int i = 0; i < taskIds.size(); i++) {
+				changed |= update(taskIds.get(i), roots.get(i));
+			}
+		} catch (KojiHubClientException e) {
+			// try again later
+			FedoraPackagerLogger.getInstance().logError(
+					KojiText.KojiTaskWatcher_pollFailed, e);
+		} finally {
+			synchronized (this) {
+				if (changed) {
+					interval = MIN_INTERVAL;
+				} else {
+					interval = Math.min(MAX_INTERVAL,
+							(long) (interval * BACKOFF_FACTOR));
+				}
+				if (!watches.isEmpty()) {
+					schedule((long) (interval * (1 + JITTER
+							* (2 * random.nextDouble() - 1))));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compare the polled state of a task tree with the last seen one and
+	 * notify the listeners of the task about changes. A failing listener
+	 * doesn't keep the others from being notified.
+	 *
+	 * @param root
+	 *            The polled task tree, {@code null} if there is no such task.
+	 * @return {@code true} if anything changed.
+	 */
+	private boolean update(Integer taskId, KojiTaskInfo root) {
+		List<KojiTaskInfo> changedTasks = new ArrayList<>();
+		List<Integer> previousStates = new ArrayList<>();
+		List<IKojiTaskListener> listeners;
+		synchronized (this) {
+			Watch watch = watches.get(taskId);
+			if (watch == null) {
+				// unwatched meanwhile
+				return false;
+			}
+			if (root == null) {
+				// no such task, nothing to wait for
+				watches.remove(taskId);
+				return false;
+			}
+			collectChanges(root, watch.states, changedTasks, previousStates);
+			if (root.isFinished()) {
+				watches.remove(taskId);
+			}
+			listeners = watch.listeners;
+		}
+		for (int i = 0; i < changedTasks.size(); i++) {
+			for (IKojiTaskListener listener : listeners) {
+				try {
+					listener.taskChanged(changedTasks.get(i),
+							previousStates.get(i), root);
+				} catch (RuntimeException e) {
+					FedoraPackagerLogger.getInstance().logError(
+							KojiText.KojiTaskWatcher_listenerFailed, e);
+				}
+			}
+		}
+		return !changedTasks.isEmpty();
+	}
+
+	/**
+	 * Build a task tree from the replies of {@code getTaskInfo} and
+	 * {@code getTaskDescendents}.
+	 *
+	 * @return The task tree or {@code null} if there is no such task.
+	 * @throws KojiHubClientException
+	 *             If the replies aren't shaped as expected.
+	 */
+	private static KojiTaskInfo toTaskTree(Object taskInfo, Object descendents)
+			throws KojiHubClientException {
+		if (taskInfo == null) {
+			return null;
+		}
+		KojiTaskInfo root = toTaskInfo(taskInfo);
+		if (descendents instanceof Map<?, ?>) {
+			addChildren(root, (Map<?, ?>) descendents);
+		} else if (descendents != null) {
+			throw unexpectedReply(descendents);
+		}
+		return root;
+	}
+
+	/**
+	 * Build the tree of subtasks from the map returned by
+	 * {@code getTaskDescendents}, which lists the children of every task in
+	 * the tree by task id.
+	 */
+	private static void addChildren(KojiTaskInfo task, Map<?, ?> descendents)
+			throws KojiHubClientException {
+		Object children = descendents.get(Integer.toString(task.getId()));
+		if (children instanceof Object[]) {
+			for (Object child : (Object[]) children) {
+				KojiTaskInfo childInfo = toTaskInfo(child);
+				addChildren(childInfo, descendents);
+				task.addChild(childInfo);
+			}
+		} else if (children != null) {
+			throw unexpectedReply(children);
+		}
+	}
+
+	/**
+	 * @return The task described by a struct of a reply.
+	 * @throws KojiHubClientException
+	 *             If it lacks fields or has fields of unexpected types.
+	 */
+	private static KojiTaskInfo toTaskInfo(Object struct)
+			throws KojiHubClientException {
+		if (!(struct instanceof Map<?, ?>)) {
+			throw unexpectedReply(struct);
+		}
+		Map<?, ?> info = (Map<?, ?>) struct;
+		if (!(info.get(KojiTaskInfo.KEY_ID) instanceof Integer)
+				|| !(info.get(KojiTaskInfo.KEY_STATE) instanceof Integer)
+				|| !isStringOrNull(info.get(KojiTaskInfo.KEY_METHOD))
+				|| !isStringOrNull(info.get(KojiTaskInfo.KEY_LABEL))
+				|| !isStringOrNull(info.get(KojiTaskInfo.KEY_ARCH))) {
+			throw unexpectedReply(struct);
+		}
+		return new KojiTaskInfo(info);
+	}
+
+	private static boolean isStringOrNull(Object value) {
+		return value == null || value instanceof String;
+	}
+
+	private static KojiHubClientException unexpectedReply(Object reply) {
+		return new KojiHubClientException(NLS.bind(
+				KojiText.KojiTaskWatcher_unexpectedReply, reply), null);
+	}
+
+	/**
+	 * Record the states of a task tree, parents first, and collect the tasks
+	 * whose state changed.
+	 */
+	private static void collectChanges(KojiTaskInfo task,
+			Map<Integer, Integer> states, List<KojiTaskInfo> changedTasks,
+			List<Integer> previousStates) {
+		Integer previous = states.put(task.getId(), task.getState());
+		if (previous == null || previous.intValue() != task.getState()) {
+			changedTasks.add(task);
+			previousStates.add(previous == null ? -1 : previous.intValue());
+		}
+		for (KojiTaskInfo child : task.getChildren()) {
+			collectChanges(child, states, changedTasks, previousStates);
+		}
+	}
+}
@@ -14,11 +14,22 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.codec.binary.Hex;
+import org.apache.xmlrpc.XmlRpcException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.osgi.util.NLS;
@@ -28,9 +39,24 @@ import org.fedoraproject.eclipse.packager.api.errors.CommandMisconfiguredExcepti
 import org.fedoraproject.eclipse.packager.koji.KojiText;
 import org.fedoraproject.eclipse.packager.koji.api.errors.KojiHubClientException;
 import org.fedoraproject.eclipse.packager.koji.api.errors.KojiHubClientLoginException;
+import org.fedoraproject.eclipse.packager.koji.internal.utils.UploadSessionStore;
+import org.fedoraproject.eclipse.packager.koji.internal.utils.UploadSessionStore.Session;
+import org.fedoraproject.eclipse.packager.utils.ChecksumCache;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
 
 /**
- * Command for uploading an SRPM to Koji.
+ * Command for uploading an SRPM to Koji. The SRPM is read in chunks which are
+ * uploaded {@value #UPLOAD_CONCURRENCY} at a time, so the upload isn't
+ * limited by the round trip time to the hub. The chunk size adapts to the
+ * measured time per chunk. The chunk at offset 0 is uploaded on its own first,
+ * since the hub truncates the file when it receives it, and chunks the hub
+ * couldn't lock the file for are retried. Once all chunks are uploaded, the
+ * hub verifies the checksum of the whole file.
+ *
+ * Uploads are recorded in the {@link UploadSessionStore}. An interrupted
+ * upload of the same SRPM is resumed where it stopped, and an SRPM the hub
+ * still has from an earlier upload isn't uploaded again. In both cases the
+ * path of the earlier upload is used, see {@link #getRemotePath()}.
  *
  */
 public class KojiUploadSRPMCommand extends FedoraPackagerCommand<BuildResult> {
@@ -38,6 +64,47 @@ public class KojiUploadSRPMCommand extends FedoraPackagerCommand<BuildResult> {
 	 * Unique ID for this command.
 	 */
 	public final static String ID = "KojiUploadSRPMCommand"; //$NON-NLS-1$
+
+	/**
+	 * Number of chunks uploaded at the same time. Matches the connections per
+	 * host of the shared HTTP client.
+	 */
+	private static final int UPLOAD_CONCURRENCY = 4;
+	private static final int INITIAL_CHUNK_SIZE = 1000000;
+	private static final int MIN_CHUNK_SIZE = 256 * 1024;
+	// Base64 encoded, this stays well below the request size limit of koji
+	private static final int MAX_CHUNK_SIZE = 2 * 1024 * 1024;
+	/**
+	 * Time the upload of a chunk should take. Shorter uploads are dominated by
+	 * the round trip time, longer ones delay cancellation and retries.
+	 */
+	private static final long TARGET_CHUNK_TIME = TimeUnit.SECONDS.toNanos(2);
+	private static final long CANCEL_CHECK_INTERVAL = 200;
+	/**
+	 * Fault code of koji's LockError, raised when the hub can't lock the
+	 * uploaded file because another chunk is being written.
+	 */
+	private static final int LOCK_ERROR = 1001;
+	private static final int MAX_LOCK_ATTEMPTS = 10;
+	private static final long LOCK_RETRY_DELAY = 100;
+
+	/**
+	 * An uploaded chunk.
+	 */
+	private static class Chunk {
+		final byte[] buffer;
+		final int length;
+		final long offset;
+		boolean success;
+		long elapsed;
+
+		Chunk(byte[] buffer, int length, long offset) {
+			this.buffer = buffer;
+			this.length = length;
+			this.offset = offset;
+		}
+	}
+
 	private File srpm;
 	private FileInputStream fis;
 	private String remotePath;
@@ -82,44 +149,233 @@ public class KojiUploadSRPMCommand extends FedoraPackagerCommand<BuildResult> {
 		client.login();
 
 		String srpmName = srpm.getName();
-		byte[] readData = null;
-		boolean success = true;
-
+		boolean success;
 		try {
-
-			int chunkSize = Math.min(fis.available(), 1000000);
-			int chunkOffset = 0;
-			String md5sum = null;
-			String base64 = null;
-			while (chunkSize > 0) {
-				readData = new byte[chunkSize];
-				fis.read(readData);
-				md5sum = Hex.encodeHexString(MessageDigest
-						.getInstance("MD5").digest(readData)); //$NON-NLS-1$
-				base64 = Base64.getEncoder().encodeToString(readData);
-				success = (success && client.uploadFile(remotePath, srpmName,
-						chunkSize, md5sum, chunkOffset, base64));
-				monitor.worked(chunkSize);
-				chunkOffset += chunkSize;
-				chunkSize = Math.min(fis.available(), 1000000);
-				if (monitor.isCanceled()) {
-					throw new OperationCanceledException();
+			String md5sum = ChecksumCache.getInstance().getChecksum(srpm,
+					Algorithm.MD5);
+			UploadSessionStore store = UploadSessionStore.getInstance();
+			Session session = store.get(srpmName, md5sum);
+			long resumeOffset = 0;
+			if (session != null) {
+				HashMap<?, ?> uploaded = client.checkUpload(
+						session.getRemotePath(), srpmName, session.isComplete());
+				if (uploaded == null) {
+					// hub cleaned up or is a different one
+					session = null;
+				} else if (session.isComplete()) {
+					if (md5sum.equals(uploaded.get("hexdigest"))) { //$NON-NLS-1$
+						// unchanged SRPM still on the hub, nothing to do
+						remotePath = session.getRemotePath();
+						monitor.worked((int) srpm.length());
+						BuildResult result = new BuildResult();
+						result.setSuccessful(true);
+						return result;
+					}
+					session = null;
+				} else if (uploaded.get("size") == null) { //$NON-NLS-1$
+					// can't tell how much the hub has
+					session = null;
+				} else {
+					// uploads may complete out of order, so the hub's size
+					// is only an upper bound
+					resumeOffset = Math.min(session.getConfirmedOffset(),
+							Long.parseLong(uploaded.get("size").toString())); //$NON-NLS-1$
+					remotePath = session.getRemotePath();
 				}
 			}
+			if (session == null) {
+				session = new Session(remotePath);
+				store.put(srpmName, md5sum, session);
+			}
+			fis.getChannel().position(resumeOffset);
+			monitor.worked((int) resumeOffset);
+			success = upload(fis, resumeOffset, session, monitor)
+					&& client.verifyUpload(remotePath, srpmName,
+							srpm.length(), md5sum);
+			if (success) {
+				store.complete(session);
+			} else {
+				// start over next time
+				store.remove(srpmName, md5sum);
+			}
 		} catch (IOException e1) {
 			throw new CommandMisconfiguredException(
 					NLS.bind(KojiText.KojiUploadSRPMCommand_CouldNotRead,
 							srpm.getName()));
-		} catch (NoSuchAlgorithmException e) {
-			// should not occur
-			throw new CommandMisconfiguredException(
-					KojiText.KojiUploadSRPMCommand_NoMD5);
+		} finally {
+			try {
+				fis.close();
+			} catch (IOException e) {
+				// ignore
+			}
 		}
 		BuildResult result = new BuildResult();
 		result.setSuccessful(success);
 		return result;
 	}
 
+	/**
+	 * Read the SRPM into pooled buffers while earlier chunks are uploaded.
+	 * The part of the file known to be uploaded is recorded in the session as
+	 * chunks complete. Starting at offset 0, the first chunk has to complete
+	 * before others are sent. No more chunks are sent once one failed.
+	 */
+	private boolean upload(InputStream in, long startOffset,
+			Session session, IProgressMonitor monitor) throws IOException,
+			KojiHubClientException {
+		final String srpmName = srpm.getName();
+		UploadSessionStore store = UploadSessionStore.getInstance();
+		ExecutorService uploaders = Executors.newFixedThreadPool(
+				UPLOAD_CONCURRENCY, new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Koji SRPM upload"); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		CompletionService<Chunk> uploads = new ExecutorCompletionService<>(
+				uploaders);
+		// at most one buffer per upload in flight and one being read
+		Deque<byte[]> buffers = new ArrayDeque<>();
+		// lengths of uploaded chunks beyond the confirmed offset, by offset
+		Map<Long, Integer> uploaded = new HashMap<>();
+		long confirmed = startOffset;
+		boolean success = true;
+		int chunkSize = INITIAL_CHUNK_SIZE;
+		int inFlight = 0;
+		long offset = startOffset;
+		boolean eof = false;
+		try {
+			while ((!eof && success) || inFlight > 0) {
+				// the hub truncates the file when receiving offset 0
+				if (eof || !success || inFlight == UPLOAD_CONCURRENCY
+						|| (inFlight > 0 && confirmed == 0)) {
+					Chunk chunk = awaitUpload(uploads, monitor);
+					inFlight--;
+					buffers.push(chunk.buffer);
+					chunkSize = adaptChunkSize(chunkSize, chunk);
+					if (!chunk.success) {
+						success = false;
+						continue;
+					}
+					uploaded.put(Long.valueOf(chunk.offset),
+							Integer.valueOf(chunk.length));
+					long before = confirmed;
+					Integer length;
+					while ((length = uploaded.remove(Long.valueOf(confirmed))) != null) {
+						confirmed += length.intValue();
+					}
+					if (confirmed != before) {
+						store.confirm(session, confirmed);
+					}
+					continue;
+				}
+				byte[] buffer = buffers.isEmpty() ? new byte[MAX_CHUNK_SIZE]
+						: buffers.pop();
+				final int length = readFully(in, buffer, chunkSize);
+				if (length == 0) {
+					buffers.push(buffer);
+					eof = true;
+					continue;
+				}
+				final Chunk chunk = new Chunk(buffer, length, offset);
+				uploads.submit(new Callable<Chunk>() {
+					@Override
+					public Chunk call() throws KojiHubClientException,
+							InterruptedException {
+						for (int attempt = 1;; attempt++) {
+							long start = System.nanoTime();
+							try {
+								chunk.success = client.uploadChunk(remotePath,
+										srpmName, chunk.buffer, chunk.length,
+										chunk.offset);
+								chunk.elapsed = System.nanoTime() - start;
+								return chunk;
+							} catch (KojiHubClientException e) {
+								if (!isLockContention(e)
+										|| attempt == MAX_LOCK_ATTEMPTS) {
+									throw e;
+								}
+							}
+							Thread.sleep(LOCK_RETRY_DELAY * attempt);
+						}
+					}
+				});
+				inFlight++;
+				offset += length;
+			}
+		} finally {
+			uploaders.shutdownNow();
+		}
+		return success;
+	}
+
+	/**
+	 * Wait for the next upload to finish and report its progress.
+	 */
+	private static Chunk awaitUpload(CompletionService<Chunk> uploads,
+			IProgressMonitor monitor) throws KojiHubClientException {
+		try {
+			Future<Chunk> done;
+			while ((done = uploads.poll(CANCEL_CHECK_INTERVAL,
+					TimeUnit.MILLISECONDS)) == null) {
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+			}
+			Chunk chunk = done.get();
+			monitor.worked(chunk.length);
+			return chunk;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof KojiHubClientException) {
+				throw (KojiHubClientException) e.getCause();
+			}
+			throw new KojiHubClientException(e.getCause());
+		}
+	}
+
+	/**
+	 * @return {@code true} if the hub refused a chunk because another request
+	 *         held the lock of the file.
+	 */
+	private static boolean isLockContention(KojiHubClientException e) {
+		return e.getCause() instanceof XmlRpcException
+				&& ((XmlRpcException) e.getCause()).code == LOCK_ERROR;
+	}
+
+	/**
+	 * Grow chunks which were uploaded quickly and shrink slow ones, aiming at
+	 * {@link #TARGET_CHUNK_TIME} per chunk.
+	 */
+	private static int adaptChunkSize(int chunkSize, Chunk chunk) {
+		if (chunk.length < chunkSize) {
+			// last chunk, says nothing about the throughput
+			return chunkSize;
+		}
+		if (chunk.elapsed < TARGET_CHUNK_TIME / 2) {
+			return Math.min(chunkSize * 2, MAX_CHUNK_SIZE);
+		}
+		if (chunk.elapsed > TARGET_CHUNK_TIME * 2) {
+			return Math.max(chunkSize / 2, MIN_CHUNK_SIZE);
+		}
+		return chunkSize;
+	}
+
+	private static int readFully(InputStream in, byte[] buffer, int length)
+			throws IOException {
+		int read = 0;
+		int count;
+		while (read < length
+				&& (count = in.read(buffer, read, length - read)) != -1) {
+			read += count;
+		}
+		return read;
+	}
+
 	/**
 	 * @param srpmPath
 	 *            The path of the rpm to use.
@@ -140,6 +396,16 @@ public class KojiUploadSRPMCommand extends FedoraPackagerCommand<BuildResult> {
 		return this;
 	}
 
+	/**
+	 * @return The path on the server the SRPM was uploaded to. After
+	 *         {@link #call(IProgressMonitor)} this is the path of an earlier
+	 *         upload if that was resumed or reused.
+	 * @since 0.5
+	 */
+	public String getRemotePath() {
+		return remotePath;
+	}
+
 	/**
 	 * @param client
 	 *            The client used when connecting to koji.
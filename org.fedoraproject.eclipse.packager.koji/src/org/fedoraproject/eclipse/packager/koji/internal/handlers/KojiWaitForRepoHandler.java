@@ -5,21 +5,32 @@ import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.ui.handlers.HandlerUtil;
 import org.fedoraproject.eclipse.packager.IProjectRoot;
+import org.fedoraproject.eclipse.packager.utils.FedoraPackagerUtils;
+import org.fedoraproject.eclipse.packager.utils.RPMUtils;
 
 /**
- * Handler for waiting for a Koji repo to be created.
+ * Handler for waiting for a Koji repo to be created, or to contain the build
+ * of the project.
  */
 public class KojiWaitForRepoHandler extends KojiHandler {
 
 	@Override
 	public Object execute(ExecutionEvent event) throws ExecutionException {
+		boolean waitForBuild = Boolean.valueOf(event
+				.getParameter("kojiWaitForBuild")); //$NON-NLS-1$
 		setKojiInfo(event);
 
 		final IProjectRoot projectRoot = getProjectRoot(event);
 		if (projectRoot != null){
+			String[] nvrs = null;
+			if (waitForBuild) {
+				nvrs = new String[] { RPMUtils.getNVR(projectRoot,
+						FedoraPackagerUtils.getVcsHandler(projectRoot)
+								.getBranchConfig()) };
+			}
 			Job job = new KojiWaitForRepoJob(projectRoot
 					.getProductStrings().getProductName(),  HandlerUtil.getActiveShellChecked(event),
-					projectRoot, kojiInfo);
+					projectRoot, kojiInfo, nvrs);
 			job.setUser(true);
 			job.schedule();
 		}
@@ -1,5 +1,9 @@
 package org.fedoraproject.eclipse.packager.koji.internal.handlers;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -16,6 +20,7 @@ import org.fedoraproject.eclipse.packager.IProjectRoot;
 import org.fedoraproject.eclipse.packager.koji.KojiPlugin;
 import org.fedoraproject.eclipse.packager.koji.KojiText;
 import org.fedoraproject.eclipse.packager.koji.api.IKojiHubClient;
+import org.fedoraproject.eclipse.packager.koji.api.KojiCall;
 import org.fedoraproject.eclipse.packager.koji.api.KojiJob;
 import org.fedoraproject.eclipse.packager.koji.api.KojiRepoInfo;
 import org.fedoraproject.eclipse.packager.koji.api.errors.KojiHubClientException;
@@ -23,12 +28,37 @@ import org.fedoraproject.eclipse.packager.koji.internal.ui.KojiTargetDialog;
 import org.fedoraproject.eclipse.packager.utils.FedoraHandlerUtils;
 
 /**
- * A Koji job which calls executes Koji repo-wait.
- * 
+ * A Koji job which calls executes Koji repo-wait. It either waits for the
+ * next regeneration of the repo of a tag, or until given builds are in the
+ * repo. The hub is polled every {@value #MIN_POLL_INTERVAL} ms while a
+ * regeneration is pending, i.e. the tag changed since the repo was created,
+ * and less often, up to every {@value #MAX_POLL_INTERVAL} ms, while nothing
+ * happens. Waiting for builds stops if one of them is tagged, but newer builds
+ * of its package are the latest ones, since it won't get into the repo.
  */
 public class KojiWaitForRepoJob extends KojiJob {
 
+	private static final long MIN_POLL_INTERVAL = 10000;
+	private static final long MAX_POLL_INTERVAL = 120000;
+	private static final double BACKOFF_FACTOR = 1.5;
+	private static final long CANCEL_CHECK_INTERVAL = 1000;
+
+	/**
+	 * What a poll of the hub found out.
+	 */
+	enum Progress {
+		/** The wait is over */
+		DONE,
+		/** The tag changed since the repo was created */
+		REGEN_PENDING,
+		/** Nothing to expect soon */
+		WAITING,
+		/** A build is tagged, but not the latest of its package */
+		SUPERSEDED
+	}
+
 	private IKojiHubClient kojiClient;
+	private final String[] nvrs;
 
 	/**
 	 * @param name
@@ -42,7 +72,26 @@ public class KojiWaitForRepoJob extends KojiJob {
 	 */
 	public KojiWaitForRepoJob(String name, Shell shell,
 			IProjectRoot fedoraProjectRoot, String[] kojiInfo) {
+		this(name, shell, fedoraProjectRoot, kojiInfo, null);
+	}
+
+	/**
+	 * @param name
+	 *            The name of the job
+	 * @param shell
+	 *            The shell the job will run in.
+	 * @param kojiInfo
+	 *            Koji server information.
+	 * @param fedoraProjectRoot
+	 *            The project root for this job.
+	 * @param nvrs
+	 *            The name-version-release tokens of the builds to wait for,
+	 *            {@code null} to wait for any regeneration of the repo.
+	 */
+	public KojiWaitForRepoJob(String name, Shell shell,
+			IProjectRoot fedoraProjectRoot, String[] kojiInfo, String[] nvrs) {
 		super(name, shell, kojiInfo, fedoraProjectRoot);
+		this.nvrs = nvrs;
 	}
 
 	private IStatus initializeKojiClient() {
@@ -95,37 +144,74 @@ public class KojiWaitForRepoJob extends KojiJob {
 					e.getMessage(), e);
 		}
 
-		
 		KojiRepoInfo oldRepo = getRepo(tag);
+		if (oldRepo == null) {
+			return new Status(IStatus.ERROR, KojiPlugin.PLUGIN_ID, NLS.bind(
+					KojiText.KojiWaitForRepoHandler_errorGettingRepoInfo,
+					tag));
+		}
 
-		monitor.beginTask(NLS.bind(
-				KojiText.KojiWaitForRepoJob_WaitingForUpdateMessage, tag),
-				IProgressMonitor.UNKNOWN);
+		if (nvrs == null) {
+			monitor.beginTask(NLS.bind(
+					KojiText.KojiWaitForRepoJob_WaitingForUpdateMessage, tag),
+					IProgressMonitor.UNKNOWN);
+		} else {
+			monitor.beginTask(NLS.bind(
+					KojiText.KojiWaitForRepoJob_WaitingForBuildsMessage,
+					String.join(", ", nvrs), tag), //$NON-NLS-1$
+					IProgressMonitor.UNKNOWN);
+		}
 
+		// the builds may be in the repo already
+		long interval = 0;
 		while (!monitor.isCanceled()) {
+			sleep(interval, monitor);
+			if (monitor.isCanceled()) {
+				break;
+			}
+			Progress progress;
+			List<String> superseded = new ArrayList<>();
 			try {
-				// Sleep for 60 seconds but check for cancellation
-				// every 10 seconds.
-				int slept = 0;
-				while (slept < 60000 && !monitor.isCanceled()) {
-					slept += 10000;
-					Thread.sleep(10000);
-				}
-			} catch (InterruptedException e) {
-				// Ignore.
+				progress = nvrs == null ? pollRepo(kojiClient, tag, oldRepo)
+						: pollBuilds(kojiClient, tag, nvrs, superseded);
+			} catch (KojiHubClientException | ClassCastException e) {
+				// try again later
+				FedoraPackagerLogger.getInstance().logError(
+						NLS.bind(
+								KojiText.KojiWaitForRepoHandler_errorGettingRepoInfo,
+								e.getMessage()), e);
+				progress = Progress.WAITING;
 			}
-
-			if (!oldRepo.equals(getRepo(tag))) {
-				// The repository has been updated.
+			if (progress == Progress.DONE) {
 				FedoraHandlerUtils
 						.showInformationDialog(
 								shell,
 								KojiText.KojiWaitForRepoJob_repoUpdatedDialogTitle,
-								NLS.bind(
+								nvrs == null ? NLS.bind(
 										KojiText.KojiWaitForRepoJob_repoUpdatedDialogText,
-										tag));
+										tag)
+										: NLS.bind(
+												KojiText.KojiWaitForRepoJob_buildsInRepoDialogText,
+												String.join(", ", nvrs), tag)); //$NON-NLS-1$
+				break;
+			}
+			if (progress == Progress.SUPERSEDED) {
+				FedoraHandlerUtils
+						.showErrorDialog(
+								shell,
+								KojiText.KojiWaitForRepoJob_buildsSupersededDialogTitle,
+								NLS.bind(
+										KojiText.KojiWaitForRepoJob_buildsSupersededDialogText,
+										String.join(", ", superseded), tag)); //$NON-NLS-1$
 				break;
 			}
+			if (progress == Progress.REGEN_PENDING) {
+				// the new repo is likely to appear within a few minutes
+				interval = MIN_POLL_INTERVAL;
+			} else {
+				interval = Math.min(MAX_POLL_INTERVAL, Math.max(
+						MIN_POLL_INTERVAL, (long) (interval * BACKOFF_FACTOR)));
+			}
 		}
 
 		if (monitor.isCanceled()) {
@@ -136,6 +222,152 @@ public class KojiWaitForRepoJob extends KojiJob {
 		return Status.OK_STATUS;
 	}
 
+	/**
+	 * Sleep, but check for cancellation in between.
+	 */
+	private static void sleep(long millis, IProgressMonitor monitor) {
+		long end = System.currentTimeMillis() + millis;
+		long remaining;
+		while ((remaining = end - System.currentTimeMillis()) > 0
+				&& !monitor.isCanceled()) {
+			try {
+				Thread.sleep(Math.min(remaining, CANCEL_CHECK_INTERVAL));
+			} catch (InterruptedException e) {
+				// Ignore.
+			}
+		}
+	}
+
+	/**
+	 * Check whether the repo was regenerated, and if not, whether the tag
+	 * changed since the repo was created.
+	 */
+	@SuppressWarnings("unchecked")
+	static Progress pollRepo(IKojiHubClient client, String tag,
+			KojiRepoInfo oldRepo) throws KojiHubClientException {
+		List<KojiCall> calls = new ArrayList<>();
+		calls.add(new KojiCall("getRepo", tag)); //$NON-NLS-1$
+		calls.add(new KojiCall("tagChangedSinceEvent", //$NON-NLS-1$
+				oldRepo.getCreateEvent(), new Object[] { tag }));
+		Object[] results = client.multicall(calls);
+		if (results[0] != null
+				&& !oldRepo.equals(new KojiRepoInfo(
+						(HashMap<String, Object>) results[0]))) {
+			return Progress.DONE;
+		}
+		return Boolean.TRUE.equals(results[1]) ? Progress.REGEN_PENDING
+				: Progress.WAITING;
+	}
+
+	/**
+	 * Check whether the latest builds of the packages in the tag are the
+	 * requested ones, and whether they were tagged before the current repo
+	 * was created.
+	 *
+	 * @param superseded
+	 *            Receives the requested builds which are tagged, but aren't
+	 *            the latest builds of their packages.
+	 */
+	@SuppressWarnings("unchecked")
+	static Progress pollBuilds(IKojiHubClient client, String tag,
+			String[] buildNvrs, List<String> superseded)
+			throws KojiHubClientException {
+		List<KojiCall> calls = new ArrayList<>();
+		calls.add(new KojiCall("getRepo", tag)); //$NON-NLS-1$
+		for (String nvr : buildNvrs) {
+			calls.add(listTagged(tag, nvr, true));
+		}
+		Object[] results = client.multicall(calls);
+		if (results[0] == null) {
+			return Progress.WAITING;
+		}
+		KojiRepoInfo repo = new KojiRepoInfo(
+				(HashMap<String, Object>) results[0]);
+		boolean allInRepo = true;
+		boolean regenPending = false;
+		List<String> notLatest = new ArrayList<>();
+		for (int i = 0; i < buildNvrs.length; i++) {
+			Map<?, ?> tagged = findBuild((Object[]) results[i + 1],
+					buildNvrs[i]);
+			if (tagged == null) {
+				// not tagged (yet), or superseded
+				allInRepo = false;
+				notLatest.add(buildNvrs[i]);
+				continue;
+			}
+			Object tagEvent = tagged.get("create_event"); //$NON-NLS-1$
+			if (tagEvent instanceof Integer
+					&& ((Integer) tagEvent).intValue() > repo.getCreateEvent()) {
+				// tagged after the repo was created
+				allInRepo = false;
+				regenPending = true;
+			}
+		}
+		if (allInRepo) {
+			return Progress.DONE;
+		}
+		superseded.addAll(findSuperseded(client, tag, notLatest));
+		if (!superseded.isEmpty()) {
+			return Progress.SUPERSEDED;
+		}
+		return regenPending ? Progress.REGEN_PENDING : Progress.WAITING;
+	}
+
+	/**
+	 * @return Those of the given builds which are tagged, but aren't the
+	 *         latest builds of their packages. Both are checked again, since
+	 *         a build may have been tagged meanwhile.
+	 */
+	private static List<String> findSuperseded(IKojiHubClient client,
+			String tag, List<String> buildNvrs) throws KojiHubClientException {
+		List<String> superseded = new ArrayList<>();
+		if (buildNvrs.isEmpty()) {
+			return superseded;
+		}
+		List<KojiCall> calls = new ArrayList<>();
+		for (String nvr : buildNvrs) {
+			calls.add(listTagged(tag, nvr, true));
+			calls.add(listTagged(tag, nvr, false));
+		}
+		Object[] results = client.multicall(calls);
+		for (int i = 0; i < buildNvrs.size(); i++) {
+			String nvr = buildNvrs.get(i);
+			if (findBuild((Object[]) results[2 * i], nvr) == null
+					&& findBuild((Object[]) results[2 * i + 1], nvr) != null) {
+				superseded.add(nvr);
+			}
+		}
+		return superseded;
+	}
+
+	/**
+	 * @return A call listing the builds of the package of a build in a tag,
+	 *         including inherited ones.
+	 */
+	private static KojiCall listTagged(String tag, String nvr, boolean latest) {
+		// listTagged(tag, event, inherit, prefix, latest, package)
+		return new KojiCall("listTagged", tag, null, true, null, latest, //$NON-NLS-1$
+				getPackageName(nvr));
+	}
+
+	private static Map<?, ?> findBuild(Object[] taggedBuilds, String nvr) {
+		for (Object build : taggedBuilds) {
+			if (nvr.equals(((Map<?, ?>) build).get("nvr"))) { //$NON-NLS-1$
+				return (Map<?, ?>) build;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return The name of the package of a name-version-release token.
+	 */
+	private static String getPackageName(String nvr) {
+		int release = nvr.lastIndexOf('-');
+		int version = nvr.lastIndexOf('-', release - 1);
+		return version > 0 ? nvr.substring(0, version) : nvr;
+	}
+
 	private KojiRepoInfo getRepo(String tag) {
 		try {
 			KojiRepoInfo repo = kojiClient.getRepo(tag);
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.koji.internal.utils;
+
+/**
+ * Part of a byte array passed to Koji as a Base64 encoded string. The
+ * {@link KojiTypeFactory} encodes it while the request is written, so no
+ * encoded copy of the data is created.
+ */
+public class Base64Data {
+
+	private final byte[] buffer;
+	private final int length;
+
+	/**
+	 * @param buffer
+	 *            The array holding the data, not copied.
+	 * @param length
+	 *            The number of bytes at the start of {@code buffer} to pass.
+	 */
+	public Base64Data(byte[] buffer, int length) {
+		this.buffer = buffer;
+		this.length = length;
+	}
+
+	/**
+	 * @return The array holding the data.
+	 */
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * @return The number of bytes to pass.
+	 */
+	public int getLength() {
+		return length;
+	}
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.koji.internal.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.util.EntityUtils;
+import org.apache.xmlrpc.XmlRpcException;
+import org.apache.xmlrpc.XmlRpcRequest;
+import org.apache.xmlrpc.client.XmlRpcClient;
+import org.apache.xmlrpc.client.XmlRpcClientException;
+import org.apache.xmlrpc.client.XmlRpcHttpClientConfig;
+import org.apache.xmlrpc.client.XmlRpcHttpTransport;
+import org.apache.xmlrpc.client.XmlRpcHttpTransportException;
+import org.apache.xmlrpc.client.XmlRpcTransport;
+import org.apache.xmlrpc.client.XmlRpcTransportFactory;
+import org.apache.xmlrpc.common.XmlRpcStreamRequestConfig;
+import org.xml.sax.SAXException;
+
+/**
+ * XMLRPC transport factory sending requests through an Apache HttpClient, so
+ * that Koji calls use the pooled keep-alive connections of the
+ * {@code IHttpClientService} instead of a new connection per call.
+ */
+public class HttpClientXmlRpcTransportFactory implements
+		XmlRpcTransportFactory {
+
+	private final XmlRpcClient xmlRpcClient;
+	private final HttpClient httpClient;
+
+	/**
+	 * @param xmlRpcClient
+	 *            The XMLRPC client using the transports.
+	 * @param httpClient
+	 *            The HTTP client to send requests with.
+	 */
+	public HttpClientXmlRpcTransportFactory(XmlRpcClient xmlRpcClient,
+			HttpClient httpClient) {
+		this.xmlRpcClient = xmlRpcClient;
+		this.httpClient = httpClient;
+	}
+
+	@Override
+	public XmlRpcTransport getTransport() {
+		return new HttpClientXmlRpcTransport(xmlRpcClient, httpClient);
+	}
+
+	/**
+	 * Transport for a single request.
+	 */
+	private static class HttpClientXmlRpcTransport extends XmlRpcHttpTransport {
+
+		private static final String USER_AGENT_SUFFIX = " (Apache HttpClient Transport)"; //$NON-NLS-1$
+		private static final String CONTENT_LENGTH = "Content-Length"; //$NON-NLS-1$
+		private static final String CONTENT_ENCODING = "Content-Encoding"; //$NON-NLS-1$
+		private static final String GZIP = "gzip"; //$NON-NLS-1$
+
+		private final HttpClient httpClient;
+		private HttpPost post;
+		private HttpResponse response;
+
+		HttpClientXmlRpcTransport(XmlRpcClient xmlRpcClient,
+				HttpClient httpClient) {
+			super(xmlRpcClient, USER_AGENT + USER_AGENT_SUFFIX);
+			this.httpClient = httpClient;
+		}
+
+		@Override
+		public Object sendRequest(XmlRpcRequest request) throws XmlRpcException {
+			XmlRpcHttpClientConfig config = (XmlRpcHttpClientConfig) request
+					.getConfig();
+			try {
+				post = new HttpPost(config.getServerURL().toURI());
+			} catch (URISyntaxException e) {
+				throw new XmlRpcClientException(e.getMessage(), e);
+			}
+			post.setConfig(RequestConfig.custom()
+					.setConnectTimeout(config.getConnectionTimeout())
+					.setSocketTimeout(config.getReplyTimeout()).build());
+			return super.sendRequest(request);
+		}
+
+		@Override
+		protected void setRequestHeader(String header, String value) {
+			// HttpClient computes the content length itself
+			if (!CONTENT_LENGTH.equalsIgnoreCase(header)) {
+				post.setHeader(header, value);
+			}
+		}
+
+		@Override
+		protected void writeRequest(ReqWriter writer) throws XmlRpcException,
+				IOException, SAXException {
+			// Buffered, so the entity is repeatable and has a known length
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			writer.write(body);
+			post.setEntity(new ByteArrayEntity(body.toByteArray()));
+			response = httpClient.execute(post);
+			int status = response.getStatusLine().getStatusCode();
+			if (status < 200 || status > 299) {
+				EntityUtils.consume(response.getEntity());
+				throw new XmlRpcHttpTransportException(status, response
+						.getStatusLine().getReasonPhrase());
+			}
+		}
+
+		@Override
+		protected InputStream getInputStream() throws XmlRpcException {
+			try {
+				return response.getEntity().getContent();
+			} catch (IOException e) {
+				throw new XmlRpcClientException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		protected boolean isResponseGzipCompressed(
+				XmlRpcStreamRequestConfig config) {
+			Header encoding = response.getFirstHeader(CONTENT_ENCODING);
+			return encoding != null && GZIP.equalsIgnoreCase(encoding.getValue());
+		}
+
+		@Override
+		protected void close() throws XmlRpcClientException {
+			if (response != null) {
+				// return the connection to the pool
+				HttpEntity entity = response.getEntity();
+				try {
+					EntityUtils.consume(entity);
+				} catch (IOException e) {
+					throw new XmlRpcClientException(e.getMessage(), e);
+				}
+			}
+		}
+	}
+}
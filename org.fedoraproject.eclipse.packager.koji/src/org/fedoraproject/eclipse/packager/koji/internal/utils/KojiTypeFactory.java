@@ -36,6 +36,10 @@ import org.apache.xmlrpc.serializer.I8Serializer;
 import org.apache.xmlrpc.serializer.NodeSerializer;
 import org.apache.xmlrpc.serializer.NullSerializer;
 import org.apache.xmlrpc.serializer.SerializableSerializer;
+import org.apache.xmlrpc.serializer.TypeSerializer;
+import org.apache.xmlrpc.serializer.TypeSerializerImpl;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
 /**
  * 
@@ -44,6 +48,8 @@ import org.apache.xmlrpc.serializer.SerializableSerializer;
  */
 public class KojiTypeFactory extends TypeFactoryImpl {
 
+	private static final TypeSerializer BASE64_DATA_SERIALIZER = new Base64DataSerializer();
+
 	/**
 	 * 
 	 * @param pController
@@ -53,6 +59,55 @@ public class KojiTypeFactory extends TypeFactoryImpl {
 		super(pController);
 	}
 
+	@Override
+	public TypeSerializer getSerializer(XmlRpcStreamConfig pConfig,
+			Object pObject) throws SAXException {
+		if (pObject instanceof Base64Data) {
+			return BASE64_DATA_SERIALIZER;
+		}
+		return super.getSerializer(pConfig, pObject);
+	}
+
+	/**
+	 * Writes {@link Base64Data} as a string value, Base64 encoding it block by
+	 * block.
+	 */
+	private static class Base64DataSerializer extends TypeSerializerImpl {
+		private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/" //$NON-NLS-1$
+				.toCharArray();
+		// multiple of 4, so only the last block may hold padding
+		private static final int BLOCK_SIZE = 4096;
+
+		@Override
+		public void write(ContentHandler pHandler, Object pObject)
+				throws SAXException {
+			Base64Data data = (Base64Data) pObject;
+			byte[] buffer = data.getBuffer();
+			int end = data.getLength();
+			char[] block = new char[BLOCK_SIZE];
+			int pos = 0;
+			pHandler.startElement("", VALUE_TAG, VALUE_TAG, ZERO_ATTRIBUTES); //$NON-NLS-1$
+			for (int i = 0; i < end; i += 3) {
+				int b0 = buffer[i] & 0xff;
+				int b1 = i + 1 < end ? buffer[i + 1] & 0xff : 0;
+				int b2 = i + 2 < end ? buffer[i + 2] & 0xff : 0;
+				block[pos++] = ALPHABET[b0 >> 2];
+				block[pos++] = ALPHABET[((b0 & 0x3) << 4) | (b1 >> 4)];
+				block[pos++] = i + 1 < end ? ALPHABET[((b1 & 0xf) << 2)
+						| (b2 >> 6)] : '=';
+				block[pos++] = i + 2 < end ? ALPHABET[b2 & 0x3f] : '=';
+				if (pos == BLOCK_SIZE) {
+					pHandler.characters(block, 0, pos);
+					pos = 0;
+				}
+			}
+			if (pos > 0) {
+				pHandler.characters(block, 0, pos);
+			}
+			pHandler.endElement("", VALUE_TAG, VALUE_TAG); //$NON-NLS-1$
+		}
+	}
+
 	@Override
 	public TypeParser getParser(XmlRpcStreamConfig pConfig,
 			NamespaceContextImpl pContext, String pURI, String pLocalName) {
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.koji.internal.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
+import org.fedoraproject.eclipse.packager.koji.KojiPlugin;
+import org.fedoraproject.eclipse.packager.koji.KojiText;
+
+/**
+ * Persistent record of SRPM uploads to Koji, keyed by file name and MD5 sum.
+ * It allows resuming an interrupted upload and reusing a completed one,
+ * as long as the hub still has the file. Sessions older than
+ * {@value #RETENTION_HOURS} hours are dropped, since the hub cleans up
+ * uploads after a while anyway.
+ */
+public class UploadSessionStore {
+
+	private static final int FORMAT_VERSION = 1;
+	private static final String STORE_FILENAME = "koji-upload-sessions"; //$NON-NLS-1$
+	private static final int RETENTION_HOURS = 24;
+	private static final FedoraPackagerLogger logger = FedoraPackagerLogger.getInstance();
+
+	private static UploadSessionStore instance;
+
+	/**
+	 * An upload of one SRPM.
+	 */
+	public static class Session {
+		private final String remotePath;
+		private long confirmedOffset;
+		private boolean complete;
+		private long lastUpdate;
+
+		/**
+		 * @param remotePath
+		 *            The path the file is uploaded to.
+		 */
+		public Session(String remotePath) {
+			this(remotePath, 0, false, System.currentTimeMillis());
+		}
+
+		Session(String remotePath, long confirmedOffset, boolean complete,
+				long lastUpdate) {
+			this.remotePath = remotePath;
+			this.confirmedOffset = confirmedOffset;
+			this.complete = complete;
+			this.lastUpdate = lastUpdate;
+		}
+
+		/**
+		 * @return The path the file is uploaded to.
+		 */
+		public String getRemotePath() {
+			return remotePath;
+		}
+
+		/**
+		 * @return The number of bytes at the start of the file known to be
+		 *         uploaded.
+		 */
+		public long getConfirmedOffset() {
+			return confirmedOffset;
+		}
+
+		/**
+		 * @return {@code true} if the whole file was uploaded and verified.
+		 */
+		public boolean isComplete() {
+			return complete;
+		}
+	}
+
+	private final Map<String, Session> sessions = new LinkedHashMap<>();
+	private File storeFile;
+
+	/**
+	 * @return The shared store, loaded from the state location of the Koji
+	 *         plug-in.
+	 */
+	public static synchronized UploadSessionStore getInstance() {
+		if (instance == null) {
+			instance = new UploadSessionStore();
+			instance.load(KojiPlugin.getStateLocation().append(STORE_FILENAME)
+					.toFile());
+		}
+		return instance;
+	}
+
+	/**
+	 * @param name
+	 *            The name of the file.
+	 * @param md5sum
+	 *            The MD5 sum of the file.
+	 * @return The session uploading the file or {@code null} if there is
+	 *         none.
+	 */
+	public synchronized Session get(String name, String md5sum) {
+		expire();
+		return sessions.get(key(name, md5sum));
+	}
+
+	/**
+	 * Start recording a new upload, replacing an earlier one of the same
+	 * file.
+	 *
+	 * @param name
+	 *            The name of the file.
+	 * @param md5sum
+	 *            The MD5 sum of the file.
+	 * @param session
+	 *            The new session.
+	 */
+	public synchronized void put(String name, String md5sum, Session session) {
+		sessions.put(key(name, md5sum), session);
+		save();
+	}
+
+	/**
+	 * Record that more of a file is uploaded.
+	 *
+	 * @param session
+	 *            The session.
+	 * @param confirmedOffset
+	 *            The number of bytes at the start of the file which are
+	 *            uploaded now.
+	 */
+	public synchronized void confirm(Session session, long confirmedOffset) {
+		session.confirmedOffset = confirmedOffset;
+		session.lastUpdate = System.currentTimeMillis();
+		save();
+	}
+
+	/**
+	 * Record that a file was uploaded and verified.
+	 *
+	 * @param session
+	 *            The session.
+	 */
+	public synchronized void complete(Session session) {
+		session.complete = true;
+		session.lastUpdate = System.currentTimeMillis();
+		save();
+	}
+
+	/**
+	 * Forget an upload, e.g. because the hub doesn't have the file any more.
+	 *
+	 * @param name
+	 *            The name of the file.
+	 * @param md5sum
+	 *            The MD5 sum of the file.
+	 */
+	public synchronized void remove(String name, String md5sum) {
+		if (sessions.remove(key(name, md5sum)) != null) {
+			save();
+		}
+	}
+
+	private static String key(String name, String md5sum) {
+		return name + '/' + md5sum;
+	}
+
+	private void expire() {
+		long oldest = System.currentTimeMillis()
+				- TimeUnit.HOURS.toMillis(RETENTION_HOURS);
+		Iterator<Session> it = sessions.values().iterator();
+		while (it.hasNext()) {
+			if (it.next().lastUpdate < oldest) {
+				it.remove();
+			}
+		}
+	}
+
+	private void load(File file) {
+		this.storeFile = file;
+		if (!file.isFile()) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)))) {
+			if (in.readInt() != FORMAT_VERSION) {
+				return;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				sessions.put(key, new Session(in.readUTF(), in.readLong(),
+						in.readBoolean(), in.readLong()));
+			}
+		} catch (IOException e) {
+			sessions.clear();
+			logger.logError(KojiText.UploadSessionStore_loadFailed, e);
+		}
+		expire();
+	}
+
+	/**
+	 * Write all sessions, replacing the file atomically. The store is small,
+	 * so it is simply rewritten on every change.
+	 */
+	private void save() {
+		if (storeFile == null) {
+			return;
+		}
+		File tempFile = new File(storeFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(sessions.size());
+				for (Map.Entry<String, Session> e : sessions.entrySet()) {
+					Session session = e.getValue();
+					out.writeUTF(e.getKey());
+					out.writeUTF(session.remotePath);
+					out.writeLong(session.confirmedOffset);
+					out.writeBoolean(session.complete);
+					out.writeLong(session.lastUpdate);
+				}
+			}
+			Files.move(tempFile.toPath(), storeFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			tempFile.delete();
+			logger.logError(KojiText.UploadSessionStore_saveFailed, e);
+		}
+	}
+}
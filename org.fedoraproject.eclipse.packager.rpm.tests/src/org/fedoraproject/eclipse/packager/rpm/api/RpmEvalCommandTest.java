@@ -10,8 +10,14 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.rpm.api;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.fedoraproject.eclipse.packager.api.errors.CommandMisconfiguredException;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerAPIException;
@@ -45,4 +51,21 @@ public class RpmEvalCommandTest extends FedoraPackagerTest {
 		assertTrue(result.isSuccessful());
 	}
 
+	/**
+	 * Several expressions can be evaluated at once, and share results with
+	 * single evaluations.
+	 */
+	@Test
+	public void canEvalSeveralExpressions() throws IOException {
+		Map<String, String> result = RpmEvalService.getInstance().eval(
+				Arrays.asList(RpmEvalCommand.ARCH, "%{_bindir}", "%{?undefined_macro}"), //$NON-NLS-1$ //$NON-NLS-2$
+				Collections.<String> emptyList());
+		assertEquals(3, result.size());
+		assertEquals("/usr/bin", result.get("%{_bindir}")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("", result.get("%{?undefined_macro}")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(RpmEvalService.getInstance().eval(RpmEvalCommand.ARCH),
+				result.get(RpmEvalCommand.ARCH));
+		assertTrue(!result.get(RpmEvalCommand.ARCH).isEmpty());
+	}
+
 }
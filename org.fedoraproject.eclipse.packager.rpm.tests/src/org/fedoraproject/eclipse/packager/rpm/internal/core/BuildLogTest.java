@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.rpm.internal.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for build logs and their index.
+ */
+public class BuildLogTest {
+
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("buildlogs").toFile(); //$NON-NLS-1$
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Lines far into the log and the first error can be read via the index.
+	 */
+	@Test
+	public void canReadLinesViaIndex() throws Exception {
+		BuildLog log = BuildLog.open(directory, "mock"); //$NON-NLS-1$
+		for (int i = 0; i < 5000; i++) {
+			log.append(i == 3456 ? "error: Bad exit status" : "line " + i); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		log.close();
+
+		BuildLogReader reader = new BuildLogReader(log.getLogFile());
+		assertEquals(3456, reader.getFirstErrorLine());
+		assertEquals(Arrays.asList("line 3455", "error: Bad exit status", //$NON-NLS-1$ //$NON-NLS-2$
+				"line 3457"), reader.readLines(3455, 3)); //$NON-NLS-1$
+		assertEquals(Arrays.asList("line 4999"), reader.readLines(4999, 10)); //$NON-NLS-1$
+		assertTrue(reader.readLines(5000, 1).isEmpty());
+	}
+
+	/**
+	 * Only the most recent logs of a build kind are kept.
+	 */
+	@Test
+	public void oldLogsAreRemoved() throws Exception {
+		for (int i = 0; i < 12; i++) {
+			BuildLog.open(directory, "mock").close(); //$NON-NLS-1$
+			// distinct timestamps
+			Thread.sleep(2);
+		}
+		// a log and an index each
+		assertEquals(20, directory.list().length);
+	}
+}
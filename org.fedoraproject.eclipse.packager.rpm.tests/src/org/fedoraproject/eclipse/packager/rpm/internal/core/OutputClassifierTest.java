@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.rpm.internal.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.fedoraproject.eclipse.packager.rpm.internal.core.OutputClassifier.Kind;
+import org.junit.Test;
+
+/**
+ * Tests for the classification of build output.
+ */
+public class OutputClassifierTest {
+
+	private final OutputClassifier classifier = OutputClassifier.getDefault();
+
+	/**
+	 * Typical rpmbuild and mock lines are classified.
+	 */
+	@Test
+	public void canClassifyBuildOutput() {
+		assertEquals(Kind.ERROR, classifier.classify(
+				"error: Bad exit status from /var/tmp/rpm-tmp.1 (%build)")); //$NON-NLS-1$
+		assertEquals(Kind.ERROR, classifier.classify(
+				"ERROR: Command failed. See logs for output.")); //$NON-NLS-1$
+		assertEquals(Kind.WARNING, classifier.classify(
+				"warning: bogus date in %changelog")); //$NON-NLS-1$
+		assertEquals(Kind.WROTE_ARTIFACT, classifier.classify(
+				"Wrote: /home/user/foo/foo-1.0-1.fc20.src.rpm")); //$NON-NLS-1$
+		assertEquals(Kind.PHASE, classifier.classify(
+				"Executing(%build): /bin/sh -e /var/tmp/rpm-tmp.2")); //$NON-NLS-1$
+		assertEquals(Kind.PHASE, classifier.classify(
+				"Start: build phase for foo-1.0-1.fc20.src.rpm")); //$NON-NLS-1$
+	}
+
+	/**
+	 * "error" in the middle of a line, e.g. in a file name, is no error.
+	 */
+	@Test
+	public void errorMustStartLine() {
+		assertEquals(Kind.OTHER, classifier.classify(
+				"+ gcc -Werror=format-security -c error.c -o error.o")); //$NON-NLS-1$
+		assertEquals(Kind.OTHER, classifier.classify(
+				"test_error: ok")); //$NON-NLS-1$
+		assertEquals(Kind.OTHER, classifier.classify("")); //$NON-NLS-1$
+	}
+}
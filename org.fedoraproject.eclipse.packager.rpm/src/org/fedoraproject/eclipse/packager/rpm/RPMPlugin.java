@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.rpm;
 
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+
 /**
  * The activator class controls the plug-in life cycle
  */
@@ -17,4 +20,11 @@ public class RPMPlugin {
 
 	/** The plug-in ID */
 	public static final String PLUGIN_ID = "org.fedoraproject.eclipse.packager.rpm"; //$NON-NLS-1$
+
+	/**
+	 * @return The location in the workspace for data of this plug-in.
+	 */
+	public static IPath getStateLocation() {
+		return Platform.getStateLocation(Platform.getBundle(PLUGIN_ID));
+	}
 }
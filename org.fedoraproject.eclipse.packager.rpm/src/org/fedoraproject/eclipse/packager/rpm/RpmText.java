@@ -73,6 +73,15 @@ public class RpmText extends NLS {
 	/****/ public static String RpmBuildCommand_NoBranchConfig;
 	// RpmEvalCommand
 	/****/ public static String RpmEvalCommand_variableMustBeSet;
+	// ConsoleSink
+	/****/ public static String ConsoleSink_linesDropped;
+	// BuildLog
+	/****/ public static String BuildLog_openFailed;
+	/****/ public static String BuildLog_writeFailed;
+	/****/ public static String BuildLog_readFailed;
+	/****/ public static String BuildLog_firstError;
+	// RpmEvalService
+	/****/ public static String RpmEvalService_unexpectedOutput;
 	// MockBuildCommand
 	/****/ public static String MockBuildCommand_srpmNullError;
 	/****/ public static String MockBuildCommand_invalidMockConfigError;
@@ -35,7 +35,8 @@ public class EvalResult extends Result {
 	 */
 	public String getEvalResult() {
 		assert evalResult != null;
-		return evalResult.substring(0, evalResult.indexOf('\n'));
+		int newline = evalResult.indexOf('\n');
+		return newline == -1 ? evalResult : evalResult.substring(0, newline);
 	}
 	
 	@Override
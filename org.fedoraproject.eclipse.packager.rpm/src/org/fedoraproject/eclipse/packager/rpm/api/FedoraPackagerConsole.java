@@ -10,19 +10,34 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.rpm.api;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.eclipse.ui.console.ConsolePlugin;
 import org.eclipse.ui.console.IConsole;
+import org.eclipse.ui.console.IConsoleManager;
 import org.eclipse.ui.console.MessageConsole;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.fedoraproject.eclipse.packager.rpm.RPMPlugin;
 
 /**
- * MessageConsole related code for Eclipse Fedora Packager
+ * MessageConsole related code for Eclipse Fedora Packager. There is one
+ * console per package; consoles which haven't been written to for
+ * {@value #IDLE_TIMEOUT} ms are removed when another one is requested.
  *
  */
 public class FedoraPackagerConsole {
 	private static final String PROJECT_HOLDER = "%projectName"; //$NON-NLS-1$
 	private static final String CONSOLE_NAME = "Packager Console (%projectName)"; //$NON-NLS-1$
+	private static final String CONSOLE_NAME_PREFIX = CONSOLE_NAME.substring(0,
+			CONSOLE_NAME.indexOf(PROJECT_HOLDER));
+	/**
+	 * Time in milliseconds after which an unused console is removed.
+	 */
+	private static final long IDLE_TIMEOUT = 15 * 60 * 1000;
+	private static final Map<IConsole, Long> lastActivity = new WeakHashMap<>();
 	
 	/**
 	 * @param packageName The name of the package(RPM) this console will be for.
@@ -31,10 +46,21 @@ public class FedoraPackagerConsole {
 	public static MessageConsole getConsole(String packageName) {
 		String projectConsoleName = CONSOLE_NAME.replace(PROJECT_HOLDER, packageName);
 		MessageConsole ret = null;
-		for (IConsole cons : ConsolePlugin.getDefault().getConsoleManager()
-				.getConsoles()) {
+		IConsoleManager manager = ConsolePlugin.getDefault().getConsoleManager();
+		List<IConsole> idle = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		for (IConsole cons : manager.getConsoles()) {
 			if (cons.getName().equals(projectConsoleName)) {
 				ret = (MessageConsole) cons;
+			} else if (cons.getName().startsWith(CONSOLE_NAME_PREFIX)
+					&& now - getLastActivity(cons, now) > IDLE_TIMEOUT) {
+				idle.add(cons);
+			}
+		}
+		if (!idle.isEmpty()) {
+			manager.removeConsoles(idle.toArray(new IConsole[idle.size()]));
+			synchronized (lastActivity) {
+				lastActivity.keySet().removeAll(idle);
 			}
 		}
 		// no existing console, create new one
@@ -43,6 +69,33 @@ public class FedoraPackagerConsole {
 					AbstractUIPlugin.imageDescriptorFromPlugin(RPMPlugin.PLUGIN_ID, "icons/rpm.gif")); //$NON-NLS-1$
 		}
 		ret.clearConsole();
+		markActive(ret);
 		return ret;
 	}
+
+	/**
+	 * Record that a console was just used, keeping it from being removed as
+	 * idle.
+	 *
+	 * @param console
+	 *            The console.
+	 * @since 0.5
+	 */
+	public static void markActive(IConsole console) {
+		synchronized (lastActivity) {
+			lastActivity.put(console, Long.valueOf(System.currentTimeMillis()));
+		}
+	}
+
+	private static long getLastActivity(IConsole console, long now) {
+		synchronized (lastActivity) {
+			Long last = lastActivity.get(console);
+			if (last == null) {
+				// created before we kept track, count from now on
+				lastActivity.put(console, Long.valueOf(now));
+				return now;
+			}
+			return last.longValue();
+		}
+	}
 }
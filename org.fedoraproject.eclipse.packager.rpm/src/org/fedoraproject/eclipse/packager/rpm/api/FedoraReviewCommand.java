@@ -1,7 +1,6 @@
 package org.fedoraproject.eclipse.packager.rpm.api;
 
 import java.io.IOException;
-import java.util.Observer;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
@@ -17,6 +16,7 @@ import org.fedoraproject.eclipse.packager.rpm.api.errors.FedoraReviewNotInstalle
 import org.fedoraproject.eclipse.packager.rpm.api.errors.MockBuildCommandException;
 import org.fedoraproject.eclipse.packager.rpm.api.errors.UserNotInMockGroupException;
 import org.fedoraproject.eclipse.packager.rpm.internal.core.MockBuildStatusObserver;
+import org.fedoraproject.eclipse.packager.rpm.internal.core.OutputListener;
 import org.fedoraproject.eclipse.packager.rpm.utils.MockUtils;
 import org.fedoraproject.eclipse.packager.utils.FedoraHandlerUtils;
 
@@ -60,7 +60,7 @@ public class FedoraReviewCommand extends
 		MockUtils.checkMockGroupMembership();
 		try {
 			MockUtils.runCommand(reviewCommand, projectRoot.getPackageName(),
-					new Observer[] { new MockBuildStatusObserver(monitor) },
+					new OutputListener[] { new MockBuildStatusObserver(monitor) },
 					projectRoot.getProject().getLocation().toFile());
 			result.setReview(review);
 		} catch (IOException e1) {
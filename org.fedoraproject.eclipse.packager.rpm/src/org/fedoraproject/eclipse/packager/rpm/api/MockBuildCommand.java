@@ -13,23 +13,21 @@ package org.fedoraproject.eclipse.packager.rpm.api;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Observer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.linuxtools.rpm.core.utils.Utils;
 import org.eclipse.osgi.util.NLS;
-import org.eclipse.swt.widgets.Shell;
 import org.fedoraproject.eclipse.packager.BranchConfigInstance;
 import org.fedoraproject.eclipse.packager.IProjectRoot;
-import org.fedoraproject.eclipse.packager.api.FedoraPackager;
 import org.fedoraproject.eclipse.packager.api.FedoraPackagerCommand;
 import org.fedoraproject.eclipse.packager.api.errors.CommandListenerException;
 import org.fedoraproject.eclipse.packager.api.errors.CommandMisconfiguredException;
-import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerAPIException;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerCommandInitializationException;
 import org.fedoraproject.eclipse.packager.rpm.RpmText;
 import org.fedoraproject.eclipse.packager.rpm.api.errors.MockBuildCommandException;
@@ -37,8 +35,9 @@ import org.fedoraproject.eclipse.packager.rpm.api.errors.MockNotInstalledExcepti
 import org.fedoraproject.eclipse.packager.rpm.api.errors.UserNotInMockGroupException;
 import org.fedoraproject.eclipse.packager.rpm.internal.core.MockBuildCommandSuccessObserver;
 import org.fedoraproject.eclipse.packager.rpm.internal.core.MockBuildStatusObserver;
+import org.fedoraproject.eclipse.packager.rpm.internal.core.OutputListener;
+import org.fedoraproject.eclipse.packager.rpm.internal.core.ProcessSupervisor;
 import org.fedoraproject.eclipse.packager.rpm.utils.MockUtils;
-import org.fedoraproject.eclipse.packager.utils.FedoraHandlerUtils;
 import org.fedoraproject.eclipse.packager.utils.RPMUtils;
 
 /**
@@ -53,6 +52,7 @@ public class MockBuildCommand extends FedoraPackagerCommand<MockBuildResult> {
 	public static final String ID = "MockBuildCommand"; //$NON-NLS-1$
 
 	protected static final String MOCK_BINARY = "/usr/bin/mock"; //$NON-NLS-1$
+	private static final String MOCK_BUILD_LOG = "mock"; //$NON-NLS-1$
 	protected static final String MOCK_CHROOT_CONFIG_OPTION = "-r"; //$NON-NLS-1$
 	protected static final String MOCK_REBUILD_OPTION = "--rebuild"; //$NON-NLS-1$
 	protected static final String MOCK_RESULT_DIR_OPTION = "--resultdir"; //$NON-NLS-1$
@@ -122,7 +122,7 @@ public class MockBuildCommand extends FedoraPackagerCommand<MockBuildResult> {
 	}
 
 	/**
-	 * Implementation of the mock build command.
+	 * Implementation of the mock build command. Waits for the build to finish.
 	 * 
 	 * @throws UserNotInMockGroupException
 	 *             If the current user was not member of the system group
@@ -139,6 +139,44 @@ public class MockBuildCommand extends FedoraPackagerCommand<MockBuildResult> {
 			throws UserNotInMockGroupException,
 			CommandListenerException, MockBuildCommandException,
 			MockNotInstalledException {
+		try {
+			return ProcessSupervisor.waitFor(callAsync(monitor), monitor);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof CommandListenerException) {
+				throw (CommandListenerException) e.getCause();
+			}
+			throw new MockBuildCommandException(e.getCause().getMessage(),
+					e.getCause());
+		}
+	}
+
+	/**
+	 * Start the mock build without waiting for it. Post-execution listeners
+	 * are called once the build is done, before the returned future
+	 * completes, unless the build was cancelled. Cancelling the future stops
+	 * the build.
+	 *
+	 * @param monitor
+	 *            The monitor checked before the build is started and updated
+	 *            with the build status.
+	 * @return The future result of the build, failing with a
+	 *         {@link CommandListenerException} if a post-execution listener
+	 *         failed.
+	 * @throws UserNotInMockGroupException
+	 *             If the current user was not member of the system group
+	 *             "mock".
+	 * @throws CommandListenerException
+	 *             If a pre-execution listener threw an exception.
+	 * @throws MockBuildCommandException
+	 *             If the build could not be started.
+	 * @throws MockNotInstalledException
+	 *             If mock is not installed (i.e. /usr/sbin/mock not found).
+	 * @since 0.5
+	 */
+	public CompletableFuture<MockBuildResult> callAsync(
+			final IProgressMonitor monitor) throws UserNotInMockGroupException,
+			CommandListenerException, MockBuildCommandException,
+			MockNotInstalledException {
 		callPreExecListeners();
 		checkConfiguration();
 		if (monitor.isCanceled()) {
@@ -167,17 +205,36 @@ public class MockBuildCommand extends FedoraPackagerCommand<MockBuildResult> {
 		if (monitor.isCanceled()) {
 			throw new OperationCanceledException();
 		}
-		MockBuildThread mbt = new MockBuildThread(cmdList, resultDir, projectRoot.getPackageName(), monitor);
-		mbt.start();
-		while (mbt.getState() != Thread.State.TERMINATED) {
-			if (monitor.isCanceled()) {
-				mbt.interrupt();
-				throw new OperationCanceledException();
-			}
+		final Process child;
+		try {
+			child = MockUtils.startCommand(cmdList, null);
+		} catch (IOException | CoreException e) {
+			throw new MockBuildCommandException(
+					RpmText.RpmBuildCommand_BuildDidNotStart, e);
 		}
-		callPostExecListeners();
 		setCallable(false); // reuse of instance's call() not allowed
-		return mbt.getResult();
+		final MockBuildResult result = new MockBuildResult(cmdList, resultDir);
+		final String packageName = projectRoot.getPackageName();
+		return ProcessSupervisor.supervise(child, MOCK_BINARY,
+				new Callable<MockBuildResult>() {
+					@Override
+					public MockBuildResult call() throws Exception {
+						MockUtils.writeToConsole(child, packageName,
+								MOCK_BUILD_LOG, new OutputListener[] {
+										new MockBuildStatusObserver(monitor),
+										new MockBuildCommandSuccessObserver(
+												result) });
+						result.setExitStatus(child.waitFor());
+						result.setSuccessful(result.getExitStatus() == 0);
+						return result;
+					}
+				}, new ProcessSupervisor.CompletionListener() {
+					@Override
+					public void completed() throws CommandListenerException {
+						// a cancelled build has no outcome to report
+						callPostExecListeners();
+					}
+				});
 	}
 
 	/**
@@ -239,19 +296,14 @@ public class MockBuildCommand extends FedoraPackagerCommand<MockBuildResult> {
 	public void initialize(IProjectRoot fp)
 			throws FedoraPackagerCommandInitializationException {
 		super.initialize(fp);
-		// set the local architecture
-		EvalResult archResult;
+		// set the local architecture, evaluated once per session
 		try {
-			FedoraPackager packager = new FedoraPackager(this.projectRoot);
-			RpmEvalCommand eval = (RpmEvalCommand) packager
-					.getCommandInstance(RpmEvalCommand.ID);
-			archResult = eval.variable(RpmEvalCommand.ARCH).call(
-					new NullProgressMonitor());
-		} catch (FedoraPackagerAPIException e) {
+			this.localArchitecture = RpmEvalService.getInstance().eval(
+					RpmEvalCommand.ARCH);
+		} catch (IOException e) {
 			throw new FedoraPackagerCommandInitializationException(
 					e.getMessage(), e);
 		}
-		this.localArchitecture = archResult.getEvalResult();
 	}
 
 	/**
@@ -300,50 +352,4 @@ public class MockBuildCommand extends FedoraPackagerCommand<MockBuildResult> {
 				this.mockConfig, MOCK_NO_CLEANUP_AFTER_OPTION, resDirOpt,
 				MOCK_REBUILD_OPTION, srpmAbsPath };
 	}
-
-	private class MockBuildThread extends Thread {
-
-		private String[] cmdList;
-		private MockBuildResult result;
-		private String resultDir;
-		private IProgressMonitor monitor;
-		private String packageName;
-
-		public MockBuildThread(String[] cmdList, String resultDir,
-				String packageName, IProgressMonitor monitor) {
-			super();
-			this.cmdList = cmdList;
-			this.resultDir = resultDir;
-			this.packageName = packageName;
-			this.monitor = monitor;
-		}
-
-		@Override
-		public void run() {
-			result = new MockBuildResult(cmdList, resultDir);
-			try {
-				if (MockUtils.runCommand(cmdList, packageName, new Observer[] {
-						new MockBuildStatusObserver(monitor),
-						new MockBuildCommandSuccessObserver(result) }, null) == 0) {
-					result.setSuccessful(true);
-				} else {
-					result.setSuccessful(false);
-				}
-			} catch (InterruptedException e) {
-				result.setSuccessful(false);
-			} catch (IOException e) {
-				FedoraHandlerUtils.showErrorDialog(new Shell(),
-						RpmText.RpmBuildCommand_BuildFailure,
-						RpmText.RpmBuildCommand_BuildDidNotStart);
-			} catch (CoreException e) {
-				result.setSuccessful(false);
-			}
-			
-		}
-
-		public MockBuildResult getResult() {
-			return result;
-		}
-
-	}
 }
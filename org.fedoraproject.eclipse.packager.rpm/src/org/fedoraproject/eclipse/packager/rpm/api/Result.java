@@ -19,6 +19,7 @@ import org.fedoraproject.eclipse.packager.api.ICommandResult;
 public abstract class Result implements ICommandResult {
 
 	private String[] cmdList;
+	private int exitStatus = -1;
 
 	/**
 	 * 
@@ -42,6 +43,22 @@ public abstract class Result implements ICommandResult {
 		return cmd;
 	}
 
+	/**
+	 * @param exitStatus
+	 *            The exit status of the command.
+	 */
+	public void setExitStatus(int exitStatus) {
+		this.exitStatus = exitStatus;
+	}
+
+	/**
+	 * @return The exit status of the command, or -1 if it didn't run to
+	 *         completion.
+	 */
+	public int getExitStatus() {
+		return exitStatus;
+	}
+
 	@Override
 	public abstract boolean isSuccessful();
 
@@ -10,18 +10,18 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.rpm.api;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.linuxtools.tools.launch.core.factory.RuntimeProcessFactory;
 import org.eclipse.osgi.util.NLS;
-import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.console.ConsolePlugin;
 import org.eclipse.ui.console.IConsole;
 import org.eclipse.ui.console.IConsoleManager;
@@ -36,8 +36,8 @@ import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerCommandInitia
 import org.fedoraproject.eclipse.packager.rpm.RpmText;
 import org.fedoraproject.eclipse.packager.rpm.api.errors.RpmBuildCommandException;
 import org.fedoraproject.eclipse.packager.rpm.internal.core.ConsoleWriter;
+import org.fedoraproject.eclipse.packager.rpm.internal.core.ProcessSupervisor;
 import org.fedoraproject.eclipse.packager.rpm.internal.core.RpmConsoleFilterObserver;
-import org.fedoraproject.eclipse.packager.utils.FedoraHandlerUtils;
 import org.fedoraproject.eclipse.packager.utils.RPMUtils;
 
 /**
@@ -56,6 +56,7 @@ public class RpmBuildCommand extends FedoraPackagerCommand<RpmBuildResult> {
 	public static final String NO_DEPS = "--nodeps"; //$NON-NLS-1$
 
 	private static final String RPMBUILD_CMD = "rpmbuild"; //$NON-NLS-1$
+	private static final String BUILD_LOG_PREFIX = "rpmbuild-"; //$NON-NLS-1$
 	private static final String SOURCEBUILD_OPTION = "-bs"; //$NON-NLS-1$
 	private static final String BINARYBUILD_OPTION = "-ba"; //$NON-NLS-1$
 	private static final String COMPILE_OPTION = "-bc"; //$NON-NLS-1$
@@ -163,7 +164,8 @@ public class RpmBuildCommand extends FedoraPackagerCommand<RpmBuildResult> {
 	}
 
 	/**
-	 * Implementation of rpm build command. Triggers a build as configured.
+	 * Implementation of rpm build command. Triggers a build as configured and
+	 * waits for it to finish.
 	 *
 	 * @throws CommandListenerException
 	 *             If a command listener failed.
@@ -173,6 +175,36 @@ public class RpmBuildCommand extends FedoraPackagerCommand<RpmBuildResult> {
 	@Override
 	public RpmBuildResult call(IProgressMonitor monitor)
 			throws CommandListenerException, RpmBuildCommandException {
+		try {
+			return ProcessSupervisor.waitFor(callAsync(monitor), monitor);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof CommandListenerException) {
+				throw (CommandListenerException) e.getCause();
+			}
+			throw new RpmBuildCommandException(e.getCause().getMessage(),
+					e.getCause());
+		}
+	}
+
+	/**
+	 * Trigger a build as configured without waiting for it. Post-execution
+	 * listeners are called once the build is done, before the returned future
+	 * completes, unless the build was cancelled. Cancelling the future stops
+	 * the build.
+	 *
+	 * @param monitor
+	 *            The monitor checked before the build is started.
+	 * @return The future result of the build, failing with a
+	 *         {@link CommandListenerException} if a post-execution listener
+	 *         failed.
+	 * @throws CommandListenerException
+	 *             If a pre-execution listener failed.
+	 * @throws RpmBuildCommandException
+	 *             If the build could not be started.
+	 * @since 0.5
+	 */
+	public CompletableFuture<RpmBuildResult> callAsync(IProgressMonitor monitor)
+			throws CommandListenerException, RpmBuildCommandException {
 		callPreExecListeners();
 		// built type is the only required config
 		if (buildTypeFlags == null) {
@@ -193,18 +225,31 @@ public class RpmBuildCommand extends FedoraPackagerCommand<RpmBuildResult> {
 		if (monitor.isCanceled()) {
 			throw new OperationCanceledException();
 		}
-		RpmBuildThread rbt = new RpmBuildThread(buildType, cmdList,
-				projectRoot.getPackageName());
-		rbt.start();
-		while (rbt.getState() != Thread.State.TERMINATED) {
-			if (monitor.isCanceled()) {
-				rbt.interrupt();
-				throw new OperationCanceledException();
-			}
+		final Process child;
+		try {
+			child = RuntimeProcessFactory.getFactory().exec(cmdList, null);
+		} catch (IOException e) {
+			throw new RpmBuildCommandException(
+					RpmText.RpmBuildCommand_BuildDidNotStart, e);
 		}
-		callPostExecListeners();
 		setCallable(false); // reuse of instance's call() not allowed
-		return rbt.getResult();
+		final RpmBuildResult result = new RpmBuildResult(cmdList);
+		return ProcessSupervisor.supervise(child, RPMBUILD_CMD,
+				new Callable<RpmBuildResult>() {
+					@Override
+					public RpmBuildResult call() throws Exception {
+						writeToConsole(child, result);
+						result.setExitStatus(child.waitFor());
+						result.setSuccessful(result.getExitStatus() == 0);
+						return result;
+					}
+				}, new ProcessSupervisor.CompletionListener() {
+					@Override
+					public void completed() throws CommandListenerException {
+						// a cancelled build has no outcome to report
+						callPostExecListeners();
+					}
+				});
 	}
 
 	/**
@@ -258,70 +303,30 @@ public class RpmBuildCommand extends FedoraPackagerCommand<RpmBuildResult> {
 		return fullRpmBuildCommand.toArray(new String[0]);
 	}
 
-	private class RpmBuildThread extends Thread {
-		private BuildType buildType;
-		private String[] cmdList;
-		private RpmBuildResult result;
-		private String packageName;
-
-		public RpmBuildThread(BuildType buildType, String[] cmdList,
-				String packageName) {
-			super();
-			this.buildType = buildType;
-			this.cmdList = cmdList;
-			this.packageName = packageName;
-		}
-
-		@Override
-		public void run() {
-			InputStream is = null;
-			result = new RpmBuildResult(cmdList);
-			Process child = null;
-			try {
-				child = RuntimeProcessFactory.getFactory().exec(cmdList, null);
-
-				is = new BufferedInputStream(new SequenceInputStream(
-						child.getInputStream(), child.getErrorStream()));
-
-			} catch (IOException e) {
-				FedoraHandlerUtils.showErrorDialog(new Shell(),
-						RpmText.RpmBuildCommand_BuildFailure,
-						RpmText.RpmBuildCommand_BuildDidNotStart);
-			}
-			// Do the console writing
-			final MessageConsole console = FedoraPackagerConsole
-					.getConsole(packageName);
-			IConsoleManager manager = ConsolePlugin.getDefault()
-					.getConsoleManager();
-			manager.addConsoles(new IConsole[] { console });
-			console.activate();
-
-			final MessageConsoleStream outStream = console.newMessageStream();
+	/**
+	 * Copy the output of the build to the console of the package.
+	 */
+	private void writeToConsole(Process child, RpmBuildResult result) {
+		final MessageConsole console = FedoraPackagerConsole
+				.getConsole(projectRoot.getPackageName());
+		IConsoleManager manager = ConsolePlugin.getDefault()
+				.getConsoleManager();
+		manager.addConsoles(new IConsole[] { console });
+		console.activate();
 
-			// First create observable console writer
-			ConsoleWriter worker = new ConsoleWriter(is, outStream);
-			// add observer for SRPM builds (see comment in
-			// RpmConsoleFilterObserver if you are tempted to use this for RPM
-			// builds too.
-			if (this.buildType == BuildType.SOURCE) {
-				worker.addObserver(new RpmConsoleFilterObserver(result));
-			}
-			// create the thread for process input processing
-			Thread consoleWriterThread = new Thread(worker);
-			consoleWriterThread.start();
-			try {
-				consoleWriterThread.join();
-				result.setSuccessful(child.waitFor() == 0);
-			} catch (InterruptedException e) {
-				child.destroy();
-				result.setSuccessful(false);
-			}
-		}
+		final MessageConsoleStream outStream = console.newMessageStream();
 
-		public RpmBuildResult getResult() {
-			return result;
+		// First create observable console writer
+		ConsoleWriter worker = new ConsoleWriter(child, outStream);
+		worker.logTo(projectRoot.getPackageName(), BUILD_LOG_PREFIX
+				+ buildType.name().toLowerCase(Locale.ENGLISH));
+		// add observer for SRPM builds (see comment in
+		// RpmConsoleFilterObserver if you are tempted to use this for RPM
+		// builds too.
+		if (this.buildType == BuildType.SOURCE) {
+			worker.addListener(new RpmConsoleFilterObserver(result));
 		}
-
+		worker.run();
 	}
 
 }
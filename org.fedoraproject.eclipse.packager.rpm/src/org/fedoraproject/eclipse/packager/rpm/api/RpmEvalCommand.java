@@ -12,7 +12,9 @@ package org.fedoraproject.eclipse.packager.rpm.api;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -26,7 +28,10 @@ import org.fedoraproject.eclipse.packager.rpm.RpmText;
 import org.fedoraproject.eclipse.packager.rpm.api.errors.RpmEvalCommandException;
 
 /**
- * Call out to rpm in order to evaluate some value.
+ * Call out to rpm in order to evaluate some value. Values which can't change
+ * while Eclipse runs, such as {@link #ARCH}, are shared with the
+ * {@link RpmEvalService} and only evaluated once per session. Anything else
+ * is evaluated on each call.
  */
 public class RpmEvalCommand extends FedoraPackagerCommand<EvalResult> {
 
@@ -41,6 +46,9 @@ public class RpmEvalCommand extends FedoraPackagerCommand<EvalResult> {
 
 	private static final String RPM_CMD = "rpm"; //$NON-NLS-1$
 	private static final String EVAL_OPTION = "--eval"; //$NON-NLS-1$
+	// expressions which are safe to cache for the session
+	private static final Set<String> CONSTANT_EXPRESSIONS = Collections
+			.singleton(ARCH);
 	private List<String> command;
 
 	private String variable;
@@ -80,8 +88,13 @@ public class RpmEvalCommand extends FedoraPackagerCommand<EvalResult> {
 		String[] cmdArray = getCmdArray();
 		EvalResult result;
 		try {
-			result = new EvalResult(cmdArray,
-					Utils.runCommandToString(cmdArray));
+			if (CONSTANT_EXPRESSIONS.contains(variable)) {
+				result = new EvalResult(cmdArray, RpmEvalService
+						.getInstance().eval(variable));
+			} else {
+				result = new EvalResult(cmdArray,
+						Utils.runCommandToString(cmdArray));
+			}
 		} catch (IOException e) {
 			throw new RpmEvalCommandException(e);
 		}
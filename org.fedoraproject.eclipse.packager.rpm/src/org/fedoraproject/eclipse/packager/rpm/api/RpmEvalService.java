@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.rpm.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.linuxtools.rpm.core.utils.Utils;
+import org.eclipse.osgi.util.NLS;
+import org.fedoraproject.eclipse.packager.rpm.RpmText;
+
+/**
+ * Session wide service evaluating RPM macro expressions. Expressions not
+ * evaluated before are expanded together by a single {@code rpm --eval} call,
+ * and results are kept for the session, keyed by expression and defines. It
+ * is therefore only suitable for expressions which don't change while Eclipse
+ * runs, such as {@link RpmEvalCommand#ARCH}; use {@link #clear()} after
+ * changing the RPM configuration.
+ */
+public class RpmEvalService {
+
+	private static final String RPM_CMD = "rpm"; //$NON-NLS-1$
+	private static final String EVAL_OPTION = "--eval"; //$NON-NLS-1$
+	// Expanded verbatim by rpm, but won't occur in sane macro values
+	private static final char FIELD_SEPARATOR = '\u001f';
+	private static final char RECORD_SEPARATOR = '\u001e';
+
+	private static final RpmEvalService INSTANCE = new RpmEvalService();
+
+	private final ConcurrentHashMap<List<String>, Map<String, String>> results = new ConcurrentHashMap<>();
+
+	private RpmEvalService() {
+		// singleton
+	}
+
+	/**
+	 * @return The shared instance.
+	 */
+	public static RpmEvalService getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Evaluate an expression without additional defines.
+	 *
+	 * @param expression
+	 *            The expression, e.g. {@code %{_arch}}.
+	 * @return The expanded expression.
+	 * @throws IOException
+	 *             If rpm failed.
+	 */
+	public String eval(String expression) throws IOException {
+		return eval(Collections.singleton(expression),
+				Collections.<String> emptyList()).get(expression);
+	}
+
+	/**
+	 * Evaluate several expressions, starting rpm at most once.
+	 *
+	 * @param expressions
+	 *            The expressions to evaluate.
+	 * @param defines
+	 *            Arguments defining macros for the evaluation, e.g.
+	 *            {@code --define}, {@code dist .fc20}.
+	 * @return The expanded expressions, keyed by expression.
+	 * @throws IOException
+	 *             If rpm failed.
+	 */
+	public Map<String, String> eval(Collection<String> expressions,
+			List<String> defines) throws IOException {
+		List<String> key = Collections.unmodifiableList(new ArrayList<>(
+				defines));
+		Map<String, String> cached = results.get(key);
+		if (cached == null) {
+			cached = new ConcurrentHashMap<>();
+			Map<String, String> previous = results.putIfAbsent(key, cached);
+			if (previous != null) {
+				cached = previous;
+			}
+		}
+		Set<String> missing = new LinkedHashSet<>(expressions);
+		missing.removeAll(cached.keySet());
+		if (!missing.isEmpty()) {
+			cached.putAll(evalAll(missing, key));
+		}
+		Map<String, String> result = new LinkedHashMap<>();
+		for (String expression : expressions) {
+			result.put(expression, cached.get(expression));
+		}
+		return result;
+	}
+
+	/**
+	 * Forget all results, e.g. because the RPM configuration changed.
+	 */
+	public void clear() {
+		results.clear();
+	}
+
+	private static Map<String, String> evalAll(Set<String> expressions,
+			List<String> defines) throws IOException {
+		StringBuilder combined = new StringBuilder();
+		for (String expression : expressions) {
+			combined.append(expression).append(FIELD_SEPARATOR);
+		}
+		combined.append(RECORD_SEPARATOR);
+		List<String> command = new ArrayList<>();
+		command.add(RPM_CMD);
+		command.addAll(defines);
+		command.add(EVAL_OPTION);
+		command.add(combined.toString());
+		String output = Utils.runCommandToString(command
+				.toArray(new String[0]));
+
+		int end = output.indexOf(RECORD_SEPARATOR);
+		String[] values = end == -1 ? new String[0] : output.substring(0, end)
+				.split(String.valueOf(FIELD_SEPARATOR), -1);
+		if (values.length != expressions.size() + 1) {
+			throw new IOException(NLS.bind(
+					RpmText.RpmEvalService_unexpectedOutput, output));
+		}
+		Map<String, String> result = new LinkedHashMap<>();
+		int i = 0;
+		for (String expression : expressions) {
+			result.put(expression, values[i++]);
+		}
+		return result;
+	}
+}
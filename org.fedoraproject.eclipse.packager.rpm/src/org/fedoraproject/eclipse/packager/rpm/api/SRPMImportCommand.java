@@ -17,7 +17,9 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IContainer;
@@ -38,10 +40,10 @@ import org.fedoraproject.eclipse.packager.IProjectRoot;
 import org.fedoraproject.eclipse.packager.api.FedoraPackager;
 import org.fedoraproject.eclipse.packager.api.SourcesFileUpdater;
 import org.fedoraproject.eclipse.packager.api.UploadSourceCommand;
+import org.fedoraproject.eclipse.packager.api.UploadSourceResult;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerAPIException;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerCommandInitializationException;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerCommandNotFoundException;
-import org.fedoraproject.eclipse.packager.api.errors.FileAvailableInLookasideCacheException;
 import org.fedoraproject.eclipse.packager.api.errors.InvalidProjectRootException;
 import org.fedoraproject.eclipse.packager.rpm.RpmText;
 import org.fedoraproject.eclipse.packager.rpm.api.errors.SRPMImportCommandException;
@@ -220,10 +222,8 @@ public class SRPMImportCommand {
 				throw new SRPMImportCommandException(errorMsg);
 			}
 
-			UploadSourceCommand upload = getUploadSourceCommand();
-
-			boolean firstUpload = true;
 			IFpProjectBits projectBits = FedoraPackagerUtils.getVcsHandler(fpr);
+			Map<File, String> candidates = new LinkedHashMap<>();
 			for (String file : uploadFiles) {
 				// This won't find the .spec file since it has been removed
 				// above.
@@ -232,37 +232,38 @@ public class SRPMImportCommand {
 				if (candidate != null
 						&& FedoraPackagerUtils.isValidUploadFile(candidate
 								.getLocation().toFile())) {
-					File newUploadFile = candidate.getLocation().toFile();
-					SourcesFileUpdater sourcesUpdater = new SourcesFileUpdater(
-							fpr, newUploadFile);
-					// replace existing source, but not other files from this
-					// SRPM
-					sourcesUpdater.setShouldReplace(firstUpload);
+					candidates.put(candidate.getLocation().toFile(), file);
 					// Note that ignore file may not exist, yet
 					projectBits.ignoreResource(candidate);
-					if (uploadUrl != null) {
-						upload.setUploadURL(uploadUrl);
-					}
-					upload.setFileToUpload(newUploadFile);
-					// set SSL policy via the callback
-					sslPolicyCallback.setSSLPolicy(upload, uploadUrl);
-					upload.addCommandListener(sourcesUpdater);
-					try {
-						upload.call(new NullProgressMonitor());
-						uploadedFiles.add(file);
-						if (firstUpload) {
-							firstUpload = false;
-						}
-					} catch (FileAvailableInLookasideCacheException e) {
-						// ignore, imports that update an existing repo can have
-						// identical files in an update, but these files don't
-						// really need to be uploaded
-					}
-
 				} else {
 					stageSet.add(file);
 				}
 			}
+			if (!candidates.isEmpty()) {
+				// Check and upload all sources in one batch, which writes the
+				// sources file once at the end.
+				UploadSourceCommand upload = getUploadSourceCommand();
+				SourcesFileUpdater sourcesUpdater = new SourcesFileUpdater(
+						fpr, candidates.keySet());
+				// replace existing sources by the ones of this SRPM
+				sourcesUpdater.setShouldReplace(true);
+				if (uploadUrl != null) {
+					upload.setUploadURL(uploadUrl);
+				}
+				upload.setFilesToUpload(candidates.keySet());
+				// set SSL policy via the callback
+				sslPolicyCallback.setSSLPolicy(upload, uploadUrl);
+				upload.addCommandListener(sourcesUpdater);
+				// a failed upload throws before the sources file is written
+				UploadSourceResult uploadResult = upload
+						.call(new NullProgressMonitor());
+				// imports that update an existing repo can have identical
+				// files in an update, but these files don't really need to be
+				// uploaded
+				for (File uploaded : uploadResult.getUploadedFiles()) {
+					uploadedFiles.add(candidates.get(uploaded));
+				}
+			}
 			result.setUploaded(uploadedFiles);
 			monitor.subTask(RpmText.SRPMImportCommand_StagingChanges);
 			// Do VCS update
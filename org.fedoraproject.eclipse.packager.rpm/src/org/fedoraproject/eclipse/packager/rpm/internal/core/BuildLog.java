@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.rpm.internal.core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
+import org.fedoraproject.eclipse.packager.rpm.RPMPlugin;
+import org.fedoraproject.eclipse.packager.rpm.RpmText;
+
+/**
+ * Complete output of one build, written to a log file below the state
+ * location of the RPM plug-in. Lines are handed to a writer thread of the
+ * log, so appending only waits for the disk once {@value #CAPACITY} lines
+ * are pending. Only the most recent {@value #KEPT_LOGS} logs of a package and
+ * build kind are kept.
+ *
+ * Next to the log an index file records the byte offset of every
+ * {@value #CHECKPOINT_INTERVAL}th line and of every line starting with
+ * {@code error:}, see {@link BuildLogReader}.
+ */
+public class BuildLog {
+
+	private static final String LOG_DIRECTORY = "buildlogs"; //$NON-NLS-1$
+	private static final String LOG_SUFFIX = ".log"; //$NON-NLS-1$
+	private static final String INDEX_SUFFIX = ".idx"; //$NON-NLS-1$
+	private static final String TIMESTAMP_FORMAT = "yyyyMMdd-HHmmss-SSS"; //$NON-NLS-1$
+	private static final int KEPT_LOGS = 10;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/**
+	 * Lines not written yet before appending has to wait.
+	 */
+	private static final int CAPACITY = 16 * 1024;
+
+	/**
+	 * Number of lines between two checkpoints of the index.
+	 */
+	static final int CHECKPOINT_INTERVAL = 1000;
+	/**
+	 * Index entry type of a checkpoint.
+	 */
+	static final byte CHECKPOINT = 0;
+	/**
+	 * Index entry type of an error line.
+	 */
+	static final byte ERROR = 1;
+	/**
+	 * Prefix of lines recorded as errors, compared ignoring case.
+	 */
+	static final String ERROR_PREFIX = "error:"; //$NON-NLS-1$
+
+	// Queued by close(), compared by identity
+	private static final String END = new String();
+
+	private final File logFile;
+	private final File indexFile;
+	private final BlockingQueue<String> lines = new LinkedBlockingQueue<>(
+			CAPACITY);
+	private final Thread writer;
+
+	private BuildLog(File logFile) {
+		this.logFile = logFile;
+		this.indexFile = getIndexFile(logFile);
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				write();
+			}
+		}, "Build log writer"); //$NON-NLS-1$
+		writer.setDaemon(true);
+	}
+
+	/**
+	 * Start a new log, removing old logs of the same package and build kind.
+	 *
+	 * @param packageName
+	 *            The name of the package.
+	 * @param buildName
+	 *            The kind of build, e.g. {@code mock}.
+	 * @return The started log.
+	 * @throws IOException
+	 *             If the log directory can't be created.
+	 */
+	public static BuildLog open(String packageName, String buildName)
+			throws IOException {
+		File directory = RPMPlugin.getStateLocation().append(LOG_DIRECTORY)
+				.append(packageName).toFile();
+		return open(directory, buildName);
+	}
+
+	/**
+	 * Start a new log in a directory, removing old logs of the same build
+	 * kind.
+	 *
+	 * @param directory
+	 *            The directory of the logs of the package.
+	 * @param buildName
+	 *            The kind of build.
+	 * @return The started log.
+	 * @throws IOException
+	 *             If the directory can't be created.
+	 */
+	static BuildLog open(File directory, final String buildName)
+			throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException(directory.getPath());
+		}
+		File[] previous = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.startsWith(buildName + '-')
+						&& name.endsWith(LOG_SUFFIX);
+			}
+		});
+		if (previous != null && previous.length >= KEPT_LOGS) {
+			// timestamps sort chronologically
+			Arrays.sort(previous);
+			for (int i = 0; i <= previous.length - KEPT_LOGS; i++) {
+				previous[i].delete();
+				getIndexFile(previous[i]).delete();
+			}
+		}
+		String timestamp = new SimpleDateFormat(TIMESTAMP_FORMAT)
+				.format(new Date());
+		BuildLog log = new BuildLog(new File(directory, buildName + '-'
+				+ timestamp + LOG_SUFFIX));
+		log.writer.start();
+		return log;
+	}
+
+	/**
+	 * @param logFile
+	 *            A log file.
+	 * @return The index file belonging to {@code logFile}.
+	 */
+	static File getIndexFile(File logFile) {
+		String name = logFile.getName();
+		return new File(logFile.getParentFile(), name.substring(0,
+				name.length() - LOG_SUFFIX.length())
+				+ INDEX_SUFFIX);
+	}
+
+	/**
+	 * @return The log file.
+	 */
+	public File getLogFile() {
+		return logFile;
+	}
+
+	/**
+	 * Queue a line for the log, waiting for the writer if too many lines are
+	 * pending.
+	 *
+	 * @param line
+	 *            The line without line terminator.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting for the writer.
+	 */
+	public void append(String line) throws InterruptedException {
+		lines.put(line);
+	}
+
+	/**
+	 * Write the queued lines and close the log.
+	 *
+	 * @throws InterruptedException
+	 *             If interrupted while waiting for the writer.
+	 */
+	public void close() throws InterruptedException {
+		lines.put(END);
+		writer.join();
+	}
+
+	private void write() {
+		try (OutputStream log = new BufferedOutputStream(new FileOutputStream(
+				logFile), BUFFER_SIZE);
+				DataOutputStream index = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(
+								indexFile)))) {
+			long lineNumber = 0;
+			long offset = 0;
+			while (true) {
+				String line = lines.poll();
+				if (line == null) {
+					// caught up, make the log readable so far
+					log.flush();
+					index.flush();
+					line = lines.take();
+				}
+				if (line == END) {
+					break;
+				}
+				if (lineNumber % CHECKPOINT_INTERVAL == 0) {
+					writeEntry(index, CHECKPOINT, lineNumber, offset);
+				}
+				if (line.regionMatches(true, 0, ERROR_PREFIX, 0,
+						ERROR_PREFIX.length())) {
+					writeEntry(index, ERROR, lineNumber, offset);
+				}
+				byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+				log.write(bytes);
+				log.write('\n');
+				offset += bytes.length + 1;
+				lineNumber++;
+			}
+		} catch (IOException e) {
+			FedoraPackagerLogger.getInstance().logError(
+					RpmText.BuildLog_writeFailed, e);
+			// keep draining, so close() doesn't hang
+			drain();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void drain() {
+		try {
+			while (lines.take() != END) {
+				// discard
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void writeEntry(DataOutputStream index, byte type,
+			long lineNumber, long offset) throws IOException {
+		index.writeByte(type);
+		index.writeLong(lineNumber);
+		index.writeLong(offset);
+	}
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.rpm.internal.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads parts of a {@link BuildLog} using its index, so only the requested
+ * lines and at most {@value BuildLog#CHECKPOINT_INTERVAL} lines before them
+ * are read, however large the log is. Line numbers start at 0.
+ */
+public class BuildLogReader {
+
+	private final File logFile;
+	// line numbers and offsets of checkpoints, ascending
+	private final List<long[]> checkpoints = new ArrayList<>();
+	private long firstError = -1;
+
+	/**
+	 * Load the index of a log.
+	 *
+	 * @param logFile
+	 *            The log file.
+	 * @throws IOException
+	 *             If the index can't be read.
+	 */
+	public BuildLogReader(File logFile) throws IOException {
+		this.logFile = logFile;
+		try (DataInputStream index = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(
+						BuildLog.getIndexFile(logFile))))) {
+			while (true) {
+				byte type;
+				long lineNumber;
+				long offset;
+				try {
+					type = index.readByte();
+					lineNumber = index.readLong();
+					offset = index.readLong();
+				} catch (EOFException e) {
+					// end of index, or an entry still being written
+					break;
+				}
+				if (type == BuildLog.CHECKPOINT) {
+					checkpoints.add(new long[] { lineNumber, offset });
+				} else if (type == BuildLog.ERROR && firstError == -1) {
+					firstError = lineNumber;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The number of the first line starting with
+	 *         {@value BuildLog#ERROR_PREFIX} or -1 if there is none.
+	 */
+	public long getFirstErrorLine() {
+		return firstError;
+	}
+
+	/**
+	 * Read consecutive lines of the log.
+	 *
+	 * @param firstLine
+	 *            The number of the first line to read.
+	 * @param count
+	 *            The maximal number of lines to read.
+	 * @return The lines, fewer than {@code count} if the log ends before.
+	 * @throws IOException
+	 *             If the log can't be read.
+	 */
+	public List<String> readLines(long firstLine, int count)
+			throws IOException {
+		List<String> result = new ArrayList<>();
+		int checkpoint = (int) Math.min(firstLine
+				/ BuildLog.CHECKPOINT_INTERVAL, checkpoints.size() - 1);
+		if (checkpoint < 0) {
+			return result;
+		}
+		long lineNumber = checkpoints.get(checkpoint)[0];
+		try (RandomAccessFile log = new RandomAccessFile(logFile, "r")) { //$NON-NLS-1$
+			log.seek(checkpoints.get(checkpoint)[1]);
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					Channels.newInputStream(log.getChannel()),
+					StandardCharsets.UTF_8));
+			String line;
+			while (result.size() < count && (line = reader.readLine()) != null) {
+				if (lineNumber++ >= firstLine) {
+					result.add(line);
+				}
+			}
+		}
+		return result;
+	}
+}
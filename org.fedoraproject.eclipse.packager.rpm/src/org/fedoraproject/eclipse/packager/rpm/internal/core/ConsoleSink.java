@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.rpm.internal.core;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.console.MessageConsoleStream;
+import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
+import org.fedoraproject.eclipse.packager.FedoraPackagerText;
+import org.fedoraproject.eclipse.packager.rpm.RpmText;
+import org.fedoraproject.eclipse.packager.rpm.api.FedoraPackagerConsole;
+
+/**
+ * Buffers lines for a console and writes them in batches, at least every
+ * {@value #FLUSH_INTERVAL} ms or once {@value #BATCH_SIZE} lines are pending.
+ * Pending lines are kept in a ring buffer of {@value #PENDING_LIMIT} lines;
+ * if the console can't keep up, the oldest pending lines are dropped and a
+ * note says how many. The console itself is trimmed from the top once it holds
+ * more than about the line limit, so the tail of the output stays visible.
+ */
+public class ConsoleSink {
+
+	/**
+	 * Maximal time between two writes to the console in milliseconds.
+	 */
+	private static final long FLUSH_INTERVAL = 200;
+	/**
+	 * Number of pending lines causing an immediate write.
+	 */
+	private static final int BATCH_SIZE = 256;
+	/**
+	 * Maximal number of pending lines, leaving the console time for a few
+	 * batches before lines get dropped.
+	 */
+	private static final int PENDING_LIMIT = 4 * BATCH_SIZE;
+	/**
+	 * Line length assumed when translating the line limit into the character
+	 * based water marks of the console.
+	 */
+	private static final int CHARS_PER_LINE = 100;
+
+	private static final ScheduledExecutorService flusher = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Packager console flusher"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private final MessageConsoleStream out;
+	private final String[] ring;
+	private int head = 0;
+	private int size = 0;
+	private long dropped = 0;
+	private final Object flushLock = new Object();
+	private final ScheduledFuture<?> scheduledFlush;
+
+	/**
+	 * @param out
+	 *            The stream to write to.
+	 * @param lineLimit
+	 *            The maximal number of lines the console keeps, at least 100.
+	 */
+	public ConsoleSink(MessageConsoleStream out, int lineLimit) {
+		this.out = out;
+		this.ring = new String[PENDING_LIMIT];
+		long high = (long) lineLimit * CHARS_PER_LINE;
+		out.getConsole().setWaterMarks((int) Math.min(high * 3 / 4,
+				Integer.MAX_VALUE - 1), (int) Math.min(high, Integer.MAX_VALUE));
+		scheduledFlush = flusher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Queue a line for the console.
+	 *
+	 * @param line
+	 *            The line without line terminator.
+	 */
+	public void append(String line) {
+		boolean flushNow;
+		synchronized (this) {
+			if (size == ring.length) {
+				// overwrite the oldest pending line
+				head = (head + 1) % ring.length;
+				size--;
+				dropped++;
+			}
+			ring[(head + size) % ring.length] = line;
+			size++;
+			flushNow = size >= BATCH_SIZE;
+		}
+		if (flushNow) {
+			flush();
+		}
+	}
+
+	/**
+	 * Write all pending lines to the console.
+	 */
+	public void flush() {
+		// One flush at a time, so batches are written in order
+		synchronized (flushLock) {
+			StringBuilder batch = new StringBuilder();
+			synchronized (this) {
+				if (size == 0) {
+					return;
+				}
+				if (dropped > 0) {
+					batch.append(NLS.bind(RpmText.ConsoleSink_linesDropped,
+							Long.valueOf(dropped))).append('\n');
+					dropped = 0;
+				}
+				for (; size > 0; size--) {
+					batch.append(ring[head]).append('\n');
+					ring[head] = null;
+					head = (head + 1) % ring.length;
+				}
+			}
+			try {
+				out.write(batch.toString());
+			} catch (IOException e) {
+				FedoraPackagerLogger.getInstance().logError(
+						FedoraPackagerText.ConsoleWriterThread_ioFail, e);
+			}
+		}
+		FedoraPackagerConsole.markActive(out.getConsole());
+	}
+
+	/**
+	 * Write the pending lines and stop flushing periodically.
+	 */
+	public void close() {
+		scheduledFlush.cancel(false);
+		flush();
+	}
+}
@@ -14,21 +14,35 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.Observable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.ui.console.MessageConsoleStream;
 import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
+import org.fedoraproject.eclipse.packager.FedoraPackagerPreferencesConstants;
 import org.fedoraproject.eclipse.packager.FedoraPackagerText;
+import org.fedoraproject.eclipse.packager.PackagerPlugin;
+import org.fedoraproject.eclipse.packager.rpm.RpmText;
 
 /**
- * Observable event source for writing to the Eclipse Fedora Packager console.
+ * Event source for writing to the Eclipse Fedora Packager console. Each line
+ * is classified once and passed on to all {@link OutputListener}s.
  * 
  */
-public class ConsoleWriter extends Observable implements Runnable {
-	
+public class ConsoleWriter implements Runnable {
+
+	/**
+	 * Lines of the build log shown before and after its first error.
+	 */
+	private static final int ERROR_CONTEXT = 5;
+
 	boolean terminated;
 	BufferedReader in;
+	ProcessOutputPump pump;
 	MessageConsoleStream out;
+	BuildLog log;
+	private final List<OutputListener> listeners = new CopyOnWriteArrayList<>();
 
 	/**
 	 * Create a new console writer thread.
@@ -44,36 +58,134 @@ public class ConsoleWriter extends Observable implements Runnable {
 		this.terminated = false;
 	}
 
+	/**
+	 * Create a new console writer for both output streams of a process. Lines
+	 * are written in the order the process produced them.
+	 * 
+	 * @param process
+	 * 		The process whose output to write.
+	 * @param out
+	 * 		The Eclipse MessageConsoleStream to write output to.
+	 */
+	public ConsoleWriter(Process process, MessageConsoleStream out) {
+		this.out = out;
+		this.pump = new ProcessOutputPump(process);
+		this.terminated = false;
+	}
+
+	/**
+	 * Also write all output to a new build log of a package. The console only
+	 * keeps the tail of long outputs.
+	 * 
+	 * @param packageName
+	 * 		The name of the package.
+	 * @param buildName
+	 * 		The kind of build, e.g. {@code mock}.
+	 */
+	public void logTo(String packageName, String buildName) {
+		try {
+			log = BuildLog.open(packageName, buildName);
+		} catch (IOException e) {
+			// Build without log rather than fail
+			FedoraPackagerLogger.getInstance().logError(
+					NLS.bind(RpmText.BuildLog_openFailed, packageName), e);
+		}
+	}
+
+	/**
+	 * Add a listener for the lines written.
+	 * 
+	 * @param listener
+	 * 		The listener.
+	 */
+	public void addListener(OutputListener listener) {
+		listeners.add(listener);
+	}
+
 	@Override
 	public void run() {
+		// Batched writes to a console of bounded size. Fixes Trac #55.
+		ConsoleSink sink = new ConsoleSink(out, PackagerPlugin.getDefault()
+				.getPreferenceStore()
+				.getInt(FedoraPackagerPreferencesConstants.PREF_CONSOLE_LINE_LIMIT));
 		try {
-			long count = 0;
-			long maxChars = Runtime.getRuntime().freeMemory() / 32;
 			String line = null;
 			// Use line based IO. Fixes Trac #42 (localized language problem).
-			while (!terminated && (line = in.readLine()) != null) {
-				out.write(line + '\n');
-				count += line.length() + 1;
-				
-				// notify observers
-				setChanged();
-                notifyObservers(line);
-                
-				// Clear console every X characters.
-				// X = available Memory / 32 (char == 16 bit); So 1/16 of available
-				// memory seem to be good. May adjust as needed. Fixes Trac #55.
-				if (count > maxChars) {
-					count = 0;
-					out.getConsole().clearConsole();
+			while (!terminated && (line = readLine()) != null) {
+				sink.append(line);
+				if (log != null) {
+					log.append(line);
+				}
+
+				if (!listeners.isEmpty()) {
+					OutputClassifier.Kind kind = OutputClassifier.getDefault()
+							.classify(line);
+					for (OutputListener listener : listeners) {
+						listener.outputLine(line, kind);
+					}
 				}
 			}
 		} catch (IOException e) {
 			//Log error, but do nothing about it
 			FedoraPackagerLogger logger = FedoraPackagerLogger.getInstance();
 			logger.logError(FedoraPackagerText.ConsoleWriterThread_ioFail, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (pump != null) {
+				// keep the process from blocking on output nobody reads
+				pump.close();
+			}
+			if (log != null) {
+				try {
+					log.close();
+					appendFirstError(sink);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			sink.close();
+		}
+	}
+
+	/**
+	 * Show the first error of the build log at the end of the console, since
+	 * the console may have dropped it from long outputs.
+	 */
+	private void appendFirstError(ConsoleSink sink) {
+		try {
+			BuildLogReader reader = new BuildLogReader(log.getLogFile());
+			long firstError = reader.getFirstErrorLine();
+			if (firstError == -1) {
+				return;
+			}
+			sink.append(NLS.bind(RpmText.BuildLog_firstError,
+					Long.valueOf(firstError + 1), log.getLogFile().getPath()));
+			for (String line : reader.readLines(
+					Math.max(0, firstError - ERROR_CONTEXT),
+					2 * ERROR_CONTEXT + 1)) {
+				sink.append(line);
+			}
+		} catch (IOException e) {
+			FedoraPackagerLogger.getInstance().logError(
+					NLS.bind(RpmText.BuildLog_readFailed, log.getLogFile()
+							.getPath()), e);
 		}
 	}
 	
+	private String readLine() throws IOException {
+		if (pump == null) {
+			return in.readLine();
+		}
+		try {
+			ProcessOutputPump.Line line = pump.nextLine();
+			return line == null ? null : line.getText();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
 	/**
 	 * Terminate any ongoing reading/writing.
 	 */
@@ -10,18 +10,17 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.rpm.internal.core;
 
-import java.util.Observable;
-import java.util.Observer;
-
 import org.fedoraproject.eclipse.packager.rpm.api.MockBuildResult;
+import org.fedoraproject.eclipse.packager.rpm.internal.core.OutputClassifier.Kind;
 
 /**
- * Observer which determines if a mock build succeeded or failed.
+ * Listener which determines if a mock build reported an error. Only lines
+ * classified as {@link Kind#ERROR} count, so e.g. file names containing
+ * "error" don't fail a build.
  * 
  */
-public class MockBuildCommandSuccessObserver implements Observer {
+public class MockBuildCommandSuccessObserver implements OutputListener {
 
-	private static final String MOCK_ERROR_OUTPUT_STRING = "error"; //$NON-NLS-1$
 	private MockBuildResult mockBuildResult;
 
 	/**
@@ -34,14 +33,11 @@ public class MockBuildCommandSuccessObserver implements Observer {
 	}
 
 	@Override
-	public void update(Observable object, Object arg) {
-		if (arg instanceof String) {
-			String line = (String) arg;
-			// if Error shows up in the console there was likely an error
-			// so set status accordingly.
-			if (line.toLowerCase().contains(MOCK_ERROR_OUTPUT_STRING)) {
-				mockBuildResult.setSuccessful(false);
-			}
+	public void outputLine(String line, Kind kind) {
+		// if an error shows up in the console there was likely an error
+		// so set status accordingly.
+		if (kind == Kind.ERROR) {
+			mockBuildResult.setSuccessful(false);
 		}
 	}
 
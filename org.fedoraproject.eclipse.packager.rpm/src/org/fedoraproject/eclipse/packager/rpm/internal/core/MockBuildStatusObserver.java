@@ -10,18 +10,26 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.rpm.internal.core;
 
-import java.util.Observable;
-import java.util.Observer;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.fedoraproject.eclipse.packager.rpm.internal.core.OutputClassifier.Kind;
 
 /**
- * Observes status prints on the console and updates the progress monitor.
+ * Shows status prints on the console in the progress monitor. Phase changes
+ * are shown right away, other lines at most every {@value #UPDATE_INTERVAL}
+ * ms.
  * 
  */
-public class MockBuildStatusObserver implements Observer {
+public class MockBuildStatusObserver implements OutputListener {
+
+	/**
+	 * Minimal time between two updates of the monitor in milliseconds.
+	 */
+	private static final long UPDATE_INTERVAL = 250;
 
 	private IProgressMonitor monitor;
+	private long lastUpdate;
 
 	/**
 	 * @param monitor
@@ -29,13 +37,19 @@ public class MockBuildStatusObserver implements Observer {
 	 */
 	public MockBuildStatusObserver(IProgressMonitor monitor) {
 		this.monitor = monitor;
+		this.lastUpdate = System.nanoTime()
+				- TimeUnit.MILLISECONDS.toNanos(UPDATE_INTERVAL);
 	}
 
 	@Override
-	public void update(Observable object, Object arg) {
-		if (arg instanceof String) {
+	public void outputLine(String line, Kind kind) {
+		long now = System.nanoTime();
+		if (kind == Kind.PHASE
+				|| now - lastUpdate >= TimeUnit.MILLISECONDS
+						.toNanos(UPDATE_INTERVAL)) {
+			lastUpdate = now;
 			// update the subtask
-			monitor.subTask((String) arg);
+			monitor.subTask(line);
 		}
 	}
 
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.rpm.internal.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Classifies lines of rpmbuild, mock and fedora-review output. All patterns
+ * are compiled into one Aho-Corasick automaton, so a line is classified in a
+ * single pass over its characters without allocating anything. Patterns are
+ * matched ignoring the case of ASCII letters and may be anchored at the start
+ * or end of a line.
+ */
+public class OutputClassifier {
+
+	/**
+	 * The kinds of lines, in descending order of precedence.
+	 */
+	public enum Kind {
+		/** An error was reported */
+		ERROR,
+		/** A file was written, e.g. {@code Wrote: /path/foo.src.rpm} */
+		WROTE_ARTIFACT,
+		/** A warning was reported */
+		WARNING,
+		/** A new phase of the build started */
+		PHASE,
+		/** Anything else */
+		OTHER
+	}
+
+	private enum Anchor {
+		START, END, ANYWHERE
+	}
+
+	private static final int ALPHABET_SIZE = 128;
+
+	private static final OutputClassifier DEFAULT = new Builder()
+			// rpmbuild, also as part of mock builds
+			.add("error:", Anchor.START, Kind.ERROR) //$NON-NLS-1$
+			.add("Bad exit status from", Anchor.ANYWHERE, Kind.ERROR) //$NON-NLS-1$
+			.add("RPM build errors:", Anchor.START, Kind.ERROR) //$NON-NLS-1$
+			.add("warning:", Anchor.START, Kind.WARNING) //$NON-NLS-1$
+			.add("Wrote: ", Anchor.START, Kind.WROTE_ARTIFACT) //$NON-NLS-1$
+			.add("Executing(%", Anchor.START, Kind.PHASE) //$NON-NLS-1$
+			// mock
+			.add("Start: ", Anchor.START, Kind.PHASE) //$NON-NLS-1$
+			.add("Start(", Anchor.START, Kind.PHASE) //$NON-NLS-1$
+			.add("INFO: ", Anchor.START, Kind.PHASE) //$NON-NLS-1$
+			.build();
+
+	// transitions of the automaton by state and lower case ASCII character
+	private final int[][] next;
+	// indexes of the patterns ending in a state
+	private final int[][] matches;
+	private final int[] lengths;
+	private final Anchor[] anchors;
+	private final Kind[] kinds;
+
+	private OutputClassifier(int[][] next, int[][] matches, int[] lengths,
+			Anchor[] anchors, Kind[] kinds) {
+		this.next = next;
+		this.matches = matches;
+		this.lengths = lengths;
+		this.anchors = anchors;
+		this.kinds = kinds;
+	}
+
+	/**
+	 * @return The classifier for build output.
+	 */
+	public static OutputClassifier getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Classify a line.
+	 *
+	 * @param line
+	 *            The line without line terminator.
+	 * @return The kind of the line with the highest precedence of all
+	 *         matching patterns, {@link Kind#OTHER} if none matches.
+	 */
+	public Kind classify(String line) {
+		Kind result = Kind.OTHER;
+		int length = line.length();
+		int state = 0;
+		for (int i = 0; i < length; i++) {
+			char c = line.charAt(i);
+			if (c >= ALPHABET_SIZE) {
+				// patterns are ASCII only
+				state = 0;
+				continue;
+			}
+			state = next[state][toLowerCase(c)];
+			for (int pattern : matches[state]) {
+				Anchor anchor = anchors[pattern];
+				if ((anchor == Anchor.START && i + 1 != lengths[pattern])
+						|| (anchor == Anchor.END && i + 1 != length)) {
+					continue;
+				}
+				if (kinds[pattern].compareTo(result) < 0) {
+					result = kinds[pattern];
+				}
+			}
+		}
+		return result;
+	}
+
+	private static char toLowerCase(char c) {
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	/**
+	 * Collects patterns and compiles them into a classifier.
+	 */
+	private static class Builder {
+		private final List<String> patterns = new ArrayList<>();
+		private final List<Anchor> anchors = new ArrayList<>();
+		private final List<Kind> kinds = new ArrayList<>();
+
+		Builder add(String pattern, Anchor anchor, Kind kind) {
+			patterns.add(pattern);
+			anchors.add(anchor);
+			kinds.add(kind);
+			return this;
+		}
+
+		OutputClassifier build() {
+			// trie of all patterns, -1 meaning no transition yet
+			List<int[]> next = new ArrayList<>();
+			List<int[]> matches = new ArrayList<>();
+			next.add(newState());
+			matches.add(new int[0]);
+			int[] lengths = new int[patterns.size()];
+			for (int p = 0; p < patterns.size(); p++) {
+				String pattern = patterns.get(p);
+				lengths[p] = pattern.length();
+				int state = 0;
+				for (int i = 0; i < pattern.length(); i++) {
+					char c = toLowerCase(pattern.charAt(i));
+					if (next.get(state)[c] == -1) {
+						next.get(state)[c] = next.size();
+						next.add(newState());
+						matches.add(new int[0]);
+					}
+					state = next.get(state)[c];
+				}
+				matches.set(state, append(matches.get(state), p));
+			}
+
+			// complete the transitions along the failure links, breadth first
+			// so the failure target of a state is always done before it
+			int[] failure = new int[next.size()];
+			Queue<Integer> queue = new ArrayDeque<>();
+			for (int c = 0; c < ALPHABET_SIZE; c++) {
+				int target = next.get(0)[c];
+				if (target == -1) {
+					next.get(0)[c] = 0;
+				} else {
+					failure[target] = 0;
+					queue.add(Integer.valueOf(target));
+				}
+			}
+			while (!queue.isEmpty()) {
+				int state = queue.remove().intValue();
+				int fallback = failure[state];
+				for (int p : matches.get(fallback)) {
+					matches.set(state, append(matches.get(state), p));
+				}
+				for (int c = 0; c < ALPHABET_SIZE; c++) {
+					int target = next.get(state)[c];
+					if (target == -1) {
+						next.get(state)[c] = next.get(fallback)[c];
+					} else {
+						failure[target] = next.get(fallback)[c];
+						queue.add(Integer.valueOf(target));
+					}
+				}
+			}
+			return new OutputClassifier(next.toArray(new int[0][]),
+					matches.toArray(new int[0][]), lengths,
+					anchors.toArray(new Anchor[0]), kinds.toArray(new Kind[0]));
+		}
+
+		private static int[] newState() {
+			int[] transitions = new int[ALPHABET_SIZE];
+			Arrays.fill(transitions, -1);
+			return transitions;
+		}
+
+		private static int[] append(int[] array, int value) {
+			int[] result = Arrays.copyOf(array, array.length + 1);
+			result[array.length] = value;
+			return result;
+		}
+	}
+}
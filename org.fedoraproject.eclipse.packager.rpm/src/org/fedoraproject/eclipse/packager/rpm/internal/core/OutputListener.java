@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.rpm.internal.core;
+
+import org.fedoraproject.eclipse.packager.rpm.internal.core.OutputClassifier.Kind;
+
+/**
+ * Listener for classified lines of build output.
+ * 
+ * @see ConsoleWriter
+ */
+public interface OutputListener {
+
+	/**
+	 * Called for every line of output, on the thread reading the output.
+	 * Listeners should return quickly, since builds may produce a lot of
+	 * output.
+	 * 
+	 * @param line
+	 *            The line without line terminator.
+	 * @param kind
+	 *            The kind of the line.
+	 */
+	void outputLine(String line, Kind kind);
+}
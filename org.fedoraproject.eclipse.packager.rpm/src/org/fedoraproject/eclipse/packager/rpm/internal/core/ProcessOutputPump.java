@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.rpm.internal.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
+import org.fedoraproject.eclipse.packager.FedoraPackagerText;
+
+/**
+ * Drains standard output and standard error of a process at the same time,
+ * so the process never blocks on a full pipe, and merges both into one stream
+ * of lines in the order they were read. Once the consumer {@link #close()}s
+ * the pump, the remaining output is read and dropped.
+ */
+public class ProcessOutputPump {
+
+	/**
+	 * The stream a line was read from.
+	 */
+	public enum Source {
+		/** Standard output */
+		STDOUT,
+		/** Standard error */
+		STDERR
+	}
+
+	/**
+	 * A line of output.
+	 */
+	public static class Line {
+		private final Source source;
+		private final String text;
+
+		Line(Source source, String text) {
+			this.source = source;
+			this.text = text;
+		}
+
+		/**
+		 * @return The stream the line was read from.
+		 */
+		public Source getSource() {
+			return source;
+		}
+
+		/**
+		 * @return The line without line terminator.
+		 */
+		public String getText() {
+			return text;
+		}
+	}
+
+	/**
+	 * Lines not consumed yet before a reader has to wait.
+	 */
+	private static final int CAPACITY = 1024;
+	/**
+	 * Queued by a reader once its stream is at its end.
+	 */
+	private static final Line END = new Line(null, null);
+	/**
+	 * Time between two checks for a closed pump while the queue is full.
+	 */
+	private static final long CLOSED_CHECK_INTERVAL = 200;
+
+	private final BlockingQueue<Line> lines = new LinkedBlockingQueue<>(
+			CAPACITY);
+	private int openStreams = 2;
+	private volatile boolean closed;
+
+	/**
+	 * Start pumping the output of a process.
+	 *
+	 * @param process
+	 *            The process.
+	 */
+	public ProcessOutputPump(Process process) {
+		pump(process.getInputStream(), Source.STDOUT);
+		pump(process.getErrorStream(), Source.STDERR);
+	}
+
+	/**
+	 * Get the next line, waiting for it if necessary. Must be called by a
+	 * single consumer.
+	 *
+	 * @return The next line or {@code null} if both streams are at their
+	 *         end.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting.
+	 */
+	public Line nextLine() throws InterruptedException {
+		while (openStreams > 0) {
+			Line line = lines.take();
+			if (line != END) {
+				return line;
+			}
+			openStreams--;
+		}
+		return null;
+	}
+
+	/**
+	 * Stop queueing lines, e.g. because the consumer gave up. The process
+	 * output is still drained, so the process doesn't block on a full pipe.
+	 */
+	public void close() {
+		closed = true;
+		lines.clear();
+	}
+
+	/**
+	 * Queue a line unless the pump is closed, waiting for space if necessary.
+	 */
+	private void queue(Line line) throws InterruptedException {
+		while (!closed
+				&& !lines.offer(line, CLOSED_CHECK_INTERVAL,
+						TimeUnit.MILLISECONDS)) {
+			// consumer is busy, check again whether it's gone
+		}
+	}
+
+	private void pump(final InputStream in, final Source source) {
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try (BufferedReader reader = new BufferedReader(
+						new InputStreamReader(in))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						queue(new Line(source, line));
+					}
+				} catch (IOException e) {
+					FedoraPackagerLogger.getInstance().logError(
+							FedoraPackagerText.ConsoleWriterThread_ioFail, e);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				try {
+					queue(END);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, "Process " + source); //$NON-NLS-1$
+		reader.setDaemon(true);
+		reader.start();
+	}
+}
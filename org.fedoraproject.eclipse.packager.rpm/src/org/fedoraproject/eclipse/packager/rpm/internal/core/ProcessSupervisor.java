@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.rpm.internal.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Supervises long running external processes such as rpmbuild or mock. The
+ * process is handled by a thread of its own, which blocks until the process
+ * is done, and its outcome is published through a future. Cancelling the
+ * future destroys the process along with its descendants.
+ */
+public class ProcessSupervisor {
+
+	/**
+	 * Time between two checks of the progress monitor while waiting.
+	 */
+	private static final long CANCEL_CHECK_INTERVAL = 200;
+	/**
+	 * Time a process gets to terminate on its own before it is killed.
+	 */
+	private static final long DESTROY_TIMEOUT = 5000;
+
+	/**
+	 * Notified by the supervising thread once a process is done, unless its
+	 * future was cancelled.
+	 */
+	public interface CompletionListener {
+		/**
+		 * The process is done and its outcome computed.
+		 *
+		 * @throws Exception
+		 *             To fail the future.
+		 */
+		void completed() throws Exception;
+	}
+
+	/**
+	 * Future of a supervised process. Cancelling it destroys the process.
+	 *
+	 * @param <T>
+	 *            The type of the outcome.
+	 */
+	private static class ProcessFuture<T> extends CompletableFuture<T> {
+		private final Process process;
+
+		ProcessFuture(Process process) {
+			this.process = process;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				destroy(process);
+			}
+			return cancelled;
+		}
+	}
+
+	private ProcessSupervisor() {
+		// static helpers only
+	}
+
+	/**
+	 * Supervise a started process.
+	 *
+	 * @param process
+	 *            The process.
+	 * @param name
+	 *            The name of the supervising thread.
+	 * @param completion
+	 *            Run by the supervising thread. It handles the output of the
+	 *            process, waits for it to exit and computes the outcome.
+	 * @param listener
+	 *            Notified after {@code completion}, unless the future was
+	 *            cancelled meanwhile.
+	 * @return The future outcome, failing with whatever {@code completion}
+	 *         or {@code listener} threw.
+	 */
+	public static <T> CompletableFuture<T> supervise(Process process,
+			String name, final Callable<T> completion,
+			final CompletionListener listener) {
+		final ProcessFuture<T> future = new ProcessFuture<>(process);
+		Thread supervisor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					T outcome = completion.call();
+					if (!future.isCancelled()) {
+						listener.completed();
+					}
+					future.complete(outcome);
+				} catch (Exception e) {
+					future.completeExceptionally(e);
+				}
+			}
+		}, name);
+		supervisor.setDaemon(true);
+		supervisor.start();
+		return future;
+	}
+
+	/**
+	 * Block until a future is done, checking for cancellation of the monitor
+	 * every {@value #CANCEL_CHECK_INTERVAL} ms. A cancelled monitor cancels
+	 * the future.
+	 *
+	 * @param future
+	 *            The future.
+	 * @param monitor
+	 *            The monitor to check for cancellation.
+	 * @return The outcome.
+	 * @throws ExecutionException
+	 *             If the future completed exceptionally.
+	 * @throws OperationCanceledException
+	 *             If the monitor was cancelled or the thread interrupted.
+	 */
+	public static <T> T waitFor(Future<T> future, IProgressMonitor monitor)
+			throws ExecutionException {
+		while (true) {
+			if (monitor.isCanceled()) {
+				future.cancel(true);
+				throw new OperationCanceledException();
+			}
+			try {
+				return future.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check monitor again
+			} catch (InterruptedException e) {
+				future.cancel(true);
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+		}
+	}
+
+	/**
+	 * Ask a process and its descendants to terminate and kill whatever didn't
+	 * after {@value #DESTROY_TIMEOUT} ms. Descendants are signalled directly,
+	 * since wrappers like consolehelper don't pass signals on and the children
+	 * of rpmbuild (e.g. make) would be orphaned otherwise. Descendants are
+	 * remembered along with their start times, so a process which reused the
+	 * ID of one that exited meanwhile isn't signalled. If the ID of the process
+	 * can't be determined, only the process itself is destroyed.
+	 *
+	 * @param process
+	 *            The process.
+	 */
+	public static void destroy(final Process process) {
+		final long pid = getPid(process);
+		// collect them first, children of a terminated process get reparented
+		final Map<Long, Long> descendants = pid != -1 && process.isAlive()
+				? getDescendants(pid) : Collections.<Long, Long> emptyMap();
+		process.destroy();
+		signal("TERM", getRunning(descendants)); //$NON-NLS-1$
+		Thread killer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Map<Long, Long> remaining = new LinkedHashMap<>(descendants);
+				try {
+					long deadline = System.currentTimeMillis()
+							+ DESTROY_TIMEOUT;
+					if (!process.waitFor(DESTROY_TIMEOUT, TimeUnit.MILLISECONDS)) {
+						if (pid != -1) {
+							remaining.putAll(getDescendants(pid));
+						}
+						process.destroyForcibly();
+					}
+					remaining = getRunning(remaining);
+					while (!remaining.isEmpty()
+							&& System.currentTimeMillis() < deadline) {
+						Thread.sleep(CANCEL_CHECK_INTERVAL);
+						remaining = getRunning(remaining);
+					}
+				} catch (InterruptedException e) {
+					process.destroyForcibly();
+				}
+				signal("KILL", getRunning(remaining)); //$NON-NLS-1$
+			}
+		}, "Process killer"); //$NON-NLS-1$
+		killer.setDaemon(true);
+		killer.start();
+	}
+
+	/**
+	 * @return The ID of a process, or -1 if it can't be determined.
+	 */
+	private static long getPid(Process process) {
+		try {
+			// public API as of Java 9
+			return ((Number) Process.class.getMethod("pid").invoke(process)) //$NON-NLS-1$
+					.longValue();
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Java 8 keeps it in a private field of UNIXProcess
+		}
+		if (!process.getClass().getName().equals("java.lang.UNIXProcess")) { //$NON-NLS-1$
+			return -1;
+		}
+		try {
+			Field pid = process.getClass().getDeclaredField("pid"); //$NON-NLS-1$
+			if (pid.getType() != int.class) {
+				return -1;
+			}
+			pid.setAccessible(true);
+			int value = pid.getInt(process);
+			return value > 0 ? value : -1;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return The start time of a process, in clock ticks after boot, or -1
+	 *         if it isn't running.
+	 */
+	private static long getStartTime(long pid) {
+		String stat;
+		try {
+			stat = new String(Files.readAllBytes(new File("/proc/" + pid //$NON-NLS-1$
+					+ "/stat").toPath()), StandardCharsets.US_ASCII); //$NON-NLS-1$
+		} catch (IOException e) {
+			return -1;
+		}
+		// the command name in field 2 may contain spaces and parentheses
+		String[] fields = stat.substring(stat.lastIndexOf(')') + 1).trim()
+				.split("\\s+"); //$NON-NLS-1$
+		try {
+			// field 22, counting from the pid as field 1
+			return Long.parseLong(fields[22 - 3]);
+		} catch (RuntimeException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return The IDs of all descendants of a process, as listed by
+	 *         {@code /proc}, parents before their children, mapped to their
+	 *         start times. Empty if they can't be determined.
+	 */
+	private static Map<Long, Long> getDescendants(long pid) {
+		Map<Long, Long> descendants = new LinkedHashMap<>();
+		File[] tasks = pid == -1 ? null : new File("/proc/" + pid + "/task") //$NON-NLS-1$ //$NON-NLS-2$
+				.listFiles();
+		if (tasks == null) {
+			return descendants;
+		}
+		for (File task : tasks) {
+			String children;
+			try {
+				children = new String(Files.readAllBytes(new File(task,
+						"children").toPath()), StandardCharsets.US_ASCII); //$NON-NLS-1$
+			} catch (IOException e) {
+				// the task is gone already
+				continue;
+			}
+			for (String child : children.trim().split("\\s+")) { //$NON-NLS-1$
+				if (!child.isEmpty()) {
+					long childPid = Long.parseLong(child);
+					long startTime = getStartTime(childPid);
+					if (startTime != -1) {
+						descendants.put(childPid, startTime);
+						descendants.putAll(getDescendants(childPid));
+					}
+				}
+			}
+		}
+		return descendants;
+	}
+
+	/**
+	 * @param pids
+	 *            Process IDs mapped to the start times of the processes.
+	 * @return Those of the given processes which are still running, i.e. a
+	 *         process with the same ID and start time exists.
+	 */
+	private static Map<Long, Long> getRunning(Map<Long, Long> pids) {
+		Map<Long, Long> running = new LinkedHashMap<>();
+		for (Map.Entry<Long, Long> pid : pids.entrySet()) {
+			if (getStartTime(pid.getKey()) == pid.getValue().longValue()) {
+				running.put(pid.getKey(), pid.getValue());
+			}
+		}
+		return running;
+	}
+
+	/**
+	 * Send a signal to processes using {@code kill}. Processes which are gone
+	 * or belong to another user are skipped by it.
+	 */
+	private static void signal(String signal, Map<Long, Long> pids) {
+		if (pids.isEmpty()) {
+			return;
+		}
+		List<String> command = new ArrayList<>();
+		command.add("kill"); //$NON-NLS-1$
+		command.add("-" + signal); //$NON-NLS-1$
+		for (Long pid : pids.keySet()) {
+			command.add(pid.toString());
+		}
+		try {
+			Process kill = new ProcessBuilder(command).redirectErrorStream(
+					true).start();
+			kill.getOutputStream().close();
+			// the output is a few lines at most
+			kill.waitFor();
+			kill.getInputStream().close();
+		} catch (IOException e) {
+			// nothing left to try
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -10,25 +10,19 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.rpm.internal.core;
 
-import java.util.Observable;
-import java.util.Observer;
-
 import org.fedoraproject.eclipse.packager.rpm.api.RpmBuildResult;
+import org.fedoraproject.eclipse.packager.rpm.internal.core.OutputClassifier.Kind;
 
 /**
- * Observes, what is being printed and filters lines ending with .src.rpm. At
- * the moment this observer is only registered for SRPM builds. A similar thing
- * could be used for more interesting things, but keep in mind that rpmbuild
- * output may produce A LOT of output. Doing some analysis on every line of
- * output may slow down builds quite a bit.
- * 
- * For SRPM builds there isn't really a lot of output (one line), so it should
- * be OK to use it for the SRPM build case.
+ * Observes, what is being printed and filters written artifacts ending with
+ * .src.rpm. At the moment this observer is only registered for SRPM builds.
+ * Lines are already classified by {@link OutputClassifier}, so this is cheap
+ * even for the large output of binary builds.
  * 
  * @see ConsoleWriter
  * 
  */
-public class RpmConsoleFilterObserver implements Observer {
+public class RpmConsoleFilterObserver implements OutputListener {
 	
 	
 	/**
@@ -49,14 +43,10 @@ public class RpmConsoleFilterObserver implements Observer {
 	 * Does the filtering of relevant lines.
 	 */
 	@Override
-	public void update(Observable obj, Object arg) {
-		if (arg instanceof String) {
-			String line = (String) arg;
-			if (line.endsWith(SRPM_SUFFIX)) {
-				result.addSrpm(line);
-			}
-        }
-
+	public void outputLine(String line, Kind kind) {
+		if (kind == Kind.WROTE_ARTIFACT && line.endsWith(SRPM_SUFFIX)) {
+			result.addSrpm(line);
+		}
 	}
 
 }
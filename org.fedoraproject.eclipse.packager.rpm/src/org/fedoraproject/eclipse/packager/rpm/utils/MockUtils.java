@@ -1,9 +1,7 @@
 package org.fedoraproject.eclipse.packager.rpm.utils;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.Observer;
 
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
@@ -21,6 +19,7 @@ import org.fedoraproject.eclipse.packager.rpm.api.FedoraPackagerConsole;
 import org.fedoraproject.eclipse.packager.rpm.api.errors.MockBuildCommandException;
 import org.fedoraproject.eclipse.packager.rpm.api.errors.UserNotInMockGroupException;
 import org.fedoraproject.eclipse.packager.rpm.internal.core.ConsoleWriter;
+import org.fedoraproject.eclipse.packager.rpm.internal.core.OutputListener;
 
 /**
  * Utility class for Mock-related things.
@@ -72,40 +71,72 @@ public class MockUtils {
 	 * @throws CoreException
 	 * 	           If the given file does not have a valid URI.
 	 */
-	public static int runCommand(String[] command, String packageName, Observer[] observers,
+	public static int runCommand(String[] command, String packageName, OutputListener[] observers,
 			File location) throws IOException, InterruptedException, CoreException {
-		
+		Process child = startCommand(command, location);
+		try {
+			writeToConsole(child, packageName,
+					new File(command[0]).getName(), observers);
+			return child.waitFor();
+		} catch (InterruptedException e) {
+			child.destroy();
+			throw e;
+		}
+	}
+
+	/**
+	 * Start a command on the system.
+	 *
+	 * @param command
+	 *            The command to be run.
+	 * @param location
+	 *            The location on the system on which to run the command.
+	 * @return The started process.
+	 * @throws IOException
+	 *             If the command running process cannot be built.
+	 * @throws CoreException
+	 *             If the given file does not have a valid URI.
+	 */
+	public static Process startCommand(String[] command, File location)
+			throws IOException, CoreException {
 		IFileStore fileStore = null;
 		
 		if (location != null)
 			fileStore = EFS.getStore(location.toURI());
 
-		Process child = RuntimeProcessFactory.getFactory().exec(command, null, fileStore, null);
+		return RuntimeProcessFactory.getFactory().exec(command, null, fileStore, null);
+	}
 
-		try {
-			BufferedInputStream is = new BufferedInputStream(
-					child.getInputStream());
-			final MessageConsole console = FedoraPackagerConsole.getConsole(packageName);
-			IConsoleManager manager = ConsolePlugin.getDefault()
-					.getConsoleManager();
-			manager.addConsoles(new IConsole[] { console });
-			console.activate();
+	/**
+	 * Copy the output of a process to the console of a package until the
+	 * process closes it.
+	 *
+	 * @param child
+	 *            The process.
+	 * @param packageName
+	 *            The name of the package(SRPM).
+	 * @param buildName
+	 *            The kind of build, naming the build log of the output.
+	 * @param observers
+	 *            Observers of the output lines.
+	 */
+	public static void writeToConsole(Process child, String packageName,
+			String buildName, OutputListener[] observers) {
+		final MessageConsole console = FedoraPackagerConsole.getConsole(packageName);
+		IConsoleManager manager = ConsolePlugin.getDefault()
+				.getConsoleManager();
+		manager.addConsoles(new IConsole[] { console });
+		console.activate();
 
-			final MessageConsoleStream outStream = console.newMessageStream();
-			ConsoleWriter worker = new ConsoleWriter(is, outStream);
-			Thread consoleWriterThread = new Thread(worker);
+		final MessageConsoleStream outStream = console.newMessageStream();
+		ConsoleWriter worker = new ConsoleWriter(child, outStream);
+		worker.logTo(packageName, buildName);
 
-			// Observe what is printed on the console and update status in
-			// prog monitor.
-			for (Observer observer : observers) {
-				worker.addObserver(observer);
-			}
-			consoleWriterThread.start();
-			consoleWriterThread.join();
-		} catch (InterruptedException e) {
-			child.destroy();
-			throw e;
+		// Observe what is printed on the console and update status in
+		// prog monitor.
+		for (OutputListener observer : observers) {
+			worker.addListener(observer);
 		}
-		return child.waitFor();
+		worker.run();
 	}
 }
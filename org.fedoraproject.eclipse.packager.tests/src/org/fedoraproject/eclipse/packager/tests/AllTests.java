@@ -27,11 +27,14 @@ import org.junit.runners.Suite.SuiteClasses;
 	// Auxiliary plug-in tests
 	GitFpBitsTest.class,
 	SourcesFileTest.class,
+	ChecksumUtilsTest.class,
+	ChecksumCacheTest.class,
 	SourcesFileUpdaterTest.class,
 	FedoraSSLTest.class,
 	FedoraPackagerGitCloneOperationTest.class,
 	FedoraProjectRootTest.class,
 	FedoraPackagerUtilsTest.class,
+	RPMUtilsTest.class,
 	FedoraPackagerLoggerTest.class,
 	FedoraPackagerTest.class
 })
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.fedoraproject.eclipse.packager.utils.ChecksumCache;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the persistent checksum cache, {@link ChecksumCache}.
+ */
+public class ChecksumCacheTest {
+
+	// MD5 of "Test Checksum\n"
+	private static final String MD5 = "c4f94c2fe892ee0fa41f91352b64adf5"; //$NON-NLS-1$
+
+	private File tempFile;
+	private File storeFile;
+
+	@Before
+	public void setUp() throws IOException {
+		tempFile = File.createTempFile("eclipse-fedorapackager-cachetest", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		writeContents("Test Checksum\n"); //$NON-NLS-1$
+		storeFile = File.createTempFile("eclipse-fedorapackager-cachestore", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		storeFile.delete();
+	}
+
+	@After
+	public void tearDown() {
+		tempFile.delete();
+		storeFile.delete();
+	}
+
+	@Test
+	public void canDetectChangedFile() throws IOException {
+		ChecksumCache cache = new ChecksumCache(10);
+		assertEquals(MD5, cache.getChecksum(tempFile, Algorithm.MD5));
+		writeContents("Changed contents\n"); //$NON-NLS-1$
+		assertTrue(!MD5.equals(cache.getChecksum(tempFile, Algorithm.MD5)));
+	}
+
+	@Test
+	public void canPersistChecksums() throws IOException {
+		ChecksumCache cache = new ChecksumCache(10);
+		cache.load(storeFile);
+		// record a fake checksum, a hit proves the file was not hashed again
+		cache.putChecksum(tempFile, Algorithm.MD5, "cached"); //$NON-NLS-1$
+		cache.save();
+		assertTrue(storeFile.exists());
+
+		ChecksumCache reloaded = new ChecksumCache(10);
+		reloaded.load(storeFile);
+		assertEquals("cached", reloaded.getChecksum(tempFile, Algorithm.MD5)); //$NON-NLS-1$
+	}
+
+	private void writeContents(String contents) throws IOException {
+		try (FileOutputStream out = new FileOutputStream(tempFile)) {
+			out.write(contents.getBytes());
+		}
+	}
+}
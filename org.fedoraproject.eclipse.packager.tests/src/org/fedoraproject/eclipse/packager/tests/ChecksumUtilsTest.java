@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.Map;
+
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the streaming checksum calculation, {@link ChecksumUtils}.
+ */
+public class ChecksumUtilsTest {
+
+	// MD5 and SHA-512 of "Test Checksum\n"
+	private static final String MD5 = "c4f94c2fe892ee0fa41f91352b64adf5"; //$NON-NLS-1$
+	private static final String SHA512 = "fd88412a972b615e61faaad1b4adcbf050ab524b814f30b7132956646debefc7387e8c1beff96fde961949bcf6e5a5c6e74254eeb82fc108902d1c91f864e352"; //$NON-NLS-1$
+
+	private File tempFile;
+
+	@Before
+	public void setUp() throws IOException {
+		tempFile = File.createTempFile("eclipse-fedorapackager-checksumtest", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		try (FileOutputStream out = new FileOutputStream(tempFile)) {
+			out.write("Test Checksum\n".getBytes()); //$NON-NLS-1$
+		}
+	}
+
+	@After
+	public void tearDown() {
+		tempFile.delete();
+	}
+
+	@Test
+	public void canCalculateSingleChecksum() throws IOException {
+		assertEquals(MD5, ChecksumUtils.calculate(tempFile, Algorithm.MD5));
+		assertEquals(SHA512,
+				ChecksumUtils.calculate(tempFile, Algorithm.SHA512));
+	}
+
+	@Test
+	public void canCalculateChecksumsInOnePass() throws IOException {
+		Map<Algorithm, String> checksums = ChecksumUtils.calculate(tempFile,
+				EnumSet.allOf(Algorithm.class));
+		assertEquals(2, checksums.size());
+		assertEquals(MD5, checksums.get(Algorithm.MD5));
+		assertEquals(SHA512, checksums.get(Algorithm.SHA512));
+	}
+
+	@Test
+	public void canCalculateChecksumOfLargeFile() throws IOException,
+			NoSuchAlgorithmException {
+		// larger than the internal buffer, not a multiple of its size
+		byte[] block = new byte[100 * 1024 + 17];
+		try (FileOutputStream out = new FileOutputStream(tempFile)) {
+			for (int i = 0; i < 5; i++) {
+				out.write(block);
+			}
+		}
+		byte[] all = new byte[block.length * 5];
+		String expected = String.format("%032x", new BigInteger(1, //$NON-NLS-1$
+				MessageDigest.getInstance("MD5").digest(all))); //$NON-NLS-1$
+		assertEquals(expected, ChecksumUtils.calculate(tempFile, Algorithm.MD5));
+	}
+
+	@Test
+	public void canMatchChecksums() throws IOException {
+		assertTrue(ChecksumUtils.matches(tempFile, MD5));
+		assertTrue(ChecksumUtils.matches(tempFile, SHA512.toUpperCase()));
+		assertFalse(ChecksumUtils.matches(tempFile,
+				"20a16942e761f9281591891834997fe5")); //$NON-NLS-1$
+		assertFalse(ChecksumUtils.matches(tempFile, "bogus")); //$NON-NLS-1$
+		assertNull(Algorithm.forChecksum("bogus")); //$NON-NLS-1$
+	}
+}
@@ -11,10 +11,13 @@
 package org.fedoraproject.eclipse.packager.tests;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -139,6 +142,25 @@ public class FedoraPackagerUtilsTest {
 		assertNotNull(fproot);
 		IFpProjectBits projectBits = FedoraPackagerUtils.getVcsHandler(fproot);
 		assertTrue(projectBits instanceof FpGitProjectBits);
+		assertSame(projectBits, FedoraPackagerUtils.getVcsHandler(fproot));
+	}
+
+	@Test
+	public void testProjectRootIsCachedUntilChanged() throws CoreException,
+			InvalidProjectRootException {
+		IProjectRoot fpRoot = FedoraPackagerUtils
+				.getProjectRoot(packagerProject);
+		assertSame(fpRoot, FedoraPackagerUtils.getProjectRoot(packagerProject));
+		// any resource in the project resolves to the same root
+		assertSame(fpRoot, FedoraPackagerUtils.getProjectRoot(fpRoot
+				.getSpecFile()));
+		IFile sources = packagerProject.getFile(SourcesFile.SOURCES_FILENAME);
+		sources.setContents(new ByteArrayInputStream(new byte[0]), true,
+				false, null);
+		IProjectRoot changedRoot = FedoraPackagerUtils
+				.getProjectRoot(packagerProject);
+		assertNotSame(fpRoot, changedRoot);
+		assertTrue(changedRoot.getSourcesFile().getSources().isEmpty());
 	}
 
 }
@@ -12,9 +12,12 @@ package org.fedoraproject.eclipse.packager.tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -146,6 +149,36 @@ public class FedoraProjectRootTest {
 		assertEquals(PACKAGE_NAME, specModel.getName());
 	}
 
+	@Test
+	public void testSpecfileModelIsCachedUntilChanged() throws CoreException {
+		Specfile specModel = fpRoot.getSpecfileModel();
+		// other roots of the same project share the parsed model
+		IProjectRoot otherRoot = new FedoraProjectRoot();
+		otherRoot.initialize(projectResource);
+		assertSame(specModel, otherRoot.getSpecfileModel());
+		IFile specFile = fpRoot.getSpecFile();
+		String content = "Name: " + PACKAGE_NAME + "\nVersion: 2.0\n";
+		specFile.setContents(new ByteArrayInputStream(content.getBytes()),
+				true, false, null);
+		Specfile changedModel = fpRoot.getSpecfileModel();
+		assertNotSame(specModel, changedModel);
+		assertEquals("2.0", changedModel.getVersion());
+	}
+
+	@Test
+	public void testUnreadableSpecfileIsNotCached() {
+		IFile specFile = fpRoot.getSpecFile();
+		File file = specFile.getLocation().toFile();
+		long lastModified = file.lastModified();
+		File moved = new File(file.getPath() + ".moved");
+		// gone behind the workspace's back, so the stamp stays the same
+		assertTrue(file.renameTo(moved));
+		assertNull(fpRoot.getSpecfileModel().getName());
+		assertTrue(moved.renameTo(file));
+		assertTrue(file.setLastModified(lastModified));
+		assertEquals(PACKAGE_NAME, fpRoot.getSpecfileModel().getName());
+	}
+
 	@Test
 	public void testGetProjectType() throws InterruptedException,
 			InvalidProjectRootException {
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.fedoraproject.eclipse.packager.utils.RPMUtils;
+import org.junit.Test;
+
+/**
+ * Tests for the batched rpm queries of {@link RPMUtils}.
+ */
+public class RPMUtilsTest {
+
+	/**
+	 * Answer a query the way rpm does, for the main package and a
+	 * sub-package.
+	 */
+	private static String answer(String format, Map<String, String> main,
+			Map<String, String> sub) {
+		StringBuilder output = new StringBuilder();
+		for (Map<String, String> values : Arrays.asList(main, sub)) {
+			String record = format;
+			for (Map.Entry<String, String> value : values.entrySet()) {
+				record = record.replace("%{" + value.getKey() + "}",
+						value.getValue());
+			}
+			output.append(record);
+		}
+		return output.toString();
+	}
+
+	@Test
+	public void testQueryOutputIsParsedByTag() throws IOException {
+		Map<String, String> main = new LinkedHashMap<>();
+		main.put("NAME", "example");
+		main.put("PACKAGER", "");
+		main.put("DESCRIPTION", "First line\nsecond line\n");
+		main.put("CHANGELOGTEXT", "- fix one\n- fix two");
+		main.put("VERSION", "1.0");
+		Map<String, String> sub = new LinkedHashMap<>();
+		for (String tag : main.keySet()) {
+			sub.put(tag, "sub-" + tag);
+		}
+
+		String format = RPMUtils.getQueryFormat(main.keySet());
+		Map<String, String> values = RPMUtils.parseQueryOutput(
+				answer(format, main, sub), main.keySet());
+		assertEquals("only the main package is read", main, values);
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnexpectedOutputIsReported() throws IOException {
+		// rpm reporting an error instead of the values
+		RPMUtils.parseQueryOutput("error: bad spec\n",
+				Arrays.asList("NAME", "VERSION", "RELEASE"));
+	}
+}
@@ -19,8 +19,12 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 
 import org.eclipse.core.resources.IFile;
@@ -197,13 +201,55 @@ public class SourcesFileTest {
 		final String expectedContent = preString + newFileChecksum + "  " + newFileName; 
 	
 		// Add new content
-		sources.put(newFileName, newFileChecksum);
-		sourcesFile.setSources(sources);
-		sourcesFile.save();
+		sourcesFile.edit().add(newFileName, newFileChecksum).commit();
 		
 		final String actualAfterSave = TestsUtils.readContents(s);
 		assertNotSame(sourcesFileContentPre, actualAfterSave);
 		assertEquals(expectedContent, actualAfterSave);
+		assertEquals(newFileChecksum, sourcesFile.getCheckSum(newFileName));
+	}
+
+	@Test
+	public void testEdit() throws IOException, CoreException {
+		File s = new File(tempProject.getLocation().toFile().getAbsolutePath()
+				+ File.separatorChar + SourcesFile.SOURCES_FILENAME);
+		Map<String, String> before = sourcesFile.getSources();
+		SourcesFile.Edit edit = sourcesFile.edit()
+				.add("newSource.tar", "52e7ac2eb10d1494ceb96d0cd73d33e0")
+				.remove(ORIG_SOURCE);
+		// nothing changes before the commit
+		assertEquals(before, sourcesFile.getSources());
+		edit.commit();
+		assertEquals(1, sourcesFile.getSources().size());
+		assertEquals("52e7ac2eb10d1494ceb96d0cd73d33e0",
+				sourcesFile.getCheckSum("newSource.tar"));
+		assertEquals("52e7ac2eb10d1494ceb96d0cd73d33e0  newSource.tar",
+				TestsUtils.readContents(s));
+		// the old snapshot stays untouched
+		assertEquals(ORIG_CHECKSUM, before.get(ORIG_SOURCE));
+
+		Map<String, String> replacement = new HashMap<>();
+		replacement.put("newSource2.tar", "52e6ac2eb10d1494ceb96d0cd73d33e0");
+		sourcesFile.edit().replace(replacement).commit();
+		assertEquals(replacement, sourcesFile.getSources());
+	}
+
+	@Test
+	public void testEditKeepsPermissions() throws IOException, CoreException {
+		File s = new File(tempProject.getLocation().toFile().getAbsolutePath()
+				+ File.separatorChar + SourcesFile.SOURCES_FILENAME);
+		Set<PosixFilePermission> permissions = PosixFilePermissions
+				.fromString("rw-rw-r--");
+		Files.setPosixFilePermissions(s.toPath(), permissions);
+		sourcesFile.edit().add("newSource.tar",
+				"52e7ac2eb10d1494ceb96d0cd73d33e0").commit();
+		assertEquals(permissions, Files.getPosixFilePermissions(s.toPath()));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSourcesAreImmutable() {
+		sourcesFile.getSources().put("newSource.tar",
+				"52e7ac2eb10d1494ceb96d0cd73d33e0");
 	}
 
 }
@@ -17,17 +17,23 @@ import static org.easymock.EasyMock.createStrictMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Stack;
 
 import org.apache.http.HttpEntity;
@@ -36,6 +42,7 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.easymock.IAnswer;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.IPath;
@@ -51,6 +58,7 @@ import org.fedoraproject.eclipse.packager.api.UploadSourceResult;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerAPIException;
 import org.fedoraproject.eclipse.packager.api.errors.FileAvailableInLookasideCacheException;
 import org.fedoraproject.eclipse.packager.api.errors.InvalidUploadFileException;
+import org.fedoraproject.eclipse.packager.api.errors.UploadFailedException;
 import org.fedoraproject.eclipse.packager.tests.units.UploadFileValidityTest;
 import org.fedoraproject.eclipse.packager.tests.utils.MockableUploadSourceCommand;
 import org.fedoraproject.eclipse.packager.tests.utils.TestsUtils;
@@ -124,6 +132,25 @@ public class UploadSourceCommandTest {
 		uploadCmd.setUploadURL("very bad url");
 	}
 
+	/**
+	 * The upload URL of a command must not leak into the lookaside cache of the
+	 * shared project root.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void uploadURLDoesNotChangeLookasideCache() throws Exception {
+		IProjectRoot root = FedoraPackagerUtils.getProjectRoot(testProject
+				.getProject());
+		UploadSourceCommand uploadCmd = (UploadSourceCommand) new FedoraPackager(
+				root).getCommandInstance(UploadSourceCommand.ID);
+		String lookasideUploadUrl = root.getLookAsideCache().getUploadUrl()
+				.toString();
+		uploadCmd.setUploadURL("http://example.com/cgi-bin/upload.cgi");
+		assertEquals(lookasideUploadUrl, root.getLookAsideCache()
+				.getUploadUrl().toString());
+	}
+
 	/**
 	 * Uploading sources in Fedora entails two requests. First a POST is fired
 	 * with filename and MD5 as parameters and the server returns if the
@@ -286,6 +313,128 @@ public class UploadSourceCommandTest {
 				+ newUploadFile.getName(), lastLine);
 	}
 
+	/**
+	 * A batch upload checks all files, uploads the missing ones and updates
+	 * the {@code sources} file with all of them.
+	 */
+	@Test
+	public void canUploadSourcesInBatch() throws IOException,
+			FedoraPackagerAPIException {
+		File firstUploadFile = File.createTempFile(
+				"eclipse-fedorapackager-uploadsources-test-", "-REMOVE_ME.tar");
+		File secondUploadFile = File.createTempFile(
+				"eclipse-fedorapackager-uploadsources-test-", "-REMOVE_ME.tar");
+		tempFilesAndDirectories.push(firstUploadFile);
+		tempFilesAndDirectories.push(secondUploadFile);
+		writeRandomContentToFile(firstUploadFile);
+		writeRandomContentToFile(secondUploadFile);
+		List<File> uploadFiles = Arrays.asList(firstUploadFile,
+				secondUploadFile);
+		File sourcesFile = new File(testProject.getProject().getLocation()
+				.toFile().getAbsolutePath()
+				+ File.separatorChar + SourcesFile.SOURCES_FILENAME);
+		IProjectRoot root = FedoraPackagerUtils.getProjectRoot(testProject
+				.getProject());
+
+		MockableUploadSourceCommand uploadCmd = (MockableUploadSourceCommand) packager
+				.getCommandInstance(MockableUploadSourceCommand.ID);
+		CloseableHttpClient mockClient = createNiceMock(CloseableHttpClient.class);
+		CloseableHttpResponse mockResponse = createNiceMock(CloseableHttpResponse.class);
+		StatusLine mockStatus = createNiceMock(StatusLine.class);
+		HttpEntity mockEntity = createNiceMock(HttpEntity.class);
+		// two availability checks and two uploads
+		expect(mockClient.execute((HttpUriRequest) anyObject())).andReturn(
+				mockResponse).times(4);
+		expect(mockResponse.getStatusLine()).andReturn(mockStatus).anyTimes();
+		expect(mockStatus.getStatusCode()).andReturn(HttpURLConnection.HTTP_OK)
+				.anyTimes();
+		expect(mockResponse.getEntity()).andReturn(mockEntity).anyTimes();
+		// concurrent requests need a fresh response body each
+		expect(mockEntity.getContent()).andAnswer(new IAnswer<InputStream>() {
+			@Override
+			public InputStream answer() {
+				return new ByteArrayInputStream(
+						UploadSourceCommand.RESOURCE_MISSING.getBytes());
+			}
+		}).anyTimes();
+		replay(mockClient);
+		replay(mockResponse);
+		replay(mockStatus);
+		replay(mockEntity);
+		uploadCmd.setClient(mockClient);
+		uploadCmd.setFilesToUpload(uploadFiles);
+		uploadCmd.setUploadURL(uploadURLForTesting);
+		uploadCmd.addCommandListener(new SourcesFileUpdater(root, uploadFiles));
+		UploadSourceResult result = uploadCmd.call(new NullProgressMonitor());
+		assertNotNull(result);
+		assertTrue(result.isSuccessful());
+		assertArrayEquals(uploadFiles.toArray(), result.getUploadedFiles()
+				.toArray());
+		assertTrue(result.getAvailableFiles().isEmpty());
+		verify(mockClient);
+		final String sourceContentPost = TestsUtils.readContents(sourcesFile);
+		assertTrue(sourceContentPost.contains(firstUploadFile.getName()));
+		assertTrue(sourceContentPost.contains(secondUploadFile.getName()));
+	}
+
+	/**
+	 * An upload rejected by the lookaside cache fails the batch and leaves the
+	 * {@code sources} file alone.
+	 */
+	@Test
+	public void batchUploadFailsOnRejectedUpload() throws IOException,
+			FedoraPackagerAPIException {
+		File uploadFile = File.createTempFile(
+				"eclipse-fedorapackager-uploadsources-test-", "-REMOVE_ME.tar");
+		tempFilesAndDirectories.push(uploadFile);
+		writeRandomContentToFile(uploadFile);
+		List<File> uploadFiles = Arrays.asList(uploadFile);
+		File sourcesFile = new File(testProject.getProject().getLocation()
+				.toFile().getAbsolutePath()
+				+ File.separatorChar + SourcesFile.SOURCES_FILENAME);
+		IProjectRoot root = FedoraPackagerUtils.getProjectRoot(testProject
+				.getProject());
+
+		MockableUploadSourceCommand uploadCmd = (MockableUploadSourceCommand) packager
+				.getCommandInstance(MockableUploadSourceCommand.ID);
+		CloseableHttpClient mockClient = createNiceMock(CloseableHttpClient.class);
+		CloseableHttpResponse mockResponse = createNiceMock(CloseableHttpResponse.class);
+		StatusLine mockStatus = createNiceMock(StatusLine.class);
+		HttpEntity mockEntity = createNiceMock(HttpEntity.class);
+		expect(mockClient.execute((HttpUriRequest) anyObject())).andReturn(
+				mockResponse).times(2);
+		expect(mockResponse.getStatusLine()).andReturn(mockStatus).anyTimes();
+		// the availability check passes, the upload gets rejected
+		expect(mockStatus.getStatusCode()).andReturn(HttpURLConnection.HTTP_OK)
+				.once().andReturn(HttpURLConnection.HTTP_INTERNAL_ERROR)
+				.anyTimes();
+		expect(mockResponse.getEntity()).andReturn(mockEntity).anyTimes();
+		expect(mockEntity.getContent()).andAnswer(new IAnswer<InputStream>() {
+			@Override
+			public InputStream answer() {
+				return new ByteArrayInputStream(
+						UploadSourceCommand.RESOURCE_MISSING.getBytes());
+			}
+		}).anyTimes();
+		replay(mockClient);
+		replay(mockResponse);
+		replay(mockStatus);
+		replay(mockEntity);
+		uploadCmd.setClient(mockClient);
+		uploadCmd.setFilesToUpload(uploadFiles);
+		uploadCmd.setUploadURL(uploadURLForTesting);
+		uploadCmd.addCommandListener(new SourcesFileUpdater(root, uploadFiles));
+		try {
+			uploadCmd.call(new NullProgressMonitor());
+			fail("Rejected upload should fail the batch");
+		} catch (UploadFailedException e) {
+			assertTrue(e.getMessage().contains(uploadFile.getName()));
+		}
+		verify(mockClient);
+		assertFalse(TestsUtils.readContents(sourcesFile).contains(
+				uploadFile.getName()));
+	}
+
 	/**
 	 * When setting the upload file it should throw InvalidUploadFileException
 	 * if the file name is not valid. Other upload file validity test are tested
@@ -39,6 +39,14 @@ public final class FedoraPackagerPreferencesConstants {
 	public static final String PREF_CLONE_BASE_URL = "gitCloneBaseURL"; //$NON-NLS-1$
 	/**@since 0.5*/
 	public static final String PREF_KOJI_SERVER_INFO = "kojiServerInfo"; //$NON-NLS-1$
+	/**@since 0.5*/
+	public static final String PREF_DOWNLOAD_CONCURRENCY = "downloadConcurrency"; //$NON-NLS-1$
+	/**@since 0.5*/
+	public static final String PREF_LOOKASIDE_STORE_QUOTA = "lookasideStoreQuota"; //$NON-NLS-1$
+	/**@since 0.5*/
+	public static final String PREF_UPLOAD_BANDWIDTH_LIMIT = "uploadBandwidthLimit"; //$NON-NLS-1$
+	/**@since 0.5*/
+	public static final String PREF_CONSOLE_LINE_LIMIT = "consoleLineLimit"; //$NON-NLS-1$
 
 	/*
 	 * ------------------------------------------------- Default values for preferences
@@ -77,4 +85,24 @@ public final class FedoraPackagerPreferencesConstants {
 	 * @since 0.5
 	 */
 	public static final String DEFAULT_CLONE_BASE_URL = "pkgs.fedoraproject.org/"; //$NON-NLS-1$
+	/**
+	 * Default number of sources downloaded in parallel
+	 * @since 0.5
+	 */
+	public static final int DEFAULT_DOWNLOAD_CONCURRENCY = 4;
+	/**
+	 * Default size of the local lookaside store in MiB
+	 * @since 0.5
+	 */
+	public static final int DEFAULT_LOOKASIDE_STORE_QUOTA = 10240;
+	/**
+	 * Default upload rate limit in KiB/s, 0 for unlimited
+	 * @since 0.5
+	 */
+	public static final int DEFAULT_UPLOAD_BANDWIDTH_LIMIT = 0;
+	/**
+	 * Default number of lines kept in a build console
+	 * @since 0.5
+	 */
+	public static final int DEFAULT_CONSOLE_LINE_LIMIT = 20000;
 }
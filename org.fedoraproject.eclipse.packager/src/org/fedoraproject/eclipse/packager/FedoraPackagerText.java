@@ -42,6 +42,11 @@ public class FedoraPackagerText extends NLS {
 	/****/ public static String UploadSourceCommand_uploadFileUnspecified;
 	/****/ public static String UploadSourceCommand_uploadFileInvalid;
 	/****/ public static String UploadSourceCommand_uploadingFileSubTaskName;
+	/****/ public static String UploadSourceCommand_uploadingFilesTaskName;
+	/****/ public static String UploadSourceCommand_checkingFilesSubTaskName;
+	/****/ public static String UploadSourceCommand_uploadInterrupted;
+	// UploadSourceResult
+	/****/ public static String UploadSourceResult_fileErrorMsg;
 	// FileAvailableInLookasideCacheException
 	/****/ public static String FileAvailableInLookasideCacheException_message;
 	// DownloadSourceCommand
@@ -51,9 +56,20 @@ public class FedoraPackagerText extends NLS {
 	/****/ public static String DownloadSourceCommand_invalidURL;
 	/****/ public static String DownloadSourceCommand_downloadingFileXofY;
 	/****/ public static String DownloadSourceCommand_downloadFileErrorNotInLookaside;
+	/****/ public static String DownloadSourceCommand_downloadInterrupted;
+	/****/ public static String DownloadSourceCommand_checksumMismatch;
+	// SegmentedDownload
+	/****/ public static String SegmentedDownload_unexpectedResponse;
+	// LocalLookasideStore
+	/****/ public static String LocalLookasideStore_retrieveFailedMsg;
+	/****/ public static String LocalLookasideStore_addFailedMsg;
+	/****/ public static String LocalLookasideStore_saveIndexFailedMsg;
 	// SourcesFile
 	/****/ public static String SourcesFile_saveFailedMsg;
-	/****/ public static String SourcesFile_saveJob;
+	/****/ public static String SourcesFile_checksumFailedMsg;
+	// ChecksumCache
+	/****/ public static String ChecksumCache_loadFailedMsg;
+	/****/ public static String ChecksumCache_saveFailedMsg;
 	// FedoraSSL
 	/****/ public static String FedoraSSL_certificatesMissingError;
 	// FedoraPackagerUtils
@@ -61,6 +77,7 @@ public class FedoraPackagerText extends NLS {
 	/****/ public static String FedoraPackagerUtils_invalidContainerOrProjectType;
 	/****/ public static String FedoraPackagerUtils_cannotEvalPackageName;
 	/****/ public static String FedoraPackagerUtils_cannotEvalChangelog;
+	/****/ public static String RPMUtils_unexpectedQueryOutput;
 	// UnpushedChangesListener
 	/****/ public static String UnpushedChangesListener_checkUnpushedChangesMsg;
 	/****/ public static String UnpushedChangesListener_unpushedChangesError;
@@ -81,6 +98,10 @@ public class FedoraPackagerText extends NLS {
 	// FedoraPackagerPreferencesPage
 	/****/ public static String FedoraPackagerPreferencePage_lookasideUploadURLLabel;
 	/****/ public static String FedoraPackagerPreferencePage_lookasideDownloadURLLabel;
+	/****/ public static String FedoraPackagerPreferencePage_downloadConcurrencyLabel;
+	/****/ public static String FedoraPackagerPreferencePage_localStoreQuotaLabel;
+	/****/ public static String FedoraPackagerPreferencePage_uploadBandwidthLimitLabel;
+	/****/ public static String FedoraPackagerPreferencePage_consoleLineLimitLabel;
 	/****/ public static String FedoraPackagerPreferencePage_description;
 	/****/ public static String FedoraPackagerPreferencePage_invalidDownloadURLMsg;
 	/****/ public static String FedoraPackagerPreferencePage_invalidUploadURLMsg;
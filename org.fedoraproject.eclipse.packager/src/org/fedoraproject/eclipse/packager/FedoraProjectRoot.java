@@ -10,9 +10,6 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -24,12 +21,10 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.QualifiedName;
-import org.eclipse.jface.text.Document;
 import org.eclipse.linuxtools.rpm.core.utils.RPMQuery;
-import org.eclipse.linuxtools.rpm.ui.editor.markers.SpecfileErrorHandler;
 import org.eclipse.linuxtools.rpm.ui.editor.parser.Specfile;
 import org.eclipse.linuxtools.rpm.ui.editor.parser.SpecfilePackage;
-import org.eclipse.linuxtools.rpm.ui.editor.parser.SpecfileParser;
+import org.fedoraproject.eclipse.packager.internal.utils.SpecfileModelCache;
 
 /**
  * This class is representing a root directory for a Fedora package in a given
@@ -113,25 +108,13 @@ public class FedoraProjectRoot implements IProjectRoot {
 		return null;
 	}
 
+	/**
+	 * The model is parsed only once per change of the spec file and shared
+	 * by all callers, so it must not be modified.
+	 */
 	@Override
 	public Specfile getSpecfileModel() {
-		SpecfileParser parser = new SpecfileParser();
-		StringBuilder sb = new StringBuilder();
-		String line = null;
-		try {
-			BufferedReader reader = new BufferedReader(new InputStreamReader(
-					getSpecFile().getContents()));
-			while ((line = reader.readLine()) != null) {
-				sb.append(line + "\n"); //$NON-NLS-1$
-			}
-		} catch (IOException e) {
-			logger.logError(FedoraPackagerText.FedoraProjectRoot_failureReadingFromFile, e);
-		} catch (CoreException e) {
-			logger.logError(FedoraPackagerText.FedoraProjectRoot_invalidResource, e);
-		}
-		parser.setErrorHandler(new SpecfileErrorHandler(getSpecFile(), new Document(sb.toString())));
-		Specfile specfile = parser.parse(sb.toString());
-		return specfile;
+		return SpecfileModelCache.getInstance().getModel(getSpecFile());
 	}
 
 	@Override
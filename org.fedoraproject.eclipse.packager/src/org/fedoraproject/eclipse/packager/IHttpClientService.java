@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * OSGi service providing HTTP clients for the lookaside cache, Bodhi and Koji.
+ * Clients created for the same {@link SslPolicy} share a pool of keep-alive
+ * connections and one SSL context, so repeated requests to the same host skip
+ * both the TCP and the TLS handshake. Idle connections are evicted in the
+ * background.
+ *
+ * @since 0.5
+ */
+public interface IHttpClientService {
+
+	/**
+	 * How server certificates are verified and whether a client certificate
+	 * is presented.
+	 */
+	public enum SslPolicy {
+		/** Default JVM trust store, no client certificate. */
+		DEFAULT,
+		/** Accept all server certificates and host names. */
+		TRUST_ALL,
+		/**
+		 * Authenticate with the user's Fedora client certificate, see
+		 * {@link FedoraSSL}.
+		 */
+		FEDORA_CERT
+	}
+
+	/**
+	 * Create a client using the connection pool of the given policy. Clients
+	 * are cheap and keep their own state such as cookies. Closing a client
+	 * does not close the pooled connections.
+	 *
+	 * @param policy
+	 *            The SSL policy to use.
+	 * @return A client backed by the shared connection pool.
+	 * @throws FileNotFoundException
+	 *             If the Fedora certificates are missing.
+	 * @throws GeneralSecurityException
+	 *             If the SSL context could not be set up.
+	 * @throws IOException
+	 *             If the certificates could not be read.
+	 */
+	public CloseableHttpClient createClient(SslPolicy policy)
+			throws GeneralSecurityException, IOException;
+}
@@ -15,6 +15,11 @@ import org.eclipse.core.runtime.preferences.ConfigurationScope;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
+import org.fedoraproject.eclipse.packager.internal.utils.PackagerExtensionRegistry;
+import org.fedoraproject.eclipse.packager.internal.utils.SpecfileModelCache;
+import org.fedoraproject.eclipse.packager.internal.utils.httpclient.PooledHttpClientService;
+import org.fedoraproject.eclipse.packager.utils.ChecksumCache;
+import org.fedoraproject.eclipse.packager.utils.ProjectRootCache;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -41,11 +46,17 @@ public class PackagerPlugin extends AbstractUIPlugin {
 	/** Qualified name for the type property */
 	public static final QualifiedName PROJECT_PROP = new QualifiedName(PLUGIN_ID, PROJECT_KEY);
 
+	// File in the state location holding the persisted checksum cache
+	private static final String CHECKSUM_CACHE_FILENAME = "checksums.cache"; //$NON-NLS-1$
+
 	/** Local type for persistent property types */
 	public static final String PROJECT_LOCAL_KEY = "localproject"; //$NON-NLS-1$
 	/** Qualified name for the type property */
 	public static final QualifiedName PROJECT_LOCAL_PROP = new QualifiedName(PLUGIN_ID, PROJECT_LOCAL_KEY);
 
+	// Shared HTTP connection pools
+	private PooledHttpClientService httpClientService;
+
 	/** The constructor */
 	public PackagerPlugin() {
 	}
@@ -54,10 +65,23 @@ public class PackagerPlugin extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		ChecksumCache.getInstance().load(
+				getStateLocation().append(CHECKSUM_CACHE_FILENAME).toFile());
+		httpClientService = new PooledHttpClientService();
+		context.registerService(IHttpClientService.class, httpClientService,
+				null);
+		SpecfileModelCache.getInstance().install();
+		PackagerExtensionRegistry.getInstance().install();
+		ProjectRootCache.getInstance().install();
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		ChecksumCache.getInstance().save();
+		httpClientService.shutdown();
+		SpecfileModelCache.getInstance().uninstall();
+		PackagerExtensionRegistry.getInstance().uninstall();
+		ProjectRootCache.getInstance().uninstall();
 		plugin = null;
 		super.stop(context);
 	}
@@ -71,6 +95,17 @@ public class PackagerPlugin extends AbstractUIPlugin {
 		return plugin;
 	}
 
+	/**
+	 * Returns the HTTP client service, which is also registered as an OSGi
+	 * service.
+	 *
+	 * @return the shared HTTP client service
+	 * @since 0.5
+	 */
+	public IHttpClientService getHttpClientService() {
+		return httpClientService;
+	}
+
 	/**
 	 * Returns an image descriptor for the image file at the given plug-in
 	 * relative path
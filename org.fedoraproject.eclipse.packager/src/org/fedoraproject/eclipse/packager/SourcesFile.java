@@ -11,28 +11,35 @@
 package org.fedoraproject.eclipse.packager;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.text.MessageFormat;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.codec.digest.DigestUtils;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+import org.fedoraproject.eclipse.packager.utils.ChecksumCache;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
 
 /**
  * Sources file (named sources) are files containing MD5 hash and file name.
@@ -48,8 +55,11 @@ public class SourcesFile {
 	 */
 	public static final String SOURCES_FILENAME = "sources"; //$NON-NLS-1$
 
+	private static final FedoraPackagerLogger logger = FedoraPackagerLogger.getInstance();
+
 	private IFile sourcesFile;
-	Map<String, String> sources = new LinkedHashMap<>();
+	// immutable snapshot, replaced as a whole on every change
+	private volatile Map<String, String> sources = Collections.emptyMap();
 
 	/**
 	 * Creates the sources file model from the given file.
@@ -76,16 +86,16 @@ public class SourcesFile {
 	 * filenames/checksums in a Map.
 	 */
 	private void parseSources() {
+		Map<String, String> parsed = new LinkedHashMap<>();
 		try (BufferedReader br = new BufferedReader(new InputStreamReader(
 				sourcesFile.getContents()));){
 			
 			String line = br.readLine();
 			while (line != null && !line.isEmpty()) {
 				String[] source = line.split("\\s+"); //$NON-NLS-1$
-				if (source.length != 2) {
-					continue;
+				if (source.length == 2) {
+					parsed.put(source[1], source[0]);
 				}
-				sources.put(source[1], source[0]);
 				line = br.readLine();
 			}
 		} catch (CoreException e) {
@@ -93,10 +103,13 @@ public class SourcesFile {
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		sources = Collections.unmodifiableMap(parsed);
 	}
 
 	/**
 	 * Returns the parsed sources in a map with the file name used as a key.
+	 * The map is an unmodifiable snapshot, use {@link #edit()} to change the
+	 * sources.
 	 * 
 	 * @return The parsed sources as a map in "filename => checksum" pairs.
 	 */
@@ -105,11 +118,15 @@ public class SourcesFile {
 	}
 
 	/**
+	 * Replace the sources without writing them. Use {@link #edit()} in order
+	 * to replace and write them in one step.
+	 * 
 	 * @param sources
 	 *            the sources to set
 	 */
 	public void setSources(Map<String, String> sources) {
-		this.sources = sources;
+		this.sources = Collections.unmodifiableMap(new LinkedHashMap<>(
+				sources));
 	}
 
 	/**
@@ -125,17 +142,18 @@ public class SourcesFile {
 	}
 
 	/**
-	 * Returns the missing sources or sources which don't have the matching MD5
-	 * sum as specified in the {@code sources} file.
+	 * Returns the missing sources or sources which don't have the matching
+	 * checksum as specified in the {@code sources} file.
 	 * 
-	 * @return Files that are missing locally or has different md5.
+	 * @return Files that are missing locally or has different checksum.
 	 */
 	public Set<String> getMissingSources() {
 		HashSet<String> missingSources = new HashSet<>();
-		for (String source : sources.keySet()) {
+		Map<String, String> snapshot = sources;
+		for (String source : snapshot.keySet()) {
 			IResource r = sourcesFile.getParent().findMember(source);
 			// matched source name
-			if (r == null || !checkMD5(sources.get(source), r)) {
+			if (r == null || !checkChecksum(snapshot.get(source), r)) {
 				// match
 				missingSources.add(source);
 			}
@@ -150,11 +168,7 @@ public class SourcesFile {
 	 * @return A {@link Set} of all file names listed in the sources file.
 	 */
 	public Set<String> getAllSources() {
-		HashSet<String> allSources = new HashSet<>();
-		for (String source : sources.keySet()) {
-			allSources.add(source);
-		}
-		return allSources;
+		return new HashSet<>(sources.keySet());
 	}
 
 	/**
@@ -174,22 +188,28 @@ public class SourcesFile {
 	}
 
 	/**
-	 * Checks whether given md5 corresponds to the given resource.
+	 * Checks whether given checksum corresponds to the given resource. Both
+	 * MD5 and SHA-512 checksums are supported. Unchanged files are not hashed
+	 * again, see {@link ChecksumCache}.
 	 * 
-	 * @param storedMd5
-	 *            The md5 to check.
+	 * @param storedChecksum
+	 *            The checksum to check.
 	 * @param resource
-	 *            The file whose md5 should be compared.
-	 * @return True if the given md5 is the same as the calculated one, false
-	 *         otherwise.
+	 *            The file whose checksum should be compared.
+	 * @return True if the given checksum is the same as the calculated one,
+	 *         false otherwise.
 	 */
-	private static boolean checkMD5(String storedMd5, IResource resource) {
-		// open file
+	private static boolean checkChecksum(String storedChecksum,
+			IResource resource) {
 		File file = resource.getLocation().toFile();
-		String md5 = calculateChecksum(file);
-
-		// perform check
-		return md5 == null ? false : md5.equalsIgnoreCase(storedMd5);
+		try {
+			return ChecksumCache.getInstance().matches(file, storedChecksum);
+		} catch (IOException e) {
+			logger.logError(NLS.bind(
+					FedoraPackagerText.SourcesFile_checksumFailedMsg,
+					file.getName()), e);
+			return false;
+		}
 	}
 
 	/**
@@ -197,19 +217,18 @@ public class SourcesFile {
 	 * 
 	 * @param file
 	 *            The file to calculate checksum for.
-	 * @return The calculated checksum.
+	 * @return The calculated checksum or {@code null} if the file could not be
+	 *         read.
 	 */
 	public static String calculateChecksum(File file) {
-		String result = null;
-		try (FileInputStream fis = new FileInputStream(file);){
-			byte buf[] = new byte[(int) file.length()];
-			fis.read(buf); // read entire file into buf array
-			result = DigestUtils.md5Hex(buf);
+		try {
+			return ChecksumCache.getInstance().getChecksum(file, Algorithm.MD5);
 		} catch (IOException e) {
-			e.printStackTrace();
+			logger.logError(NLS.bind(
+					FedoraPackagerText.SourcesFile_checksumFailedMsg,
+					file.getName()), e);
+			return null;
 		}
-
-		return result;
 	}
 
 	/**
@@ -219,47 +238,155 @@ public class SourcesFile {
 	 *             If sources file could not be accessed.
 	 */
 	public void save() throws CoreException {
+		write(sources);
+	}
 
-		final PipedInputStream in = new PipedInputStream();
-		// create an OutputStream with the InputStream from above as input
-		try (PipedOutputStream out = new PipedOutputStream(in);
-				PrintWriter pw = new PrintWriter(out)) {
-	
-			for (Map.Entry<String, String> entry : sources.entrySet()) {
-				pw.println(entry.getValue() + "  " + entry.getKey()); //$NON-NLS-1$
-			}
-			pw.close();
-			out.close();
-			final IFile file = sourcesFile;
-
-			Job job = new Job(FedoraPackagerText.SourcesFile_saveJob) {
+	/**
+	 * Start a transaction modifying the listed sources. The changes become
+	 * visible to {@link #getSources()} only after a successful
+	 * {@link Edit#commit()}.
+	 * 
+	 * @return The new transaction.
+	 * @since 0.5
+	 */
+	public Edit edit() {
+		return new Edit();
+	}
 
-				@Override
-				public IStatus run(IProgressMonitor monitor) {
-					try {
-						// Potentially long running so do as job.
-						file.setContents(in, false, true, monitor);
-						file.getParent()
-								.refreshLocal(IResource.DEPTH_ONE, null);
-					} catch (CoreException e) {
-						e.printStackTrace();
-					}
-					return Status.OK_STATUS;
+	/**
+	 * Write the given sources to a temporary file next to the sources file
+	 * and rename it into place, so readers never see a partially written
+	 * file. The temporary file takes over the permissions of the file it
+	 * replaces.
+	 */
+	private synchronized void write(Map<String, String> newSources)
+			throws CoreException {
+		File target = sourcesFile.getLocation().toFile();
+		Path temp = null;
+		try {
+			temp = Files.createTempFile(target.getParentFile().toPath(), "." //$NON-NLS-1$
+					+ SOURCES_FILENAME, ".tmp"); //$NON-NLS-1$
+			try (BufferedWriter writer = Files.newBufferedWriter(temp,
+					StandardCharsets.UTF_8)) {
+				for (Map.Entry<String, String> entry : newSources.entrySet()) {
+					writer.write(entry.getValue() + "  " + entry.getKey() + '\n'); //$NON-NLS-1$
 				}
-			};
-			job.schedule();
-			try {
-				job.join();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
 			}
-
+			copyPermissions(target.toPath(), temp);
+			Files.move(temp, target.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
 		} catch (IOException e) {
+			if (temp != null) {
+				temp.toFile().delete();
+			}
 			throw new CoreException(new Status(IStatus.ERROR,
 					PackagerPlugin.PLUGIN_ID, MessageFormat.format(
 							FedoraPackagerText.SourcesFile_saveFailedMsg,
-							sourcesFile.getName())));
+							sourcesFile.getName()), e));
 		}
+		sourcesFile.refreshLocal(IResource.DEPTH_ZERO, null);
 	}
 
+	/**
+	 * Give {@code temp} the POSIX permissions of {@code original}, or those of
+	 * a regular file if there is no original yet. Temporary files are only
+	 * readable by their owner, which must not leak into the sources file.
+	 */
+	private static void copyPermissions(Path original, Path temp)
+			throws IOException {
+		PosixFileAttributeView view = Files.getFileAttributeView(temp,
+				PosixFileAttributeView.class);
+		if (view == null) {
+			// not a POSIX file system
+			return;
+		}
+		if (Files.exists(original)) {
+			view.setPermissions(Files.getPosixFilePermissions(original));
+		} else {
+			view.setPermissions(PosixFilePermissions.fromString("rw-r--r--")); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * A set of changes to the listed sources, applied all at once by
+	 * {@link #commit()}. Changes are applied on top of the sources current at
+	 * commit time, so concurrent transactions don't overwrite each other.
+	 * 
+	 * @since 0.5
+	 */
+	public class Edit {
+
+		private final List<Map.Entry<String, String>> changes = new ArrayList<>();
+		private boolean clear = false;
+
+		private Edit() {
+		}
+
+		/**
+		 * Add a source or update its checksum.
+		 * 
+		 * @param source
+		 *            The file name of the source.
+		 * @param checksum
+		 *            The checksum of the source.
+		 * @return this instance.
+		 */
+		public Edit add(String source, String checksum) {
+			changes.add(new SimpleImmutableEntry<>(source, checksum));
+			return this;
+		}
+
+		/**
+		 * Remove a source.
+		 * 
+		 * @param source
+		 *            The file name of the source.
+		 * @return this instance.
+		 */
+		public Edit remove(String source) {
+			changes.add(new SimpleImmutableEntry<String, String>(source, null));
+			return this;
+		}
+
+		/**
+		 * Replace all sources, including the ones added so far by this
+		 * transaction, by the given ones.
+		 * 
+		 * @param newSources
+		 *            The sources in "filename => checksum" pairs.
+		 * @return this instance.
+		 */
+		public Edit replace(Map<String, String> newSources) {
+			clear = true;
+			changes.clear();
+			for (Map.Entry<String, String> source : newSources.entrySet()) {
+				add(source.getKey(), source.getValue());
+			}
+			return this;
+		}
+
+		/**
+		 * Apply the changes and write the sources file. If writing fails, the
+		 * sources stay unchanged.
+		 * 
+		 * @throws CoreException
+		 *             If sources file could not be written.
+		 */
+		public void commit() throws CoreException {
+			synchronized (SourcesFile.this) {
+				Map<String, String> newSources = clear ? new LinkedHashMap<String, String>()
+						: new LinkedHashMap<>(sources);
+				for (Map.Entry<String, String> change : changes) {
+					if (change.getValue() == null) {
+						newSources.remove(change.getKey());
+					} else {
+						newSources.put(change.getKey(), change.getValue());
+					}
+				}
+				write(newSources);
+				sources = Collections.unmodifiableMap(newSources);
+			}
+		}
+	}
 }
@@ -18,7 +18,7 @@ import org.fedoraproject.eclipse.packager.IProjectRoot;
 import org.fedoraproject.eclipse.packager.api.errors.CommandListenerException;
 
 /**
- * A listener for post sources download MD5 checking.
+ * A listener for post sources download checksum checking.
  */
 public class ChecksumValidListener implements ICommandListener {
 
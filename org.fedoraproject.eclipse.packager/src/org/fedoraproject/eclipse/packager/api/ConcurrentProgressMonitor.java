@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.api;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
+
+/**
+ * Progress monitor shared by concurrent transfers. Serializes access to the
+ * wrapped monitor and reports cancellation once any transfer failed.
+ */
+class ConcurrentProgressMonitor extends ProgressMonitorWrapper {
+
+	private final AtomicBoolean aborted = new AtomicBoolean();
+	private final AtomicInteger fileNumber = new AtomicInteger();
+	private final int fileCount;
+
+	ConcurrentProgressMonitor(IProgressMonitor monitor, int fileCount) {
+		super(monitor);
+		this.fileCount = fileCount;
+	}
+
+	void abort() {
+		aborted.set(true);
+	}
+
+	int nextFileNumber() {
+		return fileNumber.incrementAndGet();
+	}
+
+	int getFileCount() {
+		return fileCount;
+	}
+
+	@Override
+	public boolean isCanceled() {
+		return aborted.get() || super.isCanceled();
+	}
+
+	@Override
+	public synchronized void beginTask(String name, int totalWork) {
+		super.beginTask(name, totalWork);
+	}
+
+	@Override
+	public synchronized void done() {
+		super.done();
+	}
+
+	@Override
+	public synchronized void internalWorked(double work) {
+		super.internalWorked(work);
+	}
+
+	@Override
+	public synchronized void setTaskName(String name) {
+		super.setTaskName(name);
+	}
+
+	@Override
+	public synchronized void subTask(String name) {
+		super.subTask(name);
+	}
+
+	@Override
+	public synchronized void worked(int work) {
+		super.worked(work);
+	}
+}
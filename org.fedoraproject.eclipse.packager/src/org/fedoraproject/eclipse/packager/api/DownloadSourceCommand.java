@@ -10,26 +10,36 @@
  *******************************************************************************/
 package org.fedoraproject.eclipse.packager.api;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
+import org.fedoraproject.eclipse.packager.FedoraPackagerPreferencesConstants;
 import org.fedoraproject.eclipse.packager.FedoraPackagerText;
 import org.fedoraproject.eclipse.packager.ILookasideCache;
 import org.fedoraproject.eclipse.packager.IProjectRoot;
@@ -37,6 +47,10 @@ import org.fedoraproject.eclipse.packager.SourcesFile;
 import org.fedoraproject.eclipse.packager.api.errors.CommandListenerException;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerCommandInitializationException;
 import org.fedoraproject.eclipse.packager.api.errors.SourcesUpToDateException;
+import org.fedoraproject.eclipse.packager.internal.download.LocalLookasideStore;
+import org.fedoraproject.eclipse.packager.internal.download.SegmentedDownload;
+import org.fedoraproject.eclipse.packager.utils.ChecksumCache;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
 
 /**
  * A class used to execute a {@code download sources} command. It has setters
@@ -51,6 +65,13 @@ public class DownloadSourceCommand extends
 
 	private SourcesFile sources;
 	private ILookasideCache lookasideCache;
+	private int maxConcurrentDownloads = FedoraPackagerPreferencesConstants.DEFAULT_DOWNLOAD_CONCURRENCY;
+	private LocalLookasideStore localStore = LocalLookasideStore.getDefault();
+
+	// Suffix of incomplete downloads
+	private static final String PART_SUFFIX = ".part"; //$NON-NLS-1$
+	// Maximum number of connections used for one large file
+	private static final int SEGMENTS_PER_FILE = 4;
 	
 	/**
 	 * The unique ID of this command.
@@ -74,7 +95,32 @@ public class DownloadSourceCommand extends
 	}
 
 	/**
-	 * Implementation of the {@code DownloadSourcesCommand}.
+	 * Set the maximum number of sources which are downloaded at the same time.
+	 * 
+	 * @param maxConcurrentDownloads
+	 *            The number of parallel downloads, at least 1.
+	 */
+	public void setMaxConcurrentDownloads(int maxConcurrentDownloads) {
+		this.maxConcurrentDownloads = Math.max(1, maxConcurrentDownloads);
+	}
+
+	/**
+	 * Set whether sources are taken from and added to the local store shared
+	 * by all projects and branches. Enabled by default.
+	 * 
+	 * @param useLocalStore
+	 *            {@code false} to always download from the lookaside cache.
+	 */
+	public void setUseLocalStore(boolean useLocalStore) {
+		this.localStore = useLocalStore ? LocalLookasideStore.getDefault()
+				: null;
+	}
+
+	/**
+	 * Implementation of the {@code DownloadSourcesCommand}. Missing sources
+	 * are downloaded in parallel, see
+	 * {@link #setMaxConcurrentDownloads(int)}. If one download fails, the
+	 * remaining downloads are cancelled.
 	 * 
 	 * @param monitor
 	 *            The main progress monitor. Each file to download is executed
@@ -92,13 +138,14 @@ public class DownloadSourceCommand extends
 		// Check if there are any sources to download (i.e. md5 does not match or
 		// files are not present in the current Fedora project root).
 		Set<String> sourcesToGet = sources.getMissingSources();
+		removeAbandonedDownloads(sourcesToGet);
 		if (sourcesToGet.isEmpty()) {
 			throw new SourcesUpToDateException(
 					FedoraPackagerText.DownloadSourceCommand_nothingToDownload);
 		}
 		// Need to download the rest of the files in the set from the lookaside
 		// cache
-		int fileNumber = 1;
+		Map<String, URL> downloads = new LinkedHashMap<>();
 		for (final String source : sourcesToGet) {
 			final String url = lookasideCache.getDownloadUrl().toString()
 					+ "/" + projectRoot.getProject().getName() //$NON-NLS-1$
@@ -108,49 +155,27 @@ public class DownloadSourceCommand extends
 					sources.getCheckSum(source)
 					+ "/" + //$NON-NLS-1$
 					source;
-			
-			IFile file = projectRoot.getContainer().getFile(new Path(source));
-			URL sourceUrl = null; 
 			try {
-				sourceUrl = new URL(url);
+				downloads.put(source, new URL(url));
 			} catch (MalformedURLException e) {
 				throw new CommandListenerException(
 						NLS.bind(
 								FedoraPackagerText.DownloadSourceCommand_invalidURL,
 						url), e);
 			}
-			// indicate some progress
-			monitor.subTask(NLS.bind(
-								FedoraPackagerText.DownloadSourceCommand_downloadingFileXofY,
-						fileNumber, sourcesToGet.size()));
-			SubProgressMonitor subMonitor = new SubProgressMonitor(monitor, 1);
-			try {
-				download(subMonitor, file, sourceUrl);
-			} catch (FileNotFoundException e) {
-				// clean-up and bail.
-				try {
-					sources.deleteSource(source);
-				} catch (CoreException coreEx) { /* ignore */ }
-				throw new CommandListenerException(
-						NLS.bind(
-								FedoraPackagerText.DownloadSourceCommand_downloadFileErrorNotInLookaside,
-						file.getName()), e);
-			} catch (IOException e) {
-				// clean-up and bail.
-				try {
-					sources.deleteSource(source);
-				} catch (CoreException coreEx) { /* ignore */ }
-				throw new CommandListenerException(
-						NLS.bind(
-								FedoraPackagerText.DownloadSourceCommand_downloadFileError,
-						file.getName()), e);
-			} catch (CoreException e) {
-				throw new CommandListenerException(
-						NLS.bind(
-								FedoraPackagerText.DownloadSourceCommand_downloadFileError,
-						file.getName()), e);
+		}
+		ConcurrentProgressMonitor downloadMonitor = new ConcurrentProgressMonitor(
+				monitor, sourcesToGet.size());
+		// Workers can't acquire a scheduling rule held by the calling thread,
+		// so download serially in that case.
+		int threads = Math.min(maxConcurrentDownloads, downloads.size());
+		if (threads <= 1 || Job.getJobManager().currentRule() != null) {
+			for (Map.Entry<String, URL> download : downloads.entrySet()) {
+				downloadSource(download.getKey(), download.getValue(),
+						downloadMonitor);
 			}
-			fileNumber++;
+		} else {
+			downloadInParallel(downloads, downloadMonitor, threads);
 		}
 		// Call post-exec listeners
 		callPostExecListeners();
@@ -159,7 +184,137 @@ public class DownloadSourceCommand extends
 	}
 
 	/**
-	 * Carry out the download for a given IFile.
+	 * Download the given sources using a pool of {@code threads} workers. The
+	 * first failure aborts all other downloads, which then clean up after
+	 * themselves before it is rethrown.
+	 */
+	private void downloadInParallel(Map<String, URL> downloads,
+			final ConcurrentProgressMonitor downloadMonitor, int threads)
+			throws CommandListenerException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, ID + "-" //$NON-NLS-1$
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		CompletionService<Void> completion = new ExecutorCompletionService<>(
+				executor);
+		for (final Map.Entry<String, URL> download : downloads.entrySet()) {
+			completion.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws CommandListenerException {
+					if (!downloadMonitor.isCanceled()) {
+						downloadSource(download.getKey(), download.getValue(),
+								downloadMonitor);
+					}
+					return null;
+				}
+			});
+		}
+		executor.shutdown();
+		CommandListenerException failure = null;
+		try {
+			// Wait for every task, so that no download is still in progress
+			// when we return.
+			for (int i = 0; i < downloads.size(); i++) {
+				try {
+					completion.take().get();
+				} catch (ExecutionException e) {
+					downloadMonitor.abort();
+					if (failure == null) {
+						failure = e.getCause() instanceof CommandListenerException ? (CommandListenerException) e
+								.getCause() : new CommandListenerException(e
+								.getCause().getMessage(), e.getCause());
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			downloadMonitor.abort();
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new CommandListenerException(
+					FedoraPackagerText.DownloadSourceCommand_downloadInterrupted,
+					e);
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Download a single source file, removing it if the download failed.
+	 * 
+	 * @param source
+	 *            The file name of the source.
+	 * @param sourceUrl
+	 *            The URL to fetch the source from.
+	 * @param downloadMonitor
+	 *            The monitor shared by all downloads.
+	 * @throws CommandListenerException
+	 *             If the download failed.
+	 */
+	private void downloadSource(String source, URL sourceUrl,
+			ConcurrentProgressMonitor downloadMonitor)
+			throws CommandListenerException {
+		IFile file = projectRoot.getContainer().getFile(new Path(source));
+		// indicate some progress
+		downloadMonitor.subTask(NLS.bind(
+				FedoraPackagerText.DownloadSourceCommand_downloadingFileXofY,
+				downloadMonitor.nextFileNumber(), downloadMonitor.getFileCount()));
+		SubProgressMonitor subMonitor = new SubProgressMonitor(downloadMonitor, 1);
+		try {
+			if (localStore != null
+					&& localStore.retrieve(sources.getCheckSum(source), file
+							.getLocation().toFile())) {
+				// already downloaded for another project or branch
+				SegmentedDownload.discard(getPartFile(file.getLocation()
+						.toFile()));
+				file.refreshLocal(IResource.DEPTH_ZERO, subMonitor);
+				subMonitor.done();
+				return;
+			}
+			download(subMonitor, file, sourceUrl);
+		} catch (FileNotFoundException e) {
+			// clean-up and bail, there is nothing to resume.
+			SegmentedDownload.discard(getPartFile(file.getLocation().toFile()));
+			try {
+				sources.deleteSource(source);
+			} catch (CoreException coreEx) { /* ignore */ }
+			throw new CommandListenerException(
+					NLS.bind(
+							FedoraPackagerText.DownloadSourceCommand_downloadFileErrorNotInLookaside,
+					file.getName()), e);
+		} catch (IOException e) {
+			// clean-up and bail.
+			try {
+				sources.deleteSource(source);
+			} catch (CoreException coreEx) { /* ignore */ }
+			throw new CommandListenerException(
+					NLS.bind(
+							FedoraPackagerText.DownloadSourceCommand_downloadFileError,
+					file.getName()), e);
+		} catch (CoreException e) {
+			throw new CommandListenerException(
+					NLS.bind(
+							FedoraPackagerText.DownloadSourceCommand_downloadFileError,
+					file.getName()), e);
+		}
+	}
+
+	/**
+	 * Carry out the download for a given IFile. This may be called from
+	 * several threads at the same time for different files. Data is
+	 * downloaded into a hidden {@code .part} file next to the target, which is
+	 * kept when the download fails or gets cancelled so that the next attempt
+	 * can resume it. The checksum is calculated while downloading. Once it
+	 * matches the {@code sources} file, the {@code .part} file is renamed to
+	 * the target and only the target gets refreshed.
 	 * 
 	 * @param subMonitor
 	 *            A sub progress monitor to indicate progress for this file
@@ -172,44 +327,87 @@ public class DownloadSourceCommand extends
 	 */
 	protected void download(IProgressMonitor subMonitor, IFile fileToDownload,
 			URL fileURL) throws IOException, CoreException {
-		HttpURLConnection fileConnection = (HttpURLConnection)fileURL.openConnection();
-		if (fileConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
-			throw new FileNotFoundException();
+		File target = fileToDownload.getLocation().toFile();
+		SegmentedDownload download = new SegmentedDownload(fileURL,
+				getPartFile(target));
+		download.setMaxSegments(SEGMENTS_PER_FILE);
+		String expectedChecksum = sources.getCheckSum(fileToDownload.getName());
+		Algorithm algorithm = Algorithm.forChecksum(expectedChecksum);
+		if (algorithm != null) {
+			download.setChecksumAlgorithm(algorithm);
 		}
+		download.open();
 		subMonitor.beginTask(
 				NLS.bind(FedoraPackagerText.DownloadSourceCommand_downloadFile,
-						fileToDownload.getName()), fileConnection.getContentLength());
-		File tempFile = File.createTempFile(fileToDownload.getName(), ""); //$NON-NLS-1$
-		boolean canceled = false;
-		try (FileOutputStream fos = new FileOutputStream(tempFile);
-				InputStream is = new BufferedInputStream(
-						fileConnection.getInputStream())) {
-			int bytesRead;
-			byte buf[] = new byte[5 * 1024]; // 5k buffer
-			while ((bytesRead = is.read(buf)) != -1) {
-				if (subMonitor.isCanceled()) {
-					canceled = true;
-					break;
+						fileToDownload.getName()), download.getTotalWork());
+		if (download.transfer(subMonitor)) {
+			String checksum = download.getChecksum();
+			if (checksum != null && !checksum.equalsIgnoreCase(expectedChecksum)) {
+				// corrupt, resuming it would not help
+				download.discard();
+				throw new IOException(NLS.bind(
+						FedoraPackagerText.DownloadSourceCommand_checksumMismatch,
+						fileToDownload.getName()));
+			}
+			Files.move(download.getPartFile().toPath(), target.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			download.discard();
+			if (checksum != null) {
+				// rename keeps size, mtime and inode, spare the re-check a read
+				ChecksumCache.getInstance().putChecksum(target, algorithm,
+						checksum);
+				if (localStore != null) {
+					localStore.add(checksum, target);
 				}
-				fos.write(buf, 0, bytesRead);
-				subMonitor.worked(bytesRead);
 			}
+			fileToDownload.refreshLocal(IResource.DEPTH_ZERO, subMonitor);
 		}
-		if (!canceled) {
-			if (fileToDownload.exists()) {
-				// replace file
-				fileToDownload.setContents(new FileInputStream(tempFile),
-						true, false, subMonitor);
+		subMonitor.done();
+	}
+	
+	/**
+	 * @param target
+	 *            The file to download.
+	 * @return The hidden file next to {@code target} which is downloaded
+	 *         into.
+	 */
+	private static File getPartFile(File target) {
+		return new File(target.getParentFile(), "." + target.getName() //$NON-NLS-1$
+				+ PART_SUFFIX);
+	}
+
+	/**
+	 * Remove the {@code .part} and state files of downloads which are not
+	 * going to be resumed, because the source is present by now or no longer
+	 * listed in the {@code sources} file.
+	 * 
+	 * @param sourcesToGet
+	 *            The sources which still need to be downloaded.
+	 */
+	private void removeAbandonedDownloads(Set<String> sourcesToGet) {
+		File directory = projectRoot.getContainer().getLocation().toFile();
+		String[] names = directory.list();
+		if (names == null) {
+			return;
+		}
+		for (String name : names) {
+			String source;
+			if (name.endsWith(PART_SUFFIX)) {
+				source = name.substring(0, name.length() - PART_SUFFIX.length());
+			} else if (name.endsWith(PART_SUFFIX + SegmentedDownload.STATE_SUFFIX)) {
+				source = name.substring(0, name.length() - PART_SUFFIX.length()
+						- SegmentedDownload.STATE_SUFFIX.length());
 			} else {
-				// create new file
-				fileToDownload.create(new FileInputStream(tempFile), true,
-						subMonitor);
+				continue;
+			}
+			if (source.length() > 1 && source.charAt(0) == '.'
+					&& !sourcesToGet.contains(source.substring(1))) {
+				new File(directory, name).delete();
 			}
 		}
-		tempFile.delete();
-		subMonitor.done();
 	}
-	
+
 	/**
 	 * 
 	 * @return The folder where sources got downloaded to.
@@ -18,11 +18,13 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.swt.widgets.Shell;
 import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
+import org.fedoraproject.eclipse.packager.FedoraPackagerPreferencesConstants;
 import org.fedoraproject.eclipse.packager.FedoraPackagerText;
 import org.fedoraproject.eclipse.packager.IProjectRoot;
 import org.fedoraproject.eclipse.packager.PackagerPlugin;
 import org.fedoraproject.eclipse.packager.api.errors.CommandListenerException;
 import org.fedoraproject.eclipse.packager.api.errors.SourcesUpToDateException;
+import org.fedoraproject.eclipse.packager.internal.download.LocalLookasideStore;
 import org.fedoraproject.eclipse.packager.utils.FedoraHandlerUtils;
 
 /**
@@ -88,6 +90,12 @@ public class DownloadSourcesJob extends Job {
 		ChecksumValidListener md5sumListener = new ChecksumValidListener(
 				fedoraProjectRoot);
 		download.addCommandListener(md5sumListener); // want md5sum checking
+		download.setMaxConcurrentDownloads(PackagerPlugin.getDefault()
+				.getPreferenceStore()
+				.getInt(FedoraPackagerPreferencesConstants.PREF_DOWNLOAD_CONCURRENCY));
+		LocalLookasideStore.getDefault().setQuota(PackagerPlugin.getDefault()
+				.getPreferenceStore()
+				.getInt(FedoraPackagerPreferencesConstants.PREF_LOOKASIDE_STORE_QUOTA));
 		try {
 			if (downloadUrlPreference != null) {
 				// Only set URL explicitly if set in preferences. Lookaside
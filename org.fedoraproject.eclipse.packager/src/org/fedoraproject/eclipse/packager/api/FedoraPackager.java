@@ -12,23 +12,18 @@ package org.fedoraproject.eclipse.packager.api;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
-import org.eclipse.core.runtime.IExtensionPoint;
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.osgi.util.NLS;
 import org.fedoraproject.eclipse.packager.FedoraPackagerText;
 import org.fedoraproject.eclipse.packager.IProjectRoot;
-import org.fedoraproject.eclipse.packager.PackagerPlugin;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerCommandInitializationException;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerCommandNotFoundException;
+import org.fedoraproject.eclipse.packager.internal.utils.PackagerExtensionRegistry;
 
 /**
  * Eclipse Fedora Packager main interface for commands.
  */
 public class FedoraPackager {
 
-	private static final String CMD_ID_ATTRIBUTE_NAME = "id"; //$NON-NLS-1$
-	private static final String CMD_EXTENSIONPOINT_NAME = "packagerCommandContribution"; //$NON-NLS-1$
-	private static final String CMD_ELEMENT_NAME = "command"; //$NON-NLS-1$
 	private static final String CMD_CLASS_ATTRIBUTE_NAME = "class"; //$NON-NLS-1$
 
 	private final IProjectRoot root;
@@ -60,29 +55,19 @@ public class FedoraPackager {
 	public FedoraPackagerCommand<?> getCommandInstance(String commandId)
 			throws FedoraPackagerCommandInitializationException,
 			FedoraPackagerCommandNotFoundException {
-		IExtensionPoint packagerCommandExtension = Platform
-				.getExtensionRegistry().getExtensionPoint(
-						PackagerPlugin.PLUGIN_ID, CMD_EXTENSIONPOINT_NAME);
-		if (packagerCommandExtension != null) {
-			for (IConfigurationElement command : packagerCommandExtension
-					.getConfigurationElements()) {
-				if (command.getName().equals(CMD_ELEMENT_NAME)) {
-					String cmdId = command.getAttribute(CMD_ID_ATTRIBUTE_NAME);
-					if (cmdId.equals(commandId)) {
-						// found extension point element with desired commandId
-						try {
-							FedoraPackagerCommand<?> commandContributor = (FedoraPackagerCommand<?>) command
-									.createExecutableExtension(CMD_CLASS_ATTRIBUTE_NAME);
-							assert commandContributor != null;
-							// Do initialization
-							commandContributor.initialize(this.root);
-							return commandContributor;
-						} catch (CoreException e) {
-							throw new FedoraPackagerCommandInitializationException(
-									e.getMessage(), e);
-						}
-					}
-				}
+		IConfigurationElement command = PackagerExtensionRegistry
+				.getInstance().getCommand(commandId);
+		if (command != null) {
+			try {
+				FedoraPackagerCommand<?> commandContributor = (FedoraPackagerCommand<?>) command
+						.createExecutableExtension(CMD_CLASS_ATTRIBUTE_NAME);
+				assert commandContributor != null;
+				// Do initialization
+				commandContributor.initialize(this.root);
+				return commandContributor;
+			} catch (CoreException e) {
+				throw new FedoraPackagerCommandInitializationException(
+						e.getMessage(), e);
 			}
 		}
 		throw new FedoraPackagerCommandNotFoundException(NLS.bind(
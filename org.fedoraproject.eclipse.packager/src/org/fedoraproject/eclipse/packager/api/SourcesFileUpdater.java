@@ -11,13 +11,22 @@
 package org.fedoraproject.eclipse.packager.api;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.osgi.util.NLS;
 import org.fedoraproject.eclipse.packager.FedoraPackagerText;
 import org.fedoraproject.eclipse.packager.IProjectRoot;
 import org.fedoraproject.eclipse.packager.SourcesFile;
 import org.fedoraproject.eclipse.packager.api.errors.CommandListenerException;
+import org.fedoraproject.eclipse.packager.utils.ChecksumCache;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
 
 /**
  * Post exec hook for {@link UploadSourceCommand}, responsible for updating the
@@ -27,7 +36,7 @@ import org.fedoraproject.eclipse.packager.api.errors.CommandListenerException;
 public class SourcesFileUpdater implements ICommandListener {
 
 	private IProjectRoot fpRoot;
-	private File fileToAdd;
+	private List<File> filesToAdd;
 	private boolean shouldReplace = false;
 
 	/**
@@ -39,8 +48,23 @@ public class SourcesFileUpdater implements ICommandListener {
 	 *            The file which should get added to the {@code sources} file.
 	 */
 	public SourcesFileUpdater(IProjectRoot fpRoot, File fileToAdd) {
+		this(fpRoot, Collections.singletonList(fileToAdd));
+	}
+
+	/**
+	 * Create a SourcesFileUpdater adding several files at once, e.g. after a
+	 * batch upload. The {@code sources} file is written only once.
+	 *
+	 * @param fpRoot
+	 *            The Fedora project root for which to update sources for.
+	 * @param filesToAdd
+	 *            The files which should get added to the {@code sources}
+	 *            file.
+	 * @since 0.5
+	 */
+	public SourcesFileUpdater(IProjectRoot fpRoot, Collection<File> filesToAdd) {
 		this.fpRoot = fpRoot;
-		this.fileToAdd = fileToAdd;
+		this.filesToAdd = new ArrayList<>(filesToAdd);
 	}
 
 	/**
@@ -55,7 +79,7 @@ public class SourcesFileUpdater implements ICommandListener {
 
 	/**
 	 * Updates the {@code sources} file for the Fedora project root of this
-	 * instance and add the new file as required.
+	 * instance and add the new files as required.
 	 * 
 	 * @throws CommandListenerException
 	 *             If an error occurred during updating the {@code sources}
@@ -64,16 +88,30 @@ public class SourcesFileUpdater implements ICommandListener {
 	 */
 	@Override
 	public void postExecution() throws CommandListenerException {
-		String filename = fileToAdd.getName();
-		Map<String, String> sources = fpRoot.getSourcesFile().getSources();
+		Map<String, String> sources = new LinkedHashMap<>();
+		for (File fileToAdd : filesToAdd) {
+			String filename = fileToAdd.getName();
+			String checksum;
+			try {
+				checksum = ChecksumCache.getInstance().getChecksum(fileToAdd,
+						Algorithm.MD5);
+			} catch (IOException e) {
+				throw new CommandListenerException(NLS.bind(
+						FedoraPackagerText.SourcesFile_checksumFailedMsg,
+						filename), e);
+			}
+			sources.put(filename, checksum);
+		}
+		SourcesFile.Edit edit = fpRoot.getSourcesFile().edit();
 		if (shouldReplace) {
-			sources.clear();
+			edit.replace(sources);
+		} else {
+			for (Map.Entry<String, String> source : sources.entrySet()) {
+				edit.add(source.getKey(), source.getValue());
+			}
 		}
-		sources.put(filename, SourcesFile.calculateChecksum(fileToAdd));
-		fpRoot.getSourcesFile().setSources(sources);
-
 		try {
-			fpRoot.getSourcesFile().save();
+			edit.commit();
 		} catch (CoreException e) {
 			throw new CommandListenerException(
 					FedoraPackagerText.SourcesFileUpdater_errorSavingFile, e);
@@ -12,44 +12,54 @@ package org.fedoraproject.eclipse.packager.api;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.URL;
 import java.security.GeneralSecurityException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.config.Registry;
-import org.apache.http.config.RegistryBuilder;
-import org.apache.http.conn.HttpClientConnectionManager;
-import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.entity.mime.HttpMultipartMode;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.linuxtools.rpm.core.utils.RPMQuery;
 import org.eclipse.osgi.util.NLS;
+import org.fedoraproject.eclipse.packager.FedoraPackagerPreferencesConstants;
 import org.fedoraproject.eclipse.packager.FedoraPackagerText;
-import org.fedoraproject.eclipse.packager.FedoraSSL;
+import org.fedoraproject.eclipse.packager.IHttpClientService;
+import org.fedoraproject.eclipse.packager.IHttpClientService.SslPolicy;
 import org.fedoraproject.eclipse.packager.IProjectRoot;
-import org.fedoraproject.eclipse.packager.SourcesFile;
+import org.fedoraproject.eclipse.packager.PackagerPlugin;
 import org.fedoraproject.eclipse.packager.api.errors.CommandListenerException;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerCommandInitializationException;
 import org.fedoraproject.eclipse.packager.api.errors.FileAvailableInLookasideCacheException;
 import org.fedoraproject.eclipse.packager.api.errors.InvalidUploadFileException;
 import org.fedoraproject.eclipse.packager.api.errors.UploadFailedException;
-import org.fedoraproject.eclipse.packager.internal.utils.httpclient.CoutingRequestEntity;
 import org.fedoraproject.eclipse.packager.internal.utils.httpclient.IRequestProgressListener;
+import org.fedoraproject.eclipse.packager.internal.utils.httpclient.UploadFileBody;
+import org.fedoraproject.eclipse.packager.utils.ChecksumCache;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
 import org.fedoraproject.eclipse.packager.utils.FedoraPackagerUtils;
 
 /**
@@ -59,6 +69,8 @@ import org.fedoraproject.eclipse.packager.utils.FedoraPackagerUtils;
  * instance of this class should only be used for one invocation of the command
  * (meaning: one call to {@link #call(IProgressMonitor)})
  *
+ * Either a single file is uploaded, see {@link #setFileToUpload(File)}, or a
+ * batch of files, see {@link #setFilesToUpload(Collection)}.
  */
 public class UploadSourceCommand extends
 		FedoraPackagerCommand<UploadSourceResult> {
@@ -83,11 +95,24 @@ public class UploadSourceCommand extends
 	private static final String PACKAGENAME_PARAM_NAME = "name"; //$NON-NLS-1$
 	private static final String FILE_PARAM_NAME = "file"; //$NON-NLS-1$
 
-	// Use 30 sec connection timeout
-	private static final int CONNECTION_TIMEOUT = 30000;
+	/**
+	 * Default number of files of a batch which are uploaded at the same time.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT_UPLOADS = 2;
+	// Availability checks are small requests, so run more of them at once
+	private static final int MAX_CONCURRENT_CHECKS = 8;
 
 	// The file to upload
 	private File fileToUpload;
+	// The files to upload in batch mode, null otherwise
+	private Set<File> filesToUpload;
+	private int maxConcurrentUploads = DEFAULT_MAX_CONCURRENT_UPLOADS;
+	// Upload rate limit in bytes per second, 0 for none
+	private long bandwidthLimit = 0;
+	// Upload URL overriding the one of the lookaside cache, null otherwise.
+	// The project root is shared with other commands, so its lookaside cache
+	// must not be changed.
+	private URL uploadUrl;
 	// State info if Fedora SSL should be used or not
 	private boolean fedoraSslEnabled = false;
 	// State info if a basic all trusting https enabled client
@@ -98,18 +123,37 @@ public class UploadSourceCommand extends
 	public void initialize(IProjectRoot projectRoot)
 			throws FedoraPackagerCommandInitializationException {
 		super.initialize(projectRoot);
+		setBandwidthLimit(PackagerPlugin.getDefault().getPreferenceStore()
+				.getInt(FedoraPackagerPreferencesConstants.PREF_UPLOAD_BANDWIDTH_LIMIT));
+	}
+
+	/**
+	 * Limit the rate at which files are uploaded, so that uploads don't
+	 * saturate a shared link. Defaults to the value of the
+	 * {@link FedoraPackagerPreferencesConstants#PREF_UPLOAD_BANDWIDTH_LIMIT}
+	 * preference. In batch mode the concurrent uploads share the limit.
+	 *
+	 * @param limit
+	 *            The maximum upload rate in KiB per second, 0 for no limit.
+	 * @return this instance.
+	 * @since 0.5
+	 */
+	public UploadSourceCommand setBandwidthLimit(int limit) {
+		this.bandwidthLimit = Math.max(0, limit) * 1024L;
+		return this;
 	}
 
 	/**
 	 * @param uploadURL
-	 *            the uploadURL to set. Optional.
+	 *            the uploadURL to set. Optional. It is used by this command
+	 *            only, instead of the one of the lookaside cache.
 	 * @return this instance.
 	 * @throws MalformedURLException
 	 *             If the provided URL was not well formed.
 	 */
 	public UploadSourceCommand setUploadURL(String uploadURL)
 			throws MalformedURLException {
-		this.projectRoot.getLookAsideCache().setUploadUrl(uploadURL);
+		this.uploadUrl = new URL(uploadURL);
 		return this;
 	}
 
@@ -157,6 +201,48 @@ public class UploadSourceCommand extends
 					fileToUpload.getName()));
 		}
 		this.fileToUpload = fileToUpload;
+		this.filesToUpload = null;
+		return this;
+	}
+
+	/**
+	 * Setter for a batch of files to be uploaded. The lookaside cache is
+	 * queried for all files concurrently and only the missing ones get
+	 * uploaded. Files already present in the lookaside cache don't cause a
+	 * {@link FileAvailableInLookasideCacheException} in batch mode, but are
+	 * reported by {@link UploadSourceResult#getAvailableFiles()}.
+	 *
+	 * @param files
+	 *            The files to be uploaded.
+	 * @return this instance.
+	 * @throws InvalidUploadFileException
+	 *             If one of the upload file candidates is an invalid file.
+	 * @since 0.5
+	 */
+	public UploadSourceCommand setFilesToUpload(Collection<File> files)
+			throws InvalidUploadFileException {
+		for (File file : files) {
+			if (!FedoraPackagerUtils.isValidUploadFile(file)) {
+				throw new InvalidUploadFileException(NLS.bind(
+						FedoraPackagerText.UploadSourceCommand_uploadFileInvalid,
+						file.getName()));
+			}
+		}
+		this.filesToUpload = new LinkedHashSet<>(files);
+		this.fileToUpload = null;
+		return this;
+	}
+
+	/**
+	 * Set the number of files of a batch which are uploaded at the same time.
+	 *
+	 * @param maxConcurrentUploads
+	 *            The maximum number of concurrent uploads, at least 1.
+	 * @return this instance.
+	 * @since 0.5
+	 */
+	public UploadSourceCommand setMaxConcurrentUploads(int maxConcurrentUploads) {
+		this.maxConcurrentUploads = Math.max(1, maxConcurrentUploads);
 		return this;
 	}
 
@@ -165,7 +251,7 @@ public class UploadSourceCommand extends
 	 *
 	 * @throws FileAvailableInLookasideCacheException
 	 *             If the to-be-uploaded file is already available in the
-	 *             lookaside cache.
+	 *             lookaside cache. Never thrown in batch mode.
 	 * @throws CommandListenerException
 	 *             If a listener caused an error.
 	 * @throws UploadFailedException
@@ -176,36 +262,216 @@ public class UploadSourceCommand extends
 			throws FileAvailableInLookasideCacheException,
 			CommandListenerException, UploadFailedException {
 		callPreExecListeners();
+		if (this.filesToUpload != null) {
+			UploadSourceResult result = uploadBatch(subMonitor);
+			// Post-exec listeners update the sources file, so only run them
+			// once every missing file made it to the lookaside cache.
+			if (result.isSuccessful()) {
+				callPostExecListeners();
+			}
+			return result;
+		}
 		if (this.fileToUpload == null) {
 			throw new IllegalStateException(
 					FedoraPackagerText.UploadSourceCommand_uploadFileUnspecified);
 		}
+		String specName = getSpecName();
 		// Check if source is available, first.
-		checkSourceAvailable();
+		if (isSourceAvailable(fileToUpload, evalPackageName(specName))) {
+			throw new FileAvailableInLookasideCacheException(
+					fileToUpload.getName());
+		}
 		// Ok, file is missing. Perform the actual upload.
-		UploadSourceResult result = upload(subMonitor);
+		UploadSourceResult result = upload(fileToUpload, specName,
+				bandwidthLimit, subMonitor);
 		callPostExecListeners();
 		return result;
 	}
 
 	/**
-	 * Check if upload file has already been uploaded. Do nothing, if file is
-	 * missing.
+	 * Query the lookaside cache for all files of the batch concurrently and
+	 * upload the missing ones, at most {@code maxConcurrentUploads} at a time.
+	 * The first failure, including an upload rejected by the lookaside cache,
+	 * aborts the uploads still in progress.
+	 *
+	 * @param monitor
+	 *            Monitor to show progress.
+	 * @return The combined result of the uploads.
+	 */
+	private UploadSourceResult uploadBatch(IProgressMonitor monitor)
+			throws UploadFailedException {
+		final String specName = getSpecName();
+		final String packageName = evalPackageName(specName);
+		final ConcurrentProgressMonitor uploadMonitor = new ConcurrentProgressMonitor(
+				monitor, filesToUpload.size());
+		uploadMonitor.beginTask(
+				FedoraPackagerText.UploadSourceCommand_uploadingFilesTaskName,
+				filesToUpload.size());
+		try {
+			uploadMonitor
+					.subTask(FedoraPackagerText.UploadSourceCommand_checkingFilesSubTaskName);
+			Map<File, Callable<Boolean>> checks = new LinkedHashMap<>();
+			for (final File file : filesToUpload) {
+				checks.put(file, new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws UploadFailedException {
+						if (uploadMonitor.isCanceled()) {
+							throw new OperationCanceledException();
+						}
+						return isSourceAvailable(file, packageName);
+					}
+				});
+			}
+			Set<File> available = new LinkedHashSet<>();
+			Map<File, Callable<UploadSourceResult>> uploads = new LinkedHashMap<>();
+			Map<File, Boolean> availability = runConcurrently(checks,
+					MAX_CONCURRENT_CHECKS, uploadMonitor);
+			// concurrent uploads share the bandwidth limit
+			final long uploadLimit = bandwidthLimit
+					/ Math.max(1, Math.min(maxConcurrentUploads, Collections
+							.frequency(availability.values(), Boolean.FALSE)));
+			for (Map.Entry<File, Boolean> check : availability.entrySet()) {
+				final File file = check.getKey();
+				if (check.getValue()) {
+					available.add(file);
+					uploadMonitor.worked(1);
+					continue;
+				}
+				uploads.put(file, new Callable<UploadSourceResult>() {
+					@Override
+					public UploadSourceResult call()
+							throws UploadFailedException {
+						if (uploadMonitor.isCanceled()) {
+							throw new OperationCanceledException();
+						}
+						UploadSourceResult result = upload(file, specName,
+								uploadLimit, new SubProgressMonitor(
+										uploadMonitor, 1));
+						if (!result.isSuccessful()) {
+							throw new UploadFailedException(NLS.bind(
+									FedoraPackagerText.UploadSourceResult_fileErrorMsg,
+									file.getName(), result.getErrorString()));
+						}
+						return result;
+					}
+				});
+			}
+			return new UploadSourceResult(runConcurrently(uploads,
+					maxConcurrentUploads, uploadMonitor), available);
+		} finally {
+			uploadMonitor.done();
+		}
+	}
+
+	/**
+	 * Run the given tasks using a pool of at most {@code maxThreads} workers.
+	 * Waits for all tasks, so that nothing is in progress when this returns.
+	 * The first failure aborts the remaining tasks and gets rethrown.
 	 *
+	 * @return The results of the tasks, in the order of the given tasks.
+	 */
+	private static <T> Map<File, T> runConcurrently(
+			Map<File, Callable<T>> tasks, int maxThreads,
+			ConcurrentProgressMonitor monitor) throws UploadFailedException {
+		Map<File, T> results = new LinkedHashMap<>();
+		if (tasks.isEmpty()) {
+			return results;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(maxThreads, tasks.size()), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, ID + "-" //$NON-NLS-1$
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		Map<File, Future<T>> futures = new LinkedHashMap<>();
+		for (Map.Entry<File, Callable<T>> task : tasks.entrySet()) {
+			futures.put(task.getKey(), executor.submit(task.getValue()));
+		}
+		executor.shutdown();
+		Throwable failure = null;
+		try {
+			for (Map.Entry<File, Future<T>> future : futures.entrySet()) {
+				try {
+					results.put(future.getKey(), future.getValue().get());
+				} catch (ExecutionException e) {
+					monitor.abort();
+					// prefer the actual error over the cancellation of the
+					// tasks it aborted
+					if (failure == null
+							|| failure instanceof OperationCanceledException) {
+						failure = e.getCause();
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			monitor.abort();
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new UploadFailedException(
+					FedoraPackagerText.UploadSourceCommand_uploadInterrupted, e);
+		}
+		if (failure instanceof UploadFailedException) {
+			throw (UploadFailedException) failure;
+		} else if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure != null) {
+			throw new UploadFailedException(failure.getMessage(), failure);
+		}
+		return results;
+	}
+
+	/**
+	 * @return The upload URL set for this command, or else the one of the
+	 *         lookaside cache.
+	 */
+	private URL getUploadUrl() {
+		return uploadUrl != null ? uploadUrl : projectRoot.getLookAsideCache()
+				.getUploadUrl();
+	}
+
+	/**
+	 * @return The package name as written in the spec file.
+	 */
+	private String getSpecName() {
+		return projectRoot.getSpecfileModel().getName();
+	}
+
+	/**
+	 * @return The package name with all macros expanded.
+	 */
+	private static String evalPackageName(String specName)
+			throws UploadFailedException {
+		try {
+			return RPMQuery.eval(specName).trim();
+		} catch (CoreException e) {
+			throw new UploadFailedException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Check if upload file has already been uploaded.
+	 *
+	 * @param file
+	 *            The upload candidate file.
+	 * @param packageName
+	 *            The evaluated package name.
+	 * @return {@code true} if the file is already present in the lookaside
+	 *         cache, {@code false} if it is missing.
 	 * @throws UploadFailedException
 	 *             If something went wrong sending/receiving the request to/from
 	 *             the lookaside cache.
-	 * @throws FileAvailableInLookasideCacheException
-	 *             If the upload candidate file is already present in the
-	 *             lookaside cache.
 	 */
-	private void checkSourceAvailable()
-			throws FileAvailableInLookasideCacheException,
-			UploadFailedException {
+	private boolean isSourceAvailable(File file, String packageName)
+			throws UploadFailedException {
 		try (CloseableHttpClient client = getClient()){
 			String uploadURI = null;
-			uploadURI = this.projectRoot.getLookAsideCache().getUploadUrl()
-					.toString();
+			uploadURI = getUploadUrl().toString();
 			assert uploadURI != null;
 
 			HttpPost post = new HttpPost(uploadURI);
@@ -213,9 +479,9 @@ public class UploadSourceCommand extends
 			// Construct the multipart POST request body.
 			MultipartEntityBuilder reqEntity = MultipartEntityBuilder.create();
 			reqEntity.setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
-			reqEntity.addTextBody(FILENAME_PARAM_NAME, fileToUpload.getName());
-			reqEntity.addTextBody(PACKAGENAME_PARAM_NAME, RPMQuery.eval(projectRoot.getSpecfileModel().getName()).trim());
-			reqEntity.addTextBody(CHECKSUM_PARAM_NAME, SourcesFile.calculateChecksum(fileToUpload));
+			reqEntity.addTextBody(FILENAME_PARAM_NAME, file.getName());
+			reqEntity.addTextBody(PACKAGENAME_PARAM_NAME, packageName);
+			reqEntity.addTextBody(CHECKSUM_PARAM_NAME, ChecksumCache.getInstance().getChecksum(file, Algorithm.MD5));
 
 			post.setEntity(reqEntity.build());
 
@@ -224,6 +490,8 @@ public class UploadSourceCommand extends
 			int returnCode = response.getStatusLine().getStatusCode();
 
 			if (returnCode != HttpURLConnection.HTTP_OK) {
+				// return the connection to the pool
+				EntityUtils.consume(resEntity);
 				throw new UploadFailedException(response.getStatusLine()
 						.getReasonPhrase());
 			}
@@ -236,20 +504,18 @@ public class UploadSourceCommand extends
 				}
 				EntityUtils.consume(resEntity); // clean up resources
 			}
-			// If this file has already been uploaded bail out
 			if (resString.toLowerCase().equals(RESOURCE_AVAILABLE)) {
-				throw new FileAvailableInLookasideCacheException(
-						fileToUpload.getName());
+				return true;
 			} else if (resString.toLowerCase().equals(RESOURCE_MISSING)) {
 				// check passed
-				return;
+				return false;
 			} else {
 				// something is fishy
 				throw new UploadFailedException(
 						FedoraPackagerText.somethingUnexpectedHappenedError);
 			}
 
-		} catch (IOException|CoreException e) {
+		} catch (IOException e) {
 			throw new UploadFailedException(e.getMessage(), e);
 		}
 	}
@@ -258,17 +524,22 @@ public class UploadSourceCommand extends
 	 * Upload a missing file to the lookaside cache.
 	 *
 	 * Pre: upload file is missing as determined by
-	 * {@link UploadSourceCommand#checkSourceAvailable()}.
+	 * {@link UploadSourceCommand#isSourceAvailable(File, String)}.
 	 *
+	 * @param file
+	 *            The file to upload.
+	 * @param specName
+	 *            The package name as written in the spec file.
+	 * @param limit
+	 *            The maximum upload rate in bytes per second, 0 for none.
 	 * @param subMonitor
 	 *            Monitor to show progress.
 	 * @return The result of the upload.
 	 */
-	private UploadSourceResult upload(final IProgressMonitor subMonitor)
-			throws UploadFailedException {
+	private UploadSourceResult upload(File file, String specName, long limit,
+			final IProgressMonitor subMonitor) throws UploadFailedException {
 		try (CloseableHttpClient client = getClient()) {
-			String uploadUrl = projectRoot.getLookAsideCache().getUploadUrl()
-					.toString();
+			String uploadUrl = getUploadUrl().toString();
 
 			HttpPost post = new HttpPost(uploadUrl);
 			// For the actual upload we must not provide the
@@ -276,55 +547,41 @@ public class UploadSourceCommand extends
 			// the file won't be stored in the lookaside cache.
 			MultipartEntityBuilder builder = MultipartEntityBuilder.create(); 
 			builder.setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
-			builder.addBinaryBody(FILE_PARAM_NAME, fileToUpload);
-			builder.addTextBody(PACKAGENAME_PARAM_NAME, projectRoot.getSpecfileModel().getName());
-			builder.addTextBody(CHECKSUM_PARAM_NAME, SourcesFile.calculateChecksum(fileToUpload));
-			HttpEntity reqEntity = builder.build();
-			// Not sure why it's ~ content-length * 2, but that's what it is...
-			final long totalsize = reqEntity.getContentLength() * 2;
+			final long fileSize = file.length();
 			subMonitor
 					.beginTask(
 							NLS.bind(
 									FedoraPackagerText.UploadSourceCommand_uploadingFileSubTaskName,
-									fileToUpload.getName()), 100 /*
+									file.getName()), 100 /*
 																 * use
 																 * percentage
 																 */);
 			subMonitor.worked(0);
 
-			// Custom listener for progress reporting of the file upload
+			// Custom listener for progress reporting of the file upload. It
+			// gets called periodically with the exact number of bytes sent.
 			IRequestProgressListener progL = new IRequestProgressListener() {
 
-				private int count = 0;
 				private int worked = 0;
-				private int updatedWorked = 0;
 
 				@Override
 				public void transferred(final long bytesWritten) {
-					count++;
-					worked = updatedWorked;
 					if (subMonitor.isCanceled()) {
 						throw new OperationCanceledException();
 					}
-					// Since this listener may be called *a lot*, don't
-					// do the calculation to often.
-					if ((count % 1024) == 0) {
-						updatedWorked =
-						// multiply by 85 (instead of 100) since upload
-						// progress cannot be 100% accurate.
-						(int) ((double) bytesWritten / totalsize * 85);
-						if (updatedWorked > worked) {
-							worked = updatedWorked;
-							subMonitor.worked(updatedWorked);
-						}
+					int updatedWorked = fileSize == 0 ? 100
+							: (int) (bytesWritten * 100 / fileSize);
+					if (updatedWorked > worked) {
+						subMonitor.worked(updatedWorked - worked);
+						worked = updatedWorked;
 					}
 				}
 			};
-			// We need to wrap the entity which we want to upload in our
-			// custom entity, which allows for progress listening.
-			CoutingRequestEntity countingEntity = new CoutingRequestEntity(
-					reqEntity, progL);
-			post.setEntity(countingEntity);
+			builder.addPart(FILE_PARAM_NAME, new UploadFileBody(file,
+					limit, progL));
+			builder.addTextBody(PACKAGENAME_PARAM_NAME, specName);
+			builder.addTextBody(CHECKSUM_PARAM_NAME, ChecksumCache.getInstance().getChecksum(file, Algorithm.MD5));
+			post.setEntity(builder.build());
 
 			// TODO: This may throw some certificate exception. We should
 			// handle this case and throw a specific exception in order to
@@ -339,58 +596,25 @@ public class UploadSourceCommand extends
 	}
 
 	/**
-	 * @return A properly configured HTTP client instance
+	 * @return A properly configured HTTP client instance, using the pooled
+	 *         connections of the {@link IHttpClientService}.
 	 * @throws UploadFailedException If an IO or security exception appeared.
 	 */
 	protected CloseableHttpClient getClient() throws UploadFailedException {
+		SslPolicy policy = SslPolicy.DEFAULT;
+		if (fedoraSslEnabled) {
+			// user requested a Fedora SSL enabled client
+			policy = SslPolicy.FEDORA_CERT;
+		} else if (trustAllSSLEnabled) {
+			// use an trust-all SSL enabled client
+			policy = SslPolicy.TRUST_ALL;
+		}
 		try {
-			if (fedoraSslEnabled) {
-				// user requested a Fedora SSL enabled client
-				return fedoraSslEnable();
-			} else if (trustAllSSLEnabled) {
-				// use an trust-all SSL enabled client
-				return FedoraPackagerUtils.trustAllSslEnable();
-			}
+			return PackagerPlugin.getDefault().getHttpClientService()
+					.createClient(policy);
 		} catch (GeneralSecurityException | IOException e) {
 			throw new UploadFailedException(e.getMessage(), e);
 		}
-		// Set up client with proper timeout
-		HttpClientBuilder builder = HttpClientBuilder.create();
-		RequestConfig config = RequestConfig.custom().setConnectionRequestTimeout(CONNECTION_TIMEOUT).build();
-		builder.setDefaultRequestConfig(config);
-		return builder.build();
-	}
-
-	/**
-	 * Wrap a basic HttpClient object in a Fedora SSL enabled HttpClient (which
-	 * includes Fedora SSL authentication cert) object.
-	 *
-	 * @return The SSL wrapped HttpClient.
-	 * @throws GeneralSecurityException
-	 *             The method fails for security reasons.
-	 * @throws IOException
-	 *             If method cannot use streams properly.
-	 */
-	private static CloseableHttpClient fedoraSslEnable()
-			throws GeneralSecurityException, FileNotFoundException, IOException {
-
-		// Get a SSL related instance for setting up SSL connections.
-		FedoraSSL fedoraSSL = new FedoraSSL();
-		HttpClientBuilder builder = HttpClientBuilder.create();
-		SSLConnectionSocketFactory sslConnectionFactory = new SSLConnectionSocketFactory(
-				fedoraSSL.getInitializedSSLContext(),
-				SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
-		builder.setSSLSocketFactory(sslConnectionFactory);
-		Registry<ConnectionSocketFactory> registry = RegistryBuilder
-				.<ConnectionSocketFactory> create()
-				.register("https", sslConnectionFactory) //$NON-NLS-1$
-				.build();
-
-		HttpClientConnectionManager ccm = new BasicHttpClientConnectionManager(
-				registry);
-
-		builder.setConnectionManager(ccm);
-		return builder.build();
 	}
 
 	/**
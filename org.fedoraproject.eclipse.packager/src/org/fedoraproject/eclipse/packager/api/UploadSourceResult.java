@@ -11,12 +11,21 @@
 package org.fedoraproject.eclipse.packager.api;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.eclipse.osgi.util.NLS;
+import org.fedoraproject.eclipse.packager.FedoraPackagerText;
 
 /**
  * Represents the result of a {@code UploadSourceCommand}. This may be more
@@ -26,14 +35,62 @@ public class UploadSourceResult implements ICommandResult {
 
 	private boolean successful;
 	private HttpResponse response;
+	private String responseBody;
+	// per file results of a batch upload
+	private Map<File, UploadSourceResult> uploads = Collections.emptyMap();
+	private Set<File> availableFiles = Collections.emptySet();
 
 	/**
 	 * @param response
-	 *            The remote response from the upload.
+	 *            The remote response from the upload. Its body is read right
+	 *            away, which returns the connection to the pool.
 	 */
 	public UploadSourceResult(HttpResponse response) {
 		this.successful = (response.getStatusLine().getStatusCode() == HttpURLConnection.HTTP_OK);
 		this.response = response;
+		this.responseBody = readBody(response.getEntity());
+	}
+
+	/**
+	 * Result of a batch upload, which is successful if all uploads were.
+	 *
+	 * @param uploads
+	 *            The results of the files which had to be uploaded.
+	 * @param availableFiles
+	 *            The files which were already present in the lookaside cache.
+	 * @since 0.5
+	 */
+	public UploadSourceResult(Map<File, UploadSourceResult> uploads,
+			Collection<File> availableFiles) {
+		this.uploads = new LinkedHashMap<>(uploads);
+		this.availableFiles = new LinkedHashSet<>(availableFiles);
+		this.successful = true;
+		for (UploadSourceResult upload : uploads.values()) {
+			successful &= upload.isSuccessful();
+		}
+	}
+
+	/**
+	 * @return The files of a batch upload which were uploaded successfully.
+	 * @since 0.5
+	 */
+	public Set<File> getUploadedFiles() {
+		Set<File> uploaded = new LinkedHashSet<>();
+		for (Map.Entry<File, UploadSourceResult> upload : uploads.entrySet()) {
+			if (upload.getValue().isSuccessful()) {
+				uploaded.add(upload.getKey());
+			}
+		}
+		return uploaded;
+	}
+
+	/**
+	 * @return The files of a batch upload which were already present in the
+	 *         lookaside cache and therefore not uploaded.
+	 * @since 0.5
+	 */
+	public Set<File> getAvailableFiles() {
+		return Collections.unmodifiableSet(availableFiles);
 	}
 
 	/**
@@ -48,29 +105,46 @@ public class UploadSourceResult implements ICommandResult {
 	 * @return Error message if upload was not successful, null otherwise.
 	 */
 	public String getErrorString() {
-		if (!successful) {
+		if (!successful && response == null) {
+			StringBuilder error = new StringBuilder();
+			for (Map.Entry<File, UploadSourceResult> upload : uploads
+					.entrySet()) {
+				if (!upload.getValue().isSuccessful()) {
+					error.append(NLS.bind(
+							FedoraPackagerText.UploadSourceResult_fileErrorMsg,
+							upload.getKey().getName(), upload.getValue()
+									.getErrorString()));
+				}
+			}
+			return error.toString();
+		} else if (!successful) {
 			StringBuilder error = new StringBuilder();
 			error.append(response.getStatusLine().getStatusCode() + " " + //$NON-NLS-1$
 					response.getStatusLine().getReasonPhrase() + "\n"); //$NON-NLS-1$
 			// add body if there is one
-			HttpEntity responseEntity = response.getEntity();
-			if (responseEntity == null) {
-				return error.toString();
-			}
-			try (BufferedReader br = new BufferedReader(new InputStreamReader(
-					responseEntity.getContent()))){
-				String line;
-				line = br.readLine();
-				while (line != null) {
-					error.append(line + "\n"); //$NON-NLS-1$
-					line = br.readLine();
-				}
-			} catch (IOException e) {
-				// ignore
-			}
+			error.append(responseBody);
 			return error.toString();
 		}
 		return null;
 	}
 
+	private static String readBody(HttpEntity responseEntity) {
+		StringBuilder body = new StringBuilder();
+		if (responseEntity == null) {
+			return body.toString();
+		}
+		try (BufferedReader br = new BufferedReader(new InputStreamReader(
+				responseEntity.getContent()))){
+			String line;
+			line = br.readLine();
+			while (line != null) {
+				body.append(line + "\n"); //$NON-NLS-1$
+				line = br.readLine();
+			}
+		} catch (IOException e) {
+			// ignore
+		}
+		return body.toString();
+	}
+
 }
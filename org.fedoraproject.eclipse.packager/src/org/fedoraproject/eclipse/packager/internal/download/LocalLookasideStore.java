@@ -0,0 +1,331 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.internal.download;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
+import org.fedoraproject.eclipse.packager.FedoraPackagerPreferencesConstants;
+import org.fedoraproject.eclipse.packager.FedoraPackagerText;
+import org.fedoraproject.eclipse.packager.utils.ChecksumCache;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
+
+/**
+ * On-disk, content-addressed store of sources shared by all projects and
+ * branches. Files are stored by checksum, so a source downloaded once for any
+ * checkout can be placed into every other checkout without network access.
+ * Files are placed as a reflink or hardlink where the file system allows it
+ * and copied otherwise. The store is limited to a size quota; the least
+ * recently used files are evicted first.
+ */
+public class LocalLookasideStore {
+
+	private static final String INDEX_FILENAME = "index"; //$NON-NLS-1$
+	private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+	private static final long MIB = 1024 * 1024;
+	private static final FedoraPackagerLogger logger = FedoraPackagerLogger.getInstance();
+
+	private static LocalLookasideStore instance;
+
+	private final File root;
+	private final File indexFile;
+	private long quota;
+	// relative path => last use, in LRU order
+	private Map<String, Long> lastUse;
+	// null until the first attempt
+	private Boolean reflinkSupported;
+
+	/**
+	 * @param root
+	 *            The directory holding the store.
+	 * @param quota
+	 *            The maximum size of the store in bytes, 0 disables the store.
+	 */
+	public LocalLookasideStore(File root, long quota) {
+		this.root = root;
+		this.indexFile = new File(root, INDEX_FILENAME);
+		this.quota = quota;
+	}
+
+	/**
+	 * @return The store shared by all projects, located in the user's cache
+	 *         directory.
+	 */
+	public static synchronized LocalLookasideStore getDefault() {
+		if (instance == null) {
+			String cacheHome = System.getenv("XDG_CACHE_HOME"); //$NON-NLS-1$
+			File cacheDir = cacheHome != null && !cacheHome.isEmpty() ? new File(
+					cacheHome) : new File(System.getProperty("user.home"), //$NON-NLS-1$
+					".cache"); //$NON-NLS-1$
+			instance = new LocalLookasideStore(new File(cacheDir,
+					"fedorapackager/lookaside"), //$NON-NLS-1$
+					FedoraPackagerPreferencesConstants.DEFAULT_LOOKASIDE_STORE_QUOTA
+							* MIB);
+		}
+		return instance;
+	}
+
+	/**
+	 * @param quotaMiB
+	 *            The maximum size of the store in MiB, 0 disables the store.
+	 */
+	public synchronized void setQuota(long quotaMiB) {
+		this.quota = Math.max(0, quotaMiB) * MIB;
+	}
+
+	/**
+	 * @return {@code true} if the store may be used.
+	 */
+	public synchronized boolean isEnabled() {
+		return quota > 0;
+	}
+
+	/**
+	 * Place a stored file at the given location, replacing an existing file.
+	 *
+	 * @param checksum
+	 *            The checksum of the wanted file.
+	 * @param target
+	 *            The location to place the file at.
+	 * @return {@code true} if the file was in the store and has been placed,
+	 *         {@code false} otherwise.
+	 */
+	public boolean retrieve(String checksum, File target) {
+		Algorithm algorithm = Algorithm.forChecksum(checksum);
+		if (!isEnabled() || algorithm == null) {
+			return false;
+		}
+		String key = keyFor(algorithm, checksum);
+		File stored = new File(root, key);
+		if (!stored.isFile()) {
+			return false;
+		}
+		try {
+			// hardlinked files may have been modified through a checkout
+			if (!ChecksumCache.getInstance().matches(stored, checksum)) {
+				stored.delete();
+				forget(key);
+				return false;
+			}
+			File temp = new File(target.getParentFile(), "." //$NON-NLS-1$
+					+ target.getName() + TEMP_SUFFIX);
+			place(stored, temp);
+			Files.move(temp.toPath(), target.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			ChecksumCache.getInstance().putChecksum(target, algorithm,
+					checksum);
+			touch(key);
+			return true;
+		} catch (IOException e) {
+			logger.logError(FedoraPackagerText.LocalLookasideStore_retrieveFailedMsg, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Add a verified file to the store and evict old files if the quota is
+	 * exceeded.
+	 *
+	 * @param checksum
+	 *            The checksum of the file.
+	 * @param file
+	 *            The file to add.
+	 */
+	public void add(String checksum, File file) {
+		Algorithm algorithm = Algorithm.forChecksum(checksum);
+		if (!isEnabled() || algorithm == null || file.length() > quota) {
+			return;
+		}
+		String key = keyFor(algorithm, checksum);
+		File stored = new File(root, key);
+		try {
+			if (!stored.isFile()) {
+				stored.getParentFile().mkdirs();
+				File temp = new File(stored.getPath() + TEMP_SUFFIX);
+				place(file, temp);
+				Files.move(temp.toPath(), stored.toPath(),
+						StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+				ChecksumCache.getInstance().putChecksum(stored, algorithm,
+						checksum);
+			}
+			touch(key);
+			evict();
+		} catch (IOException e) {
+			logger.logError(FedoraPackagerText.LocalLookasideStore_addFailedMsg, e);
+		}
+	}
+
+	private static String keyFor(Algorithm algorithm, String checksum) {
+		String hash = checksum.toLowerCase(Locale.ENGLISH);
+		return algorithm.name().toLowerCase(Locale.ENGLISH) + '/'
+				+ hash.substring(0, 2) + '/' + hash;
+	}
+
+	/**
+	 * Create {@code to} with the content of {@code from}, sharing blocks if
+	 * possible.
+	 */
+	private void place(File from, File to) throws IOException {
+		Files.deleteIfExists(to.toPath());
+		if (reflink(from, to)) {
+			return;
+		}
+		try {
+			Files.createLink(to.toPath(), from.toPath());
+		} catch (IOException | UnsupportedOperationException e) {
+			// e.g. different file systems
+			Files.copy(from.toPath(), to.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Copy-on-write clone, supported by e.g. btrfs and xfs. Reflinks are
+	 * preferred over hardlinks since changes to either file stay private.
+	 */
+	private boolean reflink(File from, File to) {
+		synchronized (this) {
+			if (Boolean.FALSE.equals(reflinkSupported)
+					|| !File.separator.equals("/")) { //$NON-NLS-1$
+				return false;
+			}
+		}
+		boolean success;
+		try {
+			Process cp = new ProcessBuilder("cp", "--reflink=always", //$NON-NLS-1$ //$NON-NLS-2$
+					from.getAbsolutePath(), to.getAbsolutePath())
+					.redirectErrorStream(true).start();
+			cp.getInputStream().close();
+			success = cp.waitFor() == 0;
+		} catch (IOException e) {
+			success = false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			success = false;
+		}
+		synchronized (this) {
+			if (reflinkSupported == null) {
+				reflinkSupported = Boolean.valueOf(success);
+			}
+		}
+		return success;
+	}
+
+	private synchronized void touch(String key) {
+		loadIndex();
+		lastUse.remove(key);
+		lastUse.put(key, Long.valueOf(System.currentTimeMillis()));
+		saveIndex();
+	}
+
+	private synchronized void forget(String key) {
+		loadIndex();
+		lastUse.remove(key);
+		saveIndex();
+	}
+
+	/**
+	 * Remove least recently used files until the store fits into its quota.
+	 */
+	private synchronized void evict() {
+		loadIndex();
+		long size = 0;
+		List<String> missing = new ArrayList<>();
+		for (String key : lastUse.keySet()) {
+			File stored = new File(root, key);
+			if (stored.isFile()) {
+				size += stored.length();
+			} else {
+				missing.add(key);
+			}
+		}
+		lastUse.keySet().removeAll(missing);
+		List<String> keys = new ArrayList<>(lastUse.keySet());
+		for (int i = 0; i < keys.size() - 1 && size > quota; i++) {
+			File stored = new File(root, keys.get(i));
+			long length = stored.length();
+			if (stored.delete()) {
+				size -= length;
+				lastUse.remove(keys.get(i));
+			}
+		}
+		saveIndex();
+	}
+
+	private void loadIndex() {
+		if (lastUse != null) {
+			return;
+		}
+		Map<String, Long> indexed = new LinkedHashMap<>();
+		if (indexFile.isFile()) {
+			try (BufferedReader reader = new BufferedReader(new FileReader(
+					indexFile))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] fields = line.split(" "); //$NON-NLS-1$
+					if (fields.length == 2) {
+						indexed.put(fields[1], Long.valueOf(fields[0]));
+					}
+				}
+			} catch (IOException | NumberFormatException e) {
+				indexed.clear();
+			}
+		}
+		// files missing from the index, e.g. after a crash, are evicted first
+		lastUse = new LinkedHashMap<>();
+		for (Algorithm algorithm : Algorithm.values()) {
+			File[] prefixes = new File(root, algorithm.name().toLowerCase(
+					Locale.ENGLISH)).listFiles();
+			for (File prefix : prefixes == null ? new File[0] : prefixes) {
+				File[] files = prefix.listFiles();
+				for (File file : files == null ? new File[0] : files) {
+					String key = algorithm.name().toLowerCase(Locale.ENGLISH)
+							+ '/' + prefix.getName() + '/' + file.getName();
+					if (!key.endsWith(TEMP_SUFFIX) && !indexed.containsKey(key)) {
+						lastUse.put(key, Long.valueOf(file.lastModified()));
+					}
+				}
+			}
+		}
+		lastUse.putAll(indexed);
+	}
+
+	private void saveIndex() {
+		root.mkdirs();
+		File temp = new File(indexFile.getPath() + TEMP_SUFFIX);
+		try {
+			try (PrintWriter writer = new PrintWriter(temp)) {
+				for (Map.Entry<String, Long> entry : lastUse.entrySet()) {
+					writer.println(entry.getValue() + " " + entry.getKey()); //$NON-NLS-1$
+				}
+			}
+			Files.move(temp.toPath(), indexFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.logError(
+					FedoraPackagerText.LocalLookasideStore_saveIndexFailedMsg, e);
+		}
+	}
+}
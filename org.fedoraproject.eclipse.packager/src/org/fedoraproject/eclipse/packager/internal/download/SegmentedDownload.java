@@ -0,0 +1,498 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.internal.download;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.codec.binary.Hex;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.osgi.util.NLS;
+import org.fedoraproject.eclipse.packager.FedoraPackagerText;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
+
+/**
+ * Download of a single file into a {@code .part} file which survives failed
+ * and cancelled downloads. If the server accepts byte ranges, the download is
+ * resumed where it stopped and large files are split into several segments
+ * which are fetched concurrently. Progress of the segments is kept in a small
+ * state file next to the {@code .part} file.
+ * <p>
+ * If a checksum algorithm is set, the digest is updated with the data of the
+ * first segment while it arrives. Only data which could not be digested on
+ * the fly, i.e. resumed data or further segments, is read back from disk once
+ * the download is complete.
+ * </p>
+ */
+public class SegmentedDownload {
+
+	/**
+	 * Suffix appended to the name of the {@code .part} file to get the name
+	 * of its state file.
+	 */
+	public static final String STATE_SUFFIX = ".segments"; //$NON-NLS-1$
+	private static final String ACCEPT_RANGES_HEADER = "Accept-Ranges"; //$NON-NLS-1$
+	private static final String RANGE_HEADER = "Range"; //$NON-NLS-1$
+	private static final String BYTES_UNIT = "bytes"; //$NON-NLS-1$
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// Use 30 sec connection timeout
+	private static final int CONNECTION_TIMEOUT = 30000;
+	// Persist segment state at most once per second
+	private static final long STATE_SAVE_INTERVAL = 1000;
+
+	private final URL url;
+	private final File partFile;
+	private final File stateFile;
+	private int maxSegments = 1;
+	private long minSegmentSize = 16 * 1024 * 1024;
+
+	private long contentLength = -1;
+	private boolean rangesSupported = false;
+	private List<Segment> segments;
+
+	private MessageDigest digest;
+	// number of bytes from the start of the file passed to the digest
+	private long digested;
+	private Segment digestSegment;
+
+	private IProgressMonitor monitor;
+	private long transferred;
+	private int reportedWork;
+	private long lastStateSave;
+	private String checksum;
+
+	/**
+	 * A byte range of the file fetched with its own connection.
+	 */
+	private static class Segment {
+		final long start;
+		// exclusive, -1 if the content length is unknown
+		final long end;
+		volatile long done;
+
+		Segment(long start, long end, long done) {
+			this.start = start;
+			this.end = end;
+			this.done = done;
+		}
+
+		boolean isComplete() {
+			return end >= 0 && start + done >= end;
+		}
+	}
+
+	/**
+	 * @param url
+	 *            The URL to download from.
+	 * @param partFile
+	 *            The file to download into. It is kept if the download does
+	 *            not complete.
+	 */
+	public SegmentedDownload(URL url, File partFile) {
+		this.url = url;
+		this.partFile = partFile;
+		this.stateFile = new File(partFile.getPath() + STATE_SUFFIX);
+	}
+
+	/**
+	 * Set the maximum number of concurrent connections used for this file.
+	 * Files smaller than twice the minimum segment size are never split.
+	 *
+	 * @param maxSegments
+	 *            The maximum number of segments.
+	 */
+	public void setMaxSegments(int maxSegments) {
+		this.maxSegments = Math.max(1, maxSegments);
+	}
+
+	/**
+	 * Calculate a checksum of the downloaded file.
+	 *
+	 * @param algorithm
+	 *            The checksum algorithm.
+	 */
+	public void setChecksumAlgorithm(Algorithm algorithm) {
+		this.digest = algorithm.newDigest();
+	}
+
+	/**
+	 * @return The hex encoded checksum of the complete file, if a checksum
+	 *         algorithm was set and {@link #transfer(IProgressMonitor)}
+	 *         returned {@code true}, {@code null} otherwise.
+	 */
+	public String getChecksum() {
+		return checksum;
+	}
+
+	/**
+	 * @param minSegmentSize
+	 *            The minimum size in bytes of one segment.
+	 */
+	public void setMinSegmentSize(long minSegmentSize) {
+		this.minSegmentSize = Math.max(1, minSegmentSize);
+	}
+
+	/**
+	 * Ask the server for length and range support of the file.
+	 *
+	 * @throws FileNotFoundException
+	 *             If the server does not have the file.
+	 * @throws IOException
+	 *             If the request failed.
+	 */
+	public void open() throws IOException {
+		HttpURLConnection connection = openConnection();
+		try {
+			connection.setRequestMethod("HEAD"); //$NON-NLS-1$
+			int code = connection.getResponseCode();
+			if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+				throw new FileNotFoundException(url.toString());
+			}
+			if (code != HttpURLConnection.HTTP_OK) {
+				throw unexpectedResponse(code);
+			}
+			contentLength = connection.getContentLengthLong();
+			rangesSupported = contentLength > 0
+					&& BYTES_UNIT.equalsIgnoreCase(connection
+							.getHeaderField(ACCEPT_RANGES_HEADER));
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * @return The size of the file in bytes or -1 if unknown.
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	/**
+	 * @return The amount of work to pass to
+	 *         {@link IProgressMonitor#beginTask(String, int)} for
+	 *         {@link #transfer(IProgressMonitor)}.
+	 */
+	public int getTotalWork() {
+		return contentLength < 0 ? IProgressMonitor.UNKNOWN
+				: toWork(contentLength);
+	}
+
+	/**
+	 * @return The file the content is downloaded into.
+	 */
+	public File getPartFile() {
+		return partFile;
+	}
+
+	/**
+	 * Download the file, resuming a previous attempt if possible. Must be
+	 * called after {@link #open()}.
+	 *
+	 * @param progressMonitor
+	 *            The monitor to report progress to and to check for
+	 *            cancellation.
+	 * @return {@code true} if the file is complete, {@code false} if the
+	 *         download was cancelled.
+	 * @throws IOException
+	 *             If the download failed. Data downloaded so far is kept.
+	 */
+	public boolean transfer(IProgressMonitor progressMonitor)
+			throws IOException {
+		this.monitor = progressMonitor;
+		segments = rangesSupported ? loadState() : null;
+		if (segments == null) {
+			// can't resume
+			partFile.delete();
+			segments = planSegments();
+		}
+		for (Segment segment : segments) {
+			transferred += segment.done;
+		}
+		if (digest != null && segments.get(0).done == 0) {
+			digestSegment = segments.get(0);
+		}
+		reportProgress(0);
+		try (FileChannel channel = FileChannel.open(partFile.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			if (rangesSupported) {
+				saveState();
+			}
+			List<Segment> pending = new ArrayList<>();
+			for (Segment segment : segments) {
+				if (!segment.isComplete()) {
+					pending.add(segment);
+				}
+			}
+			if (pending.size() == 1) {
+				fetch(pending.get(0), channel);
+			} else if (pending.size() > 1) {
+				fetchConcurrently(pending, channel);
+			}
+			if (digest != null && !isCanceled()) {
+				finishDigest(channel);
+			}
+		} finally {
+			if (rangesSupported) {
+				saveState();
+			}
+		}
+		if (isCanceled()) {
+			return false;
+		}
+		stateFile.delete();
+		return true;
+	}
+
+	/**
+	 * Remove the downloaded data and any resume state.
+	 */
+	public void discard() {
+		discard(partFile);
+	}
+
+	/**
+	 * Remove the data and resume state of a download which won't be resumed.
+	 *
+	 * @param partFile
+	 *            The file the download was written to.
+	 */
+	public static void discard(File partFile) {
+		partFile.delete();
+		new File(partFile.getPath() + STATE_SUFFIX).delete();
+	}
+
+	/**
+	 * Read everything which was not digested while downloading from disk.
+	 */
+	private void finishDigest(FileChannel channel) throws IOException {
+		long size = channel.size();
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		while (digested < size) {
+			buffer.clear();
+			int bytesRead = channel.read(buffer, digested);
+			if (bytesRead == -1) {
+				break;
+			}
+			buffer.flip();
+			digest.update(buffer);
+			digested += bytesRead;
+		}
+		checksum = Hex.encodeHexString(digest.digest());
+	}
+
+	private List<Segment> planSegments() {
+		List<Segment> plan = new ArrayList<>();
+		int count = 1;
+		if (rangesSupported) {
+			count = (int) Math.max(1,
+					Math.min(maxSegments, contentLength / minSegmentSize));
+		}
+		if (count == 1) {
+			plan.add(new Segment(0, contentLength, 0));
+			return plan;
+		}
+		long segmentSize = contentLength / count;
+		for (int i = 0; i < count; i++) {
+			long start = i * segmentSize;
+			long end = i == count - 1 ? contentLength : start + segmentSize;
+			plan.add(new Segment(start, end, 0));
+		}
+		return plan;
+	}
+
+	private void fetchConcurrently(List<Segment> pending,
+			final FileChannel channel) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(pending.size());
+		try {
+			List<Future<Void>> results = new ArrayList<>();
+			for (final Segment segment : pending) {
+				results.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						fetch(segment, channel);
+						return null;
+					}
+				}));
+			}
+			IOException failure = null;
+			for (Future<Void> result : results) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause() instanceof IOException ? (IOException) e
+								.getCause() : new IOException(e.getCause());
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void fetch(Segment segment, FileChannel channel) throws IOException {
+		long position = segment.start + segment.done;
+		boolean ranged = rangesSupported
+				&& (position > 0 || segment.end != contentLength);
+		HttpURLConnection connection = openConnection();
+		if (ranged) {
+			connection.setRequestProperty(RANGE_HEADER, BYTES_UNIT + "=" //$NON-NLS-1$
+					+ position + "-" + (segment.end - 1)); //$NON-NLS-1$
+		}
+		try {
+			int code = connection.getResponseCode();
+			if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+				throw new FileNotFoundException(url.toString());
+			}
+			if (code != (ranged ? HttpURLConnection.HTTP_PARTIAL
+					: HttpURLConnection.HTTP_OK)) {
+				throw unexpectedResponse(code);
+			}
+			try (InputStream in = connection.getInputStream()) {
+				byte[] buf = new byte[BUFFER_SIZE];
+				while (segment.end < 0 || position < segment.end) {
+					if (isCanceled()) {
+						return;
+					}
+					int max = segment.end < 0 ? buf.length : (int) Math.min(
+							buf.length, segment.end - position);
+					int bytesRead = in.read(buf, 0, max);
+					if (bytesRead == -1) {
+						break;
+					}
+					ByteBuffer buffer = ByteBuffer.wrap(buf, 0, bytesRead);
+					while (buffer.hasRemaining()) {
+						position += channel.write(buffer, position);
+					}
+					if (segment == digestSegment) {
+						digest.update(buf, 0, bytesRead);
+						digested += bytesRead;
+					}
+					segment.done += bytesRead;
+					reportProgress(bytesRead);
+				}
+			}
+			if (segment.end >= 0 && position < segment.end) {
+				throw new EOFException(url.toString());
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private HttpURLConnection openConnection() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setConnectTimeout(CONNECTION_TIMEOUT);
+		connection.setReadTimeout(CONNECTION_TIMEOUT);
+		return connection;
+	}
+
+	private IOException unexpectedResponse(int code) {
+		return new IOException(NLS.bind(
+				FedoraPackagerText.SegmentedDownload_unexpectedResponse, url,
+				code));
+	}
+
+	private synchronized boolean isCanceled() {
+		return monitor.isCanceled();
+	}
+
+	/**
+	 * Report progress in KiB, since byte counts don't fit into an int.
+	 */
+	private synchronized void reportProgress(int bytes) {
+		transferred += bytes;
+		int work = toWork(transferred);
+		if (work > reportedWork) {
+			monitor.worked(work - reportedWork);
+			reportedWork = work;
+		}
+		if (rangesSupported
+				&& System.currentTimeMillis() - lastStateSave > STATE_SAVE_INTERVAL) {
+			saveState();
+		}
+	}
+
+	private static int toWork(long bytes) {
+		return (int) (bytes / 1024);
+	}
+
+	/**
+	 * Load the segments of a previous attempt.
+	 *
+	 * @return The segments or {@code null} if there is nothing to resume.
+	 */
+	private List<Segment> loadState() {
+		if (!partFile.isFile() || !stateFile.isFile()) {
+			return null;
+		}
+		List<Segment> loaded = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(
+				stateFile))) {
+			String line = reader.readLine();
+			if (line == null || Long.parseLong(line) != contentLength) {
+				return null;
+			}
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split(" "); //$NON-NLS-1$
+				loaded.add(new Segment(Long.parseLong(fields[0]), Long
+						.parseLong(fields[1]), Long.parseLong(fields[2])));
+			}
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+		return loaded.isEmpty() ? null : loaded;
+	}
+
+	/**
+	 * Persist the segments. Recorded progress never exceeds the data written
+	 * to the {@code .part} file, so a stale state only costs re-downloading a
+	 * few bytes.
+	 */
+	private synchronized void saveState() {
+		lastStateSave = System.currentTimeMillis();
+		try (PrintWriter writer = new PrintWriter(stateFile)) {
+			writer.println(contentLength);
+			for (Segment segment : segments) {
+				writer.println(segment.start + " " + segment.end + " " //$NON-NLS-1$ //$NON-NLS-2$
+						+ segment.done);
+			}
+		} catch (IOException e) {
+			// resuming is best effort only
+		}
+	}
+}
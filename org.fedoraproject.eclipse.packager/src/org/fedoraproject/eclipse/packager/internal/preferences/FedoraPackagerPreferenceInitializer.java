@@ -38,6 +38,14 @@ public class FedoraPackagerPreferenceInitializer extends AbstractPreferenceIniti
 				FedoraPackagerPreferencesConstants.DEFAULT_LOOKASIDE_DOWNLOAD_URL);
 		node.put(FedoraPackagerPreferencesConstants.PREF_LOOKASIDE_UPLOAD_URL,
 				FedoraPackagerPreferencesConstants.DEFAULT_LOOKASIDE_UPLOAD_URL);
+		node.putInt(FedoraPackagerPreferencesConstants.PREF_DOWNLOAD_CONCURRENCY,
+				FedoraPackagerPreferencesConstants.DEFAULT_DOWNLOAD_CONCURRENCY);
+		node.putInt(FedoraPackagerPreferencesConstants.PREF_LOOKASIDE_STORE_QUOTA,
+				FedoraPackagerPreferencesConstants.DEFAULT_LOOKASIDE_STORE_QUOTA);
+		node.putInt(FedoraPackagerPreferencesConstants.PREF_UPLOAD_BANDWIDTH_LIMIT,
+				FedoraPackagerPreferencesConstants.DEFAULT_UPLOAD_BANDWIDTH_LIMIT);
+		node.putInt(FedoraPackagerPreferencesConstants.PREF_CONSOLE_LINE_LIMIT,
+				FedoraPackagerPreferencesConstants.DEFAULT_CONSOLE_LINE_LIMIT);
 		// Koji prefs
 		node.put(FedoraPackagerPreferencesConstants.PREF_KOJI_WEB_URL, FedoraPackagerPreferencesConstants.DEFAULT_KOJI_WEB_URL);
 		node.put(FedoraPackagerPreferencesConstants.PREF_KOJI_HUB_URL, FedoraPackagerPreferencesConstants.DEFAULT_KOJI_HUB_URL);
@@ -59,6 +67,14 @@ public class FedoraPackagerPreferenceInitializer extends AbstractPreferenceIniti
 				FedoraPackagerPreferencesConstants.DEFAULT_LOOKASIDE_DOWNLOAD_URL);
 		prefStore.setDefault(FedoraPackagerPreferencesConstants.PREF_LOOKASIDE_UPLOAD_URL,
 				FedoraPackagerPreferencesConstants.DEFAULT_LOOKASIDE_UPLOAD_URL);
+		prefStore.setDefault(FedoraPackagerPreferencesConstants.PREF_DOWNLOAD_CONCURRENCY,
+				FedoraPackagerPreferencesConstants.DEFAULT_DOWNLOAD_CONCURRENCY);
+		prefStore.setDefault(FedoraPackagerPreferencesConstants.PREF_LOOKASIDE_STORE_QUOTA,
+				FedoraPackagerPreferencesConstants.DEFAULT_LOOKASIDE_STORE_QUOTA);
+		prefStore.setDefault(FedoraPackagerPreferencesConstants.PREF_UPLOAD_BANDWIDTH_LIMIT,
+				FedoraPackagerPreferencesConstants.DEFAULT_UPLOAD_BANDWIDTH_LIMIT);
+		prefStore.setDefault(FedoraPackagerPreferencesConstants.PREF_CONSOLE_LINE_LIMIT,
+				FedoraPackagerPreferencesConstants.DEFAULT_CONSOLE_LINE_LIMIT);
 		// Koji prefs
 		prefStore.setDefault(FedoraPackagerPreferencesConstants.PREF_KOJI_WEB_URL, FedoraPackagerPreferencesConstants.DEFAULT_KOJI_WEB_URL);
 		prefStore.setDefault(FedoraPackagerPreferencesConstants.PREF_KOJI_HUB_URL, FedoraPackagerPreferencesConstants.DEFAULT_KOJI_HUB_URL);
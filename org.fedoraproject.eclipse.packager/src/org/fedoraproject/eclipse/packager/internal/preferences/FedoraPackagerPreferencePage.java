@@ -19,6 +19,7 @@ import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.FieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.StringButtonFieldEditor;
 import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.jface.util.PropertyChangeEvent;
@@ -48,6 +49,9 @@ public class FedoraPackagerPreferencePage extends FieldEditorPreferencePage
 	private static final int GROUP_SPAN = 2;
 	private static final String HTTP_PREFIX = "http"; //$NON-NLS-1$
 	private static final String DIR = "/"; //$NON-NLS-1$
+	private static final int MAX_DOWNLOAD_CONCURRENCY = 16;
+	private static final int MIN_CONSOLE_LINE_LIMIT = 100;
+	private static final int MAX_CONSOLE_LINE_LIMIT = 200000;
 
 	// Lookaside cache
 	private StringFieldEditor lookasideUploadURLEditor;
@@ -172,6 +176,13 @@ public class FedoraPackagerPreferencePage extends FieldEditorPreferencePage
 				FedoraPackagerPreferencesConstants.PREF_DEBUG_MODE,
 				FedoraPackagerText.FedoraPackagerPreferencePage_debugSwitchLabel,
 				generalGroup));
+		IntegerFieldEditor consoleLineLimitEditor = new IntegerFieldEditor(
+				FedoraPackagerPreferencesConstants.PREF_CONSOLE_LINE_LIMIT,
+				FedoraPackagerText.FedoraPackagerPreferencePage_consoleLineLimitLabel,
+				generalGroup);
+		consoleLineLimitEditor.setValidRange(MIN_CONSOLE_LINE_LIMIT,
+				MAX_CONSOLE_LINE_LIMIT);
+		addField(consoleLineLimitEditor);
 		fedpkgConfigEnabledSwitch = new BooleanFieldEditor(
 				FedoraPackagerPreferencesConstants.PREF_FEDPKG_CONFIG_ENABLED,
 				FedoraPackagerText.FedoraPackagerPreferencePage_fedpkgConfigSwitch,
@@ -200,6 +211,24 @@ public class FedoraPackagerPreferencePage extends FieldEditorPreferencePage
 		lookasideDownloadURLEditor.load();
 		lookasideDownloadURLEditor.setPropertyChangeListener(this);
 		addField(lookasideDownloadURLEditor);
+		IntegerFieldEditor downloadConcurrencyEditor = new IntegerFieldEditor(
+				FedoraPackagerPreferencesConstants.PREF_DOWNLOAD_CONCURRENCY,
+				FedoraPackagerText.FedoraPackagerPreferencePage_downloadConcurrencyLabel,
+				lookasideGroup);
+		downloadConcurrencyEditor.setValidRange(1, MAX_DOWNLOAD_CONCURRENCY);
+		addField(downloadConcurrencyEditor);
+		IntegerFieldEditor localStoreQuotaEditor = new IntegerFieldEditor(
+				FedoraPackagerPreferencesConstants.PREF_LOOKASIDE_STORE_QUOTA,
+				FedoraPackagerText.FedoraPackagerPreferencePage_localStoreQuotaLabel,
+				lookasideGroup);
+		localStoreQuotaEditor.setValidRange(0, Integer.MAX_VALUE);
+		addField(localStoreQuotaEditor);
+		IntegerFieldEditor uploadBandwidthLimitEditor = new IntegerFieldEditor(
+				FedoraPackagerPreferencesConstants.PREF_UPLOAD_BANDWIDTH_LIMIT,
+				FedoraPackagerText.FedoraPackagerPreferencePage_uploadBandwidthLimitLabel,
+				lookasideGroup);
+		uploadBandwidthLimitEditor.setValidRange(0, Integer.MAX_VALUE);
+		addField(uploadBandwidthLimitEditor);
 		updateMargins(lookasideGroup);
 		((GridLayout) lookasideGroup.getLayout()).numColumns = 3;
 
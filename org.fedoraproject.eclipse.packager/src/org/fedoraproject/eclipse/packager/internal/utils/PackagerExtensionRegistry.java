@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.internal.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IRegistryEventListener;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.QualifiedName;
+import org.fedoraproject.eclipse.packager.IProjectRoot;
+import org.fedoraproject.eclipse.packager.PackagerPlugin;
+
+/**
+ * Index of the contributions to the extension points of Fedora Packager. The
+ * registry is scanned once, on first use, and the index is dropped whenever
+ * plug-ins add or remove contributions to one of those extension points.
+ * Callers create new instances from the indexed configuration elements.
+ */
+public class PackagerExtensionRegistry implements IRegistryEventListener {
+
+	private static final String CMD_EXTENSIONPOINT_NAME = "packagerCommandContribution"; //$NON-NLS-1$
+	private static final String VCS_CONTRIBUTION_EXTENSIONPOINT_NAME = "vcsContribution"; //$NON-NLS-1$
+	private static final String PROJECT_ROOT_EXTENSIONPOINT_NAME = "projectRootProvider"; //$NON-NLS-1$
+	private static final String CMD_ELEMENT_NAME = "command"; //$NON-NLS-1$
+	private static final String CMD_ID_ATTRIBUTE_NAME = "id"; //$NON-NLS-1$
+	private static final String VCS_CONTRIBUTION_ELEMENT_NAME = "vcs"; //$NON-NLS-1$
+	private static final String VCS_CONTRIBUTION_CONTRIB_PLUGIN_ID_ATTRIBUTE_NAME = "contribPlugin"; //$NON-NLS-1$
+	private static final String PROJECT_ROOT_ELEMENT_NAME = "projectRoot"; //$NON-NLS-1$
+	private static final String PROJECT_ROOT_CLASS_ATTRIBUTE_NAME = "class"; //$NON-NLS-1$
+
+	private static final PackagerExtensionRegistry INSTANCE = new PackagerExtensionRegistry();
+
+	/**
+	 * A project root contribution and the project properties it supports.
+	 */
+	public static class ProjectRootDescriptor {
+		private final IConfigurationElement element;
+		private final QualifiedName[] propertyNames;
+
+		ProjectRootDescriptor(IConfigurationElement element,
+				QualifiedName[] propertyNames) {
+			this.element = element;
+			this.propertyNames = propertyNames;
+		}
+
+		/**
+		 * @return The project properties supported by the project root.
+		 */
+		public QualifiedName[] getSupportedProjectPropertyNames() {
+			return propertyNames.clone();
+		}
+
+		/**
+		 * @return A new, uninitialized instance of the project root.
+		 * @throws CoreException
+		 *             If the contributed class can't be instantiated.
+		 */
+		public IProjectRoot createProjectRoot() throws CoreException {
+			return (IProjectRoot) element
+					.createExecutableExtension(PROJECT_ROOT_CLASS_ATTRIBUTE_NAME);
+		}
+	}
+
+	/**
+	 * Snapshot of the contributions, replaced as a whole on registry
+	 * changes.
+	 */
+	private static class Index {
+		final Map<String, IConfigurationElement> commands = new HashMap<>();
+		final List<IConfigurationElement> vcsContributions = new ArrayList<>();
+		final Map<String, IConfigurationElement> vcsByQualifier = Collections
+				.synchronizedMap(new HashMap<String, IConfigurationElement>());
+		final List<IConfigurationElement> projectRoots = new ArrayList<>();
+		volatile List<ProjectRootDescriptor> projectRootDescriptors;
+	}
+
+	private volatile Index index;
+
+	private PackagerExtensionRegistry() {
+		// singleton
+	}
+
+	/**
+	 * @return The shared instance.
+	 */
+	public static PackagerExtensionRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Start listening for changes of the extension registry.
+	 */
+	public void install() {
+		Platform.getExtensionRegistry().addListener(this);
+	}
+
+	/**
+	 * Stop listening for changes and drop the index.
+	 */
+	public void uninstall() {
+		Platform.getExtensionRegistry().removeListener(this);
+		index = null;
+	}
+
+	/**
+	 * @param commandId
+	 *            The ID of the command.
+	 * @return The contribution of the command, or {@code null} if there is
+	 *         none.
+	 */
+	public IConfigurationElement getCommand(String commandId) {
+		return getIndex().commands.get(commandId);
+	}
+
+	/**
+	 * @param qualifier
+	 *            The qualifier of the project property naming the VCS.
+	 * @return The first VCS contribution of a plug-in whose ID starts with
+	 *         {@code qualifier}, or {@code null} if there is none.
+	 */
+	public IConfigurationElement getVcsContribution(String qualifier) {
+		Index current = getIndex();
+		IConfigurationElement vcs = current.vcsByQualifier.get(qualifier);
+		if (vcs == null) {
+			for (IConfigurationElement element : current.vcsContributions) {
+				if (element.getAttribute(
+						VCS_CONTRIBUTION_CONTRIB_PLUGIN_ID_ATTRIBUTE_NAME)
+						.startsWith(qualifier)) {
+					vcs = element;
+					current.vcsByQualifier.put(qualifier, vcs);
+					break;
+				}
+			}
+		}
+		return vcs;
+	}
+
+	/**
+	 * Get the project root contributions. The supported project properties
+	 * of each are determined once by instantiating it.
+	 *
+	 * @return The project root contributions in registry order.
+	 * @throws CoreException
+	 *             If a contributed class can't be instantiated.
+	 */
+	public List<ProjectRootDescriptor> getProjectRoots() throws CoreException {
+		Index current = getIndex();
+		List<ProjectRootDescriptor> descriptors = current.projectRootDescriptors;
+		if (descriptors == null) {
+			descriptors = new ArrayList<>();
+			for (IConfigurationElement element : current.projectRoots) {
+				IProjectRoot prototype = (IProjectRoot) element
+						.createExecutableExtension(PROJECT_ROOT_CLASS_ATTRIBUTE_NAME);
+				assert prototype != null;
+				descriptors.add(new ProjectRootDescriptor(element, prototype
+						.getSupportedProjectPropertyNames()));
+			}
+			descriptors = Collections.unmodifiableList(descriptors);
+			current.projectRootDescriptors = descriptors;
+		}
+		return descriptors;
+	}
+
+	private Index getIndex() {
+		Index current = index;
+		if (current == null) {
+			synchronized (this) {
+				current = index;
+				if (current == null) {
+					current = buildIndex();
+					index = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	private static Index buildIndex() {
+		Index result = new Index();
+		for (IConfigurationElement command : getElements(CMD_EXTENSIONPOINT_NAME)) {
+			String id = command.getAttribute(CMD_ID_ATTRIBUTE_NAME);
+			// the first contribution wins, as it did for registry scans
+			if (command.getName().equals(CMD_ELEMENT_NAME) && id != null
+					&& !result.commands.containsKey(id)) {
+				result.commands.put(id, command);
+			}
+		}
+		for (IConfigurationElement vcs : getElements(VCS_CONTRIBUTION_EXTENSIONPOINT_NAME)) {
+			if (vcs.getName().equals(VCS_CONTRIBUTION_ELEMENT_NAME)
+					&& vcs.getAttribute(VCS_CONTRIBUTION_CONTRIB_PLUGIN_ID_ATTRIBUTE_NAME) != null) {
+				result.vcsContributions.add(vcs);
+			}
+		}
+		for (IConfigurationElement projectRoot : getElements(PROJECT_ROOT_EXTENSIONPOINT_NAME)) {
+			if (projectRoot.getName().equals(PROJECT_ROOT_ELEMENT_NAME)) {
+				result.projectRoots.add(projectRoot);
+			}
+		}
+		return result;
+	}
+
+	private static IConfigurationElement[] getElements(String extensionPointName) {
+		IExtensionPoint extensionPoint = Platform.getExtensionRegistry()
+				.getExtensionPoint(PackagerPlugin.PLUGIN_ID, extensionPointName);
+		if (extensionPoint == null) {
+			return new IConfigurationElement[0];
+		}
+		return extensionPoint.getConfigurationElements();
+	}
+
+	/**
+	 * @return {@code true} if the extension point is indexed here.
+	 */
+	private static boolean isIndexed(String extensionPointId) {
+		for (String name : new String[] { CMD_EXTENSIONPOINT_NAME,
+				VCS_CONTRIBUTION_EXTENSIONPOINT_NAME,
+				PROJECT_ROOT_EXTENSIONPOINT_NAME }) {
+			if ((PackagerPlugin.PLUGIN_ID + '.' + name).equals(extensionPointId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void changed(IExtension[] extensions) {
+		for (IExtension extension : extensions) {
+			if (isIndexed(extension.getExtensionPointUniqueIdentifier())) {
+				index = null;
+				return;
+			}
+		}
+	}
+
+	private void changed(IExtensionPoint[] extensionPoints) {
+		for (IExtensionPoint extensionPoint : extensionPoints) {
+			if (isIndexed(extensionPoint.getUniqueIdentifier())) {
+				index = null;
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void added(IExtension[] extensions) {
+		changed(extensions);
+	}
+
+	@Override
+	public void removed(IExtension[] extensions) {
+		changed(extensions);
+	}
+
+	@Override
+	public void added(IExtensionPoint[] extensionPoints) {
+		changed(extensionPoints);
+	}
+
+	@Override
+	public void removed(IExtensionPoint[] extensionPoints) {
+		changed(extensionPoints);
+	}
+}
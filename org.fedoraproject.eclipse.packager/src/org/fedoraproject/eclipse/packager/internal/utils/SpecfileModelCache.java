@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.internal.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.linuxtools.rpm.ui.editor.markers.SpecfileErrorHandler;
+import org.eclipse.linuxtools.rpm.ui.editor.parser.Specfile;
+import org.eclipse.linuxtools.rpm.ui.editor.parser.SpecfileParser;
+import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
+import org.fedoraproject.eclipse.packager.FedoraPackagerText;
+
+/**
+ * Cache of parsed spec files, shared by all project roots. A model is parsed
+ * once per content change of its spec file; all callers get the same
+ * instance until then and must not modify it. Entries are dropped when a
+ * workspace change touches their file, and a stale modification stamp is
+ * detected even before that notification arrives.
+ */
+public class SpecfileModelCache implements IResourceChangeListener {
+
+	private static final SpecfileModelCache INSTANCE = new SpecfileModelCache();
+	private static final FedoraPackagerLogger logger = FedoraPackagerLogger
+			.getInstance();
+
+	/**
+	 * A parsed model and the modification stamp of the file it was parsed
+	 * from.
+	 */
+	private static class Entry {
+		final long stamp;
+		final Specfile model;
+
+		Entry(long stamp, Specfile model) {
+			this.stamp = stamp;
+			this.model = model;
+		}
+	}
+
+	private final Map<IFile, Entry> models = new ConcurrentHashMap<>();
+
+	private SpecfileModelCache() {
+		// singleton
+	}
+
+	/**
+	 * @return The shared instance.
+	 */
+	public static SpecfileModelCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Start listening for changes of spec files in the workspace.
+	 */
+	public void install() {
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(this,
+				IResourceChangeEvent.POST_CHANGE);
+	}
+
+	/**
+	 * Stop listening for changes and drop all cached models.
+	 */
+	public void uninstall() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+		models.clear();
+	}
+
+	/**
+	 * Get the parsed model of a spec file, parsing it only if it changed
+	 * since the last call. If the file can't be read, an empty model is
+	 * returned, but not cached, so the next call tries again.
+	 *
+	 * @param specFile
+	 *            The spec file.
+	 * @return The parsed model.
+	 */
+	public Specfile getModel(IFile specFile) {
+		long stamp = specFile.getModificationStamp();
+		Entry entry = models.get(specFile);
+		if (entry != null && entry.stamp == stamp) {
+			return entry.model;
+		}
+		// Parse at most once per change, even with concurrent readers. File
+		// handles aren't unique, so lock the cache.
+		synchronized (this) {
+			entry = models.get(specFile);
+			stamp = specFile.getModificationStamp();
+			if (entry == null || entry.stamp != stamp) {
+				String contents = read(specFile);
+				if (contents == null) {
+					return parse(specFile, ""); //$NON-NLS-1$
+				}
+				entry = new Entry(stamp, parse(specFile, contents));
+				models.put(specFile, entry);
+			}
+			return entry.model;
+		}
+	}
+
+	/**
+	 * @return The contents of a spec file, or {@code null} if it can't be
+	 *         read.
+	 */
+	private static String read(IFile specFile) {
+		StringBuilder sb = new StringBuilder();
+		String line = null;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				specFile.getContents()))) {
+			while ((line = reader.readLine()) != null) {
+				sb.append(line + "\n"); //$NON-NLS-1$
+			}
+		} catch (IOException e) {
+			logger.logError(FedoraPackagerText.FedoraProjectRoot_failureReadingFromFile, e);
+			return null;
+		} catch (CoreException e) {
+			logger.logError(FedoraPackagerText.FedoraProjectRoot_invalidResource, e);
+			return null;
+		}
+		return sb.toString();
+	}
+
+	private static Specfile parse(IFile specFile, String contents) {
+		SpecfileParser parser = new SpecfileParser();
+		parser.setErrorHandler(new SpecfileErrorHandler(specFile, new Document(contents)));
+		return parser.parse(contents);
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (models.isEmpty() || event.getDelta() == null) {
+			return;
+		}
+		try {
+			event.getDelta().accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta delta) {
+					IResource resource = delta.getResource();
+					if (resource.getType() == IResource.FILE) {
+						if (delta.getKind() != IResourceDelta.CHANGED
+								|| (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0) {
+							models.remove(resource);
+						}
+						return false;
+					}
+					// Deleted projects and folders report their files, too
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			// can't tell what changed, so forget everything
+			models.clear();
+		}
+	}
+}
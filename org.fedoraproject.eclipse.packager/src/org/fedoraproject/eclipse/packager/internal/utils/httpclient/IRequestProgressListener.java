@@ -16,8 +16,8 @@ package org.fedoraproject.eclipse.packager.internal.utils.httpclient;
 public interface IRequestProgressListener {
 
 	/**
-	 * Called each time x bytes of the total entity have been
-	 * written to the relevant output stream.
+	 * Called periodically while the entity is written to the relevant output
+	 * stream, and once after it has been written completely.
 	 * 
 	 * @param num The number of bytes written so far.
 	 */
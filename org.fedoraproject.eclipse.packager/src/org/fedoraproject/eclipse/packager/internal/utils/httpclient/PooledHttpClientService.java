@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.internal.utils.httpclient;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.fedoraproject.eclipse.packager.FedoraSSL;
+import org.fedoraproject.eclipse.packager.IHttpClientService;
+
+/**
+ * {@link IHttpClientService} keeping one connection pool per SSL policy.
+ */
+public class PooledHttpClientService implements IHttpClientService {
+
+	// Use 30 sec connection timeout
+	private static final int CONNECTION_TIMEOUT = 30000;
+	private static final int MAX_CONNECTIONS_PER_ROUTE = 4;
+	private static final int MAX_CONNECTIONS_TOTAL = 20;
+	// Servers close idle connections after about a minute
+	private static final long IDLE_TIMEOUT = 60;
+	private static final long EVICTION_INTERVAL = 30000;
+
+	/**
+	 * Connection pool of one SSL policy.
+	 */
+	private static class Pool {
+		final PoolingHttpClientConnectionManager manager;
+		// modification time of the client certificate the pool was set up for
+		final long certificateStamp;
+
+		Pool(PoolingHttpClientConnectionManager manager, long certificateStamp) {
+			this.manager = manager;
+			this.certificateStamp = certificateStamp;
+		}
+	}
+
+	private final Map<SslPolicy, Pool> pools = new EnumMap<>(SslPolicy.class);
+	private final RequestConfig requestConfig = RequestConfig.custom()
+			.setConnectTimeout(CONNECTION_TIMEOUT)
+			.setConnectionRequestTimeout(CONNECTION_TIMEOUT).build();
+	private Timer evictor;
+
+	@Override
+	public CloseableHttpClient createClient(SslPolicy policy)
+			throws GeneralSecurityException, IOException {
+		HttpClientBuilder builder = HttpClientBuilder.create();
+		builder.setConnectionManager(new SharedConnectionManager(
+				getPool(policy).manager));
+		builder.setDefaultRequestConfig(requestConfig);
+		// Connections authenticated by a client certificate are bound to
+		// that principal. A pool is only ever used with one certificate, so
+		// drop the binding in order to reuse them across clients.
+		builder.disableConnectionState();
+		return builder.build();
+	}
+
+	private synchronized Pool getPool(SslPolicy policy)
+			throws GeneralSecurityException, IOException {
+		long stamp = policy == SslPolicy.FEDORA_CERT ? new File(
+				FedoraSSL.DEFAULT_CERT_FILE).lastModified() : 0;
+		Pool pool = pools.get(policy);
+		if (pool != null && pool.certificateStamp == stamp) {
+			return pool;
+		}
+		if (pool != null) {
+			// certificate has been renewed
+			pool.manager.shutdown();
+		}
+		pool = new Pool(createManager(policy), stamp);
+		pools.put(policy, pool);
+		startEvictor();
+		return pool;
+	}
+
+	private static PoolingHttpClientConnectionManager createManager(
+			SslPolicy policy) throws GeneralSecurityException, IOException {
+		SSLConnectionSocketFactory sslConnectionFactory;
+		switch (policy) {
+		case FEDORA_CERT:
+			sslConnectionFactory = new SSLConnectionSocketFactory(
+					new FedoraSSL().getInitializedSSLContext(),
+					SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+			break;
+		case TRUST_ALL:
+			sslConnectionFactory = new SSLConnectionSocketFactory(
+					createTrustAllContext(),
+					SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+			break;
+		default:
+			sslConnectionFactory = SSLConnectionSocketFactory
+					.getSocketFactory();
+			break;
+		}
+		Registry<ConnectionSocketFactory> registry = RegistryBuilder
+				.<ConnectionSocketFactory> create()
+				.register("http", PlainConnectionSocketFactory.getSocketFactory()) //$NON-NLS-1$
+				.register("https", sslConnectionFactory) //$NON-NLS-1$
+				.build();
+		PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(
+				registry);
+		manager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+		manager.setMaxTotal(MAX_CONNECTIONS_TOTAL);
+		return manager;
+	}
+
+	private static SSLContext createTrustAllContext()
+			throws GeneralSecurityException {
+		// Create a trust manager that does not validate certificate chains
+		TrustManager[] trustAllCerts = new TrustManager[] { new X509TrustManager() {
+			@Override
+			public X509Certificate[] getAcceptedIssuers() {
+				return null;
+			}
+
+			@Override
+			public void checkClientTrusted(X509Certificate[] certs,
+					String authType) {
+			}
+
+			@Override
+			public void checkServerTrusted(X509Certificate[] certs,
+					String authType) {
+			}
+		} };
+		SSLContext sc = SSLContext.getInstance("TLS"); //$NON-NLS-1$
+		sc.init(null, trustAllCerts, new SecureRandom());
+		return sc;
+	}
+
+	private void startEvictor() {
+		if (evictor != null) {
+			return;
+		}
+		evictor = new Timer("Fedora Packager HTTP connection evictor", true); //$NON-NLS-1$
+		evictor.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				synchronized (PooledHttpClientService.this) {
+					for (Pool pool : pools.values()) {
+						pool.manager.closeExpiredConnections();
+						pool.manager.closeIdleConnections(IDLE_TIMEOUT,
+								TimeUnit.SECONDS);
+					}
+				}
+			}
+		}, EVICTION_INTERVAL, EVICTION_INTERVAL);
+	}
+
+	/**
+	 * Close all pooled connections and stop the idle connection eviction.
+	 */
+	public synchronized void shutdown() {
+		if (evictor != null) {
+			evictor.cancel();
+			evictor = null;
+		}
+		for (Pool pool : pools.values()) {
+			pool.manager.shutdown();
+		}
+		pools.clear();
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.internal.utils.httpclient;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Connection manager handing out connections of a shared pool. Closing a
+ * client shuts down its connection manager; this wrapper ignores that so the
+ * pooled connections stay open for other clients.
+ */
+class SharedConnectionManager implements HttpClientConnectionManager {
+
+	private final HttpClientConnectionManager delegate;
+
+	/**
+	 * @param delegate
+	 *            The shared connection manager.
+	 */
+	SharedConnectionManager(HttpClientConnectionManager delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+		return delegate.requestConnection(route, state);
+	}
+
+	@Override
+	public void releaseConnection(HttpClientConnection conn, Object newState,
+			long validDuration, TimeUnit timeUnit) {
+		delegate.releaseConnection(conn, newState, validDuration, timeUnit);
+	}
+
+	@Override
+	public void connect(HttpClientConnection conn, HttpRoute route,
+			int connectTimeout, HttpContext context) throws IOException {
+		delegate.connect(conn, route, connectTimeout, context);
+	}
+
+	@Override
+	public void upgrade(HttpClientConnection conn, HttpRoute route,
+			HttpContext context) throws IOException {
+		delegate.upgrade(conn, route, context);
+	}
+
+	@Override
+	public void routeComplete(HttpClientConnection conn, HttpRoute route,
+			HttpContext context) throws IOException {
+		delegate.routeComplete(conn, route, context);
+	}
+
+	@Override
+	public void closeIdleConnections(long idletime, TimeUnit tunit) {
+		delegate.closeIdleConnections(idletime, tunit);
+	}
+
+	@Override
+	public void closeExpiredConnections() {
+		delegate.closeExpiredConnections();
+	}
+
+	@Override
+	public void shutdown() {
+		// the pool is owned by PooledHttpClientService
+	}
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.internal.utils.httpclient;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+/**
+ * Multipart body streaming a file to the server. The file is read through a
+ * {@link FileChannel} in large chunks, progress is reported to an
+ * {@link IRequestProgressListener} at most every
+ * {@value #PROGRESS_INTERVAL} ms with the exact number of bytes sent, and the
+ * transfer rate can be capped.
+ */
+public class UploadFileBody extends AbstractContentBody {
+
+	private static final int MAX_CHUNK_SIZE = 64 * 1024;
+	private static final int MIN_CHUNK_SIZE = 4 * 1024;
+	/**
+	 * Minimal time between two progress reports in milliseconds.
+	 */
+	public static final long PROGRESS_INTERVAL = 250;
+
+	private final File file;
+	private final long bandwidthLimit;
+	private final IRequestProgressListener listener;
+
+	/**
+	 * @param file
+	 *            The file to upload.
+	 * @param bandwidthLimit
+	 *            The maximum transfer rate in bytes per second, 0 for no
+	 *            limit.
+	 * @param listener
+	 *            The listener to notify about the upload progress.
+	 */
+	public UploadFileBody(File file, long bandwidthLimit,
+			IRequestProgressListener listener) {
+		super(ContentType.DEFAULT_BINARY);
+		this.file = file;
+		this.bandwidthLimit = Math.max(0, bandwidthLimit);
+		this.listener = listener;
+	}
+
+	@Override
+	public String getFilename() {
+		return file.getName();
+	}
+
+	@Override
+	public String getTransferEncoding() {
+		return MIME.ENC_BINARY;
+	}
+
+	@Override
+	public long getContentLength() {
+		return file.length();
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		// HttpClient hands us a stream, possibly an SSL one, so a heap buffer
+		// saves the copy out of a direct one.
+		ByteBuffer buffer = ByteBuffer.allocate(getChunkSize());
+		long start = System.currentTimeMillis();
+		long lastReport = start;
+		long sent = 0;
+		long reported = 0;
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			while (channel.read(buffer) != -1) {
+				out.write(buffer.array(), 0, buffer.position());
+				sent += buffer.position();
+				buffer.clear();
+				throttle(sent, start);
+				long now = System.currentTimeMillis();
+				if (now - lastReport >= PROGRESS_INTERVAL) {
+					lastReport = now;
+					reported = sent;
+					listener.transferred(sent);
+				}
+			}
+		}
+		out.flush();
+		if (sent != reported || sent == 0) {
+			listener.transferred(sent);
+		}
+	}
+
+	/**
+	 * Smaller chunks for low limits, so the rate stays even.
+	 */
+	private int getChunkSize() {
+		if (bandwidthLimit == 0) {
+			return MAX_CHUNK_SIZE;
+		}
+		return (int) Math.max(MIN_CHUNK_SIZE,
+				Math.min(MAX_CHUNK_SIZE, bandwidthLimit / 8));
+	}
+
+	/**
+	 * Sleep until sending {@code sent} bytes since {@code start} no longer
+	 * exceeds the bandwidth limit.
+	 */
+	private void throttle(long sent, long start) throws InterruptedIOException {
+		if (bandwidthLimit == 0) {
+			return;
+		}
+		long ahead = sent * 1000 / bandwidthLimit
+				- (System.currentTimeMillis() - start);
+		if (ahead > 0) {
+			try {
+				Thread.sleep(ahead);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+	}
+}
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
+import org.fedoraproject.eclipse.packager.FedoraPackagerText;
+import org.fedoraproject.eclipse.packager.utils.ChecksumUtils.Algorithm;
+
+/**
+ * Cache of source file checksums. Entries are keyed by canonical path and are
+ * only valid as long as size, modification time and file key (inode) of the
+ * file are unchanged, so verifying an unchanged file costs a single stat call.
+ * The least recently used entries are evicted once the cache is full. The
+ * cache can be persisted in order to survive restarts.
+ *
+ * @since 0.5
+ */
+public class ChecksumCache {
+
+	private static final int FORMAT_VERSION = 1;
+	private static final int DEFAULT_MAX_ENTRIES = 2048;
+	private static final FedoraPackagerLogger logger = FedoraPackagerLogger.getInstance();
+
+	private static ChecksumCache instance;
+
+	private final int maxEntries;
+	private final Map<String, Entry> entries;
+	private File storeFile;
+	private boolean dirty = false;
+
+	/**
+	 * Cached state of one file.
+	 */
+	private static class Entry {
+		final long size;
+		final long mtime;
+		final String fileKey;
+		final Map<Algorithm, String> checksums = new EnumMap<>(Algorithm.class);
+
+		Entry(long size, long mtime, String fileKey) {
+			this.size = size;
+			this.mtime = mtime;
+			this.fileKey = fileKey;
+		}
+
+		boolean isValidFor(BasicFileAttributes attrs) {
+			return size == attrs.size()
+					&& mtime == attrs.lastModifiedTime().to(
+							TimeUnit.NANOSECONDS)
+					&& fileKey.equals(fileKey(attrs));
+		}
+	}
+
+	/**
+	 * Create a cache holding at most {@code maxEntries} files.
+	 *
+	 * @param maxEntries
+	 *            The maximum number of cached files.
+	 */
+	public ChecksumCache(final int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > ChecksumCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * @return The shared checksum cache instance.
+	 */
+	public static synchronized ChecksumCache getInstance() {
+		if (instance == null) {
+			instance = new ChecksumCache(DEFAULT_MAX_ENTRIES);
+		}
+		return instance;
+	}
+
+	/**
+	 * Get the checksum of the given file, calculating it only if the file has
+	 * changed since it was last seen.
+	 *
+	 * @param file
+	 *            The file to get the checksum for.
+	 * @param algorithm
+	 *            The checksum algorithm.
+	 * @return The hex encoded checksum.
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	public String getChecksum(File file, Algorithm algorithm)
+			throws IOException {
+		String key = file.getCanonicalPath();
+		BasicFileAttributes attrs = readAttributes(file);
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.isValidFor(attrs)) {
+				String checksum = entry.checksums.get(algorithm);
+				if (checksum != null) {
+					return checksum;
+				}
+			}
+		}
+		// Hash outside of the lock, other files may be checked meanwhile
+		String checksum = ChecksumUtils.calculate(file, algorithm);
+		put(key, attrs, algorithm, checksum);
+		return checksum;
+	}
+
+	/**
+	 * Record a checksum which is already known, e.g. because it was calculated
+	 * while the file was written.
+	 *
+	 * @param file
+	 *            The file the checksum belongs to.
+	 * @param algorithm
+	 *            The checksum algorithm.
+	 * @param checksum
+	 *            The hex encoded checksum.
+	 * @throws IOException
+	 *             If the file could not be accessed.
+	 */
+	public void putChecksum(File file, Algorithm algorithm, String checksum)
+			throws IOException {
+		put(file.getCanonicalPath(), readAttributes(file), algorithm, checksum);
+	}
+
+	/**
+	 * Check whether the given file matches the expected checksum. The
+	 * algorithm is derived from the format of the expected checksum.
+	 *
+	 * @param file
+	 *            The file to check.
+	 * @param expected
+	 *            The hex encoded checksum the file should have.
+	 * @return {@code true} if the checksum matches, {@code false} otherwise.
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	public boolean matches(File file, String expected) throws IOException {
+		Algorithm algorithm = Algorithm.forChecksum(expected);
+		if (algorithm == null) {
+			return false;
+		}
+		return getChecksum(file, algorithm).equalsIgnoreCase(expected);
+	}
+
+	private synchronized void put(String key, BasicFileAttributes attrs,
+			Algorithm algorithm, String checksum) {
+		Entry entry = entries.get(key);
+		if (entry == null || !entry.isValidFor(attrs)) {
+			entry = new Entry(attrs.size(), attrs.lastModifiedTime().to(
+					TimeUnit.NANOSECONDS), fileKey(attrs));
+			entries.put(key, entry);
+		}
+		entry.checksums.put(algorithm, checksum);
+		dirty = true;
+	}
+
+	/**
+	 * Load cache entries from the given file and use it as the backing store
+	 * for {@link #save()}. Problems reading the file are logged and result in
+	 * an empty cache.
+	 *
+	 * @param file
+	 *            The file to load.
+	 */
+	public synchronized void load(File file) {
+		this.storeFile = file;
+		if (!file.isFile()) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)))) {
+			if (in.readInt() != FORMAT_VERSION) {
+				return;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				Entry entry = new Entry(in.readLong(), in.readLong(),
+						in.readUTF());
+				int checksums = in.readInt();
+				for (int j = 0; j < checksums; j++) {
+					entry.checksums.put(Algorithm.valueOf(in.readUTF()),
+							in.readUTF());
+				}
+				entries.put(key, entry);
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			entries.clear();
+			logger.logError(FedoraPackagerText.ChecksumCache_loadFailedMsg, e);
+		}
+		dirty = false;
+	}
+
+	/**
+	 * Write the cache to the file it was loaded from, if anything changed.
+	 * The file is replaced atomically.
+	 */
+	public synchronized void save() {
+		if (storeFile == null || !dirty) {
+			return;
+		}
+		File tempFile = new File(storeFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, Entry> e : entries.entrySet()) {
+					Entry entry = e.getValue();
+					out.writeUTF(e.getKey());
+					out.writeLong(entry.size);
+					out.writeLong(entry.mtime);
+					out.writeUTF(entry.fileKey);
+					out.writeInt(entry.checksums.size());
+					for (Map.Entry<Algorithm, String> checksum : entry.checksums
+							.entrySet()) {
+						out.writeUTF(checksum.getKey().name());
+						out.writeUTF(checksum.getValue());
+					}
+				}
+			}
+			Files.move(tempFile.toPath(), storeFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			dirty = false;
+		} catch (IOException e) {
+			tempFile.delete();
+			logger.logError(FedoraPackagerText.ChecksumCache_saveFailedMsg, e);
+		}
+	}
+
+	/**
+	 * Remove all entries from the cache.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		dirty = true;
+	}
+
+	private static BasicFileAttributes readAttributes(File file)
+			throws IOException {
+		return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+	}
+
+	private static String fileKey(BasicFileAttributes attrs) {
+		// (dev, inode) on POSIX systems, not available everywhere
+		Object fileKey = attrs.fileKey();
+		return fileKey == null ? "" : fileKey.toString(); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Utility class for calculating checksums of source files. Files are streamed
+ * through a {@link FileChannel} into a fixed size, per-thread buffer, so memory
+ * usage stays constant regardless of the size of the file. Several digests can
+ * be calculated in a single pass over the file.
+ *
+ * @since 0.5
+ */
+public class ChecksumUtils {
+
+	/**
+	 * Checksum algorithms used for files in the lookaside cache.
+	 */
+	public enum Algorithm {
+		/** MD5, as used by the legacy {@code sources} file format. */
+		MD5("MD5", 32), //$NON-NLS-1$
+		/** SHA-512, as used by the newer {@code sources} file format. */
+		SHA512("SHA-512", 128); //$NON-NLS-1$
+
+		private final String jcaName;
+		private final int hexLength;
+
+		private Algorithm(String jcaName, int hexLength) {
+			this.jcaName = jcaName;
+			this.hexLength = hexLength;
+		}
+
+		/**
+		 * @return A fresh digest instance for this algorithm.
+		 */
+		public MessageDigest newDigest() {
+			try {
+				return MessageDigest.getInstance(jcaName);
+			} catch (NoSuchAlgorithmException e) {
+				// MD5 and SHA-512 are mandatory for every JRE
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/**
+		 * Determine the algorithm which produced the given checksum.
+		 *
+		 * @param checksum
+		 *            The hex encoded checksum.
+		 * @return The matching algorithm or {@code null} if unknown.
+		 */
+		public static Algorithm forChecksum(String checksum) {
+			if (checksum != null) {
+				for (Algorithm algorithm : values()) {
+					if (algorithm.hexLength == checksum.length()) {
+						return algorithm;
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// Buffers are reused for every file hashed on the same thread
+	private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+	};
+
+	/**
+	 * Calculate the checksum of the given file.
+	 *
+	 * @param file
+	 *            The file to calculate the checksum for.
+	 * @param algorithm
+	 *            The algorithm to use.
+	 * @return The hex encoded checksum.
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	public static String calculate(File file, Algorithm algorithm)
+			throws IOException {
+		return calculate(file, EnumSet.of(algorithm)).get(algorithm);
+	}
+
+	/**
+	 * Calculate checksums of the given file using several algorithms at once.
+	 * The file is read exactly once.
+	 *
+	 * @param file
+	 *            The file to calculate checksums for.
+	 * @param algorithms
+	 *            The algorithms to use.
+	 * @return The hex encoded checksums keyed by algorithm.
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	public static Map<Algorithm, String> calculate(File file,
+			Set<Algorithm> algorithms) throws IOException {
+		Map<Algorithm, MessageDigest> digests = new EnumMap<>(Algorithm.class);
+		for (Algorithm algorithm : algorithms) {
+			digests.put(algorithm, algorithm.newDigest());
+		}
+		ByteBuffer buffer = BUFFER.get();
+		buffer.clear();
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			while (channel.read(buffer) != -1) {
+				buffer.flip();
+				for (MessageDigest digest : digests.values()) {
+					buffer.mark();
+					digest.update(buffer);
+					buffer.reset();
+				}
+				buffer.clear();
+			}
+		}
+		Map<Algorithm, String> checksums = new EnumMap<>(Algorithm.class);
+		for (Map.Entry<Algorithm, MessageDigest> entry : digests.entrySet()) {
+			checksums.put(entry.getKey(),
+					Hex.encodeHexString(entry.getValue().digest()));
+		}
+		return checksums;
+	}
+
+	/**
+	 * Check whether the given file matches the expected checksum. The
+	 * algorithm is derived from the format of the expected checksum.
+	 *
+	 * @param file
+	 *            The file to check.
+	 * @param expected
+	 *            The hex encoded checksum the file should have.
+	 * @return {@code true} if the checksum matches, {@code false} otherwise.
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	public static boolean matches(File file, String expected)
+			throws IOException {
+		Algorithm algorithm = Algorithm.forChecksum(expected);
+		if (algorithm == null) {
+			return false;
+		}
+		return calculate(file, algorithm).equalsIgnoreCase(expected);
+	}
+}
@@ -11,6 +11,7 @@
 package org.fedoraproject.eclipse.packager.utils;
 
 import java.io.File;
+import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.text.NumberFormat;
 import java.util.ArrayList;
@@ -19,18 +20,7 @@ import java.util.Random;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
-
-import org.apache.http.config.Registry;
-import org.apache.http.config.RegistryBuilder;
-import org.apache.http.conn.HttpClientConnectionManager;
-import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -39,17 +29,19 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
-import org.eclipse.core.runtime.IExtensionPoint;
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.osgi.util.NLS;
 import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
 import org.fedoraproject.eclipse.packager.FedoraPackagerText;
 import org.fedoraproject.eclipse.packager.IFpProjectBits;
+import org.fedoraproject.eclipse.packager.IHttpClientService;
+import org.fedoraproject.eclipse.packager.IHttpClientService.SslPolicy;
 import org.fedoraproject.eclipse.packager.IProjectRoot;
 import org.fedoraproject.eclipse.packager.PackagerPlugin;
 import org.fedoraproject.eclipse.packager.api.errors.FedoraPackagerExtensionPointException;
 import org.fedoraproject.eclipse.packager.api.errors.InvalidProjectRootException;
+import org.fedoraproject.eclipse.packager.internal.utils.PackagerExtensionRegistry;
+import org.fedoraproject.eclipse.packager.internal.utils.PackagerExtensionRegistry.ProjectRootDescriptor;
 
 /**
  * Utility class for Fedora Packager. Put commonly used code in here as long as
@@ -58,16 +50,12 @@ import org.fedoraproject.eclipse.packager.api.errors.InvalidProjectRootException
 public class FedoraPackagerUtils {
 
 	private static final String PROJECT_ROOT_EXTENSIONPOINT_NAME = "projectRootProvider"; //$NON-NLS-1$
-	private static final String PROJECT_ROOT_ELEMENT_NAME = "projectRoot"; //$NON-NLS-1$
-	private static final String PROJECT_ROOT_CLASS_ATTRIBUTE_NAME = "class"; //$NON-NLS-1$
-	private static final String VCS_CONTRIBUTION_EXTENSIONPOINT_NAME = "vcsContribution"; //$NON-NLS-1$
-	private static final String VCS_CONTRIBUTION_ELEMENT_NAME = "vcs"; //$NON-NLS-1$
-	private static final String VCS_CONTRIBUTION_CONTRIB_PLUGIN_ID_ATTRIBUTE_NAME = "contribPlugin"; //$NON-NLS-1$
 	private static final String VCS_CONTRIBUTION_CLASS_ATTRIBUTE_NAME = "class"; //$NON-NLS-1$
 
 	/**
 	 * Returns a FedoraProjectRoot from the given resource after performing some
-	 * validations.
+	 * validations. Initialized roots are cached until their container changes,
+	 * see {@link ProjectRootCache}.
 	 * 
 	 * @param resource
 	 *            The container for this Fedora project root or a resource
@@ -87,6 +75,11 @@ public class FedoraPackagerUtils {
 			candidate = resource.getParent();
 		}
 		if (candidate != null) {
+			IProjectRoot cached = ProjectRootCache.getInstance().getProjectRoot(
+					candidate);
+			if (cached != null) {
+				return cached;
+			}
 			try {
 				// instantiate, but do not initialize yet
 				IProjectRoot root = instantiateProjectRoot(candidate);
@@ -94,6 +87,7 @@ public class FedoraPackagerUtils {
 				if (root.validate(candidate)) {
 					// Do initialization
 					root.initialize(candidate);
+					ProjectRootCache.getInstance().putProjectRoot(root);
 					return root; // All good
 				} 
 				throw new InvalidProjectRootException(
@@ -110,42 +104,36 @@ public class FedoraPackagerUtils {
 	}
 
 	/**
-	 * Returns the IFpProjectBits used to abstract vcs specific things.
+	 * Returns the IFpProjectBits used to abstract vcs specific things. The
+	 * handler of a cached project root is cached along with it.
 	 * 
 	 * @param fedoraprojectRoot
 	 *            The project for which to get the VCS specific parts.
 	 * @return The needed IFpProjectBits.
 	 */
 	public static IFpProjectBits getVcsHandler(IProjectRoot fedoraprojectRoot) {
+		IFpProjectBits cached = ProjectRootCache.getInstance().getVcsHandler(
+				fedoraprojectRoot);
+		if (cached != null) {
+			return cached;
+		}
 		QualifiedName propertyName = fedoraprojectRoot
 				.getSupportedProjectPropertyNames()[0];
-		IExtensionPoint vcsExtensions = Platform.getExtensionRegistry()
-				.getExtensionPoint(PackagerPlugin.PLUGIN_ID,
-						VCS_CONTRIBUTION_EXTENSIONPOINT_NAME);
-		if (vcsExtensions != null) {
-			IConfigurationElement[] elements = vcsExtensions
-					.getConfigurationElements();
-			for (int i = 0; i < elements.length; i++) {
-				if (elements[i].getName().equals(VCS_CONTRIBUTION_ELEMENT_NAME)
-						&& elements[i]
-								.getAttribute(VCS_CONTRIBUTION_CONTRIB_PLUGIN_ID_ATTRIBUTE_NAME) != null
-						&& elements[i]
-								.getAttribute(
-										VCS_CONTRIBUTION_CONTRIB_PLUGIN_ID_ATTRIBUTE_NAME)
-								.startsWith(propertyName.getQualifier())) {
-					try {
-						IConfigurationElement bob = elements[i];
-						IFpProjectBits vcsContributor = (IFpProjectBits) bob
-								.createExecutableExtension(VCS_CONTRIBUTION_CLASS_ATTRIBUTE_NAME);
-						// Do initialization
-						if (vcsContributor != null) {
-							vcsContributor.initialize(fedoraprojectRoot);
-						}
-						return vcsContributor;
-					} catch (CoreException e) {
-						e.printStackTrace();
-					}
+		IConfigurationElement vcs = PackagerExtensionRegistry.getInstance()
+				.getVcsContribution(propertyName.getQualifier());
+		if (vcs != null) {
+			try {
+				IFpProjectBits vcsContributor = (IFpProjectBits) vcs
+						.createExecutableExtension(VCS_CONTRIBUTION_CLASS_ATTRIBUTE_NAME);
+				// Do initialization
+				if (vcsContributor != null) {
+					vcsContributor.initialize(fedoraprojectRoot);
+					ProjectRootCache.getInstance().putVcsHandler(
+							fedoraprojectRoot, vcsContributor);
 				}
+				return vcsContributor;
+			} catch (CoreException e) {
+				e.printStackTrace();
 			}
 		}
 		return null;
@@ -224,8 +212,8 @@ public class FedoraPackagerUtils {
 	}
 
 	/**
-	 * Wrap a basic HttpClient object in an all trusting SSL enabled HttpClient
-	 * object.
+	 * Get an all trusting SSL enabled HttpClient object. The client uses the
+	 * pooled connections of the {@link IHttpClientService}.
 	 * 
 	 * @return The SSL wrapped HttpClient.
 	 * @throws GeneralSecurityException
@@ -233,44 +221,13 @@ public class FedoraPackagerUtils {
 	 */
 	public static CloseableHttpClient trustAllSslEnable()
 			throws GeneralSecurityException {
-		// Get an initialized SSL context
-		// Create a trust manager that does not validate certificate chains
-		TrustManager[] trustAllCerts = new TrustManager[] { new X509TrustManager() {
-			@Override
-			public java.security.cert.X509Certificate[] getAcceptedIssuers() {
-				return null;
-			}
-
-			@Override
-			public void checkClientTrusted(
-					java.security.cert.X509Certificate[] certs, String authType) {
-			}
-
-			@Override
-			public void checkServerTrusted(
-					java.security.cert.X509Certificate[] certs, String authType) {
-			}
-		} };
-
-		// set up the all-trusting trust manager
-		SSLContext sc = SSLContext.getInstance("TLS"); //$NON-NLS-1$
-		sc.init(null, trustAllCerts, new java.security.SecureRandom());
-		
-		HttpClientBuilder builder = HttpClientBuilder.create();
-		SSLConnectionSocketFactory sslConnectionFactory = new SSLConnectionSocketFactory(
-				sc,
-				SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
-		builder.setSSLSocketFactory(sslConnectionFactory);
-		Registry<ConnectionSocketFactory> registry = RegistryBuilder
-				.<ConnectionSocketFactory> create()
-				.register("https", sslConnectionFactory) //$NON-NLS-1$
-				.build();
-
-		HttpClientConnectionManager ccm = new BasicHttpClientConnectionManager(
-				registry);
-
-		builder.setConnectionManager(ccm);
-		return builder.build();
+		try {
+			return PackagerPlugin.getDefault().getHttpClientService()
+					.createClient(SslPolicy.TRUST_ALL);
+		} catch (IOException e) {
+			// only thrown when reading client certificates
+			throw new GeneralSecurityException(e);
+		}
 	}
 
 	/**
@@ -311,43 +268,20 @@ public class FedoraPackagerUtils {
 	 */
 	private static IProjectRoot instantiateProjectRoot(IContainer container)
 			throws FedoraPackagerExtensionPointException {
-		IExtensionPoint projectRootExtension = Platform.getExtensionRegistry()
-				.getExtensionPoint(PackagerPlugin.PLUGIN_ID,
-						PROJECT_ROOT_EXTENSIONPOINT_NAME);
-		if (projectRootExtension != null) {
-			List<IProjectRoot> projectRootList = new ArrayList<>();
-			for (IConfigurationElement projectRoot : projectRootExtension
-					.getConfigurationElements()) {
-				if (projectRoot.getName().equals(PROJECT_ROOT_ELEMENT_NAME)) {
-					// found extension point element
-					try {
-						IProjectRoot root = (IProjectRoot) projectRoot
-								.createExecutableExtension(PROJECT_ROOT_CLASS_ATTRIBUTE_NAME);
-						assert root != null;
-						projectRootList.add(root);
-					} catch (CoreException e) {
-						throw new FedoraPackagerExtensionPointException(
-								e.getMessage(), e);
-					}
-				}
-			}
-			// We need at least one project root
-			if (projectRootList.isEmpty()) {
-				throw new FedoraPackagerExtensionPointException(NLS.bind(
-						FedoraPackagerText.extensionNotFoundError,
-						PROJECT_ROOT_EXTENSIONPOINT_NAME));
-			}
+		try {
 			// Get the best matching project root
-			IProjectRoot projectRoot = findBestMatchingProjectRoot(
-					projectRootList, container);
-			if (projectRoot == null) {
-				// can't continue
-				throw new FedoraPackagerExtensionPointException(NLS.bind(
-						FedoraPackagerText.extensionNotFoundError,
-						PROJECT_ROOT_EXTENSIONPOINT_NAME));
+			ProjectRootDescriptor projectRoot = findBestMatchingProjectRoot(
+					PackagerExtensionRegistry.getInstance().getProjectRoots(),
+					container);
+			if (projectRoot != null) {
+				IProjectRoot root = projectRoot.createProjectRoot();
+				assert root != null;
+				return root;
 			}
-			return projectRoot;
+		} catch (CoreException e) {
+			throw new FedoraPackagerExtensionPointException(e.getMessage(), e);
 		}
+		// can't continue
 		throw new FedoraPackagerExtensionPointException(NLS.bind(
 				FedoraPackagerText.extensionNotFoundError,
 				PROJECT_ROOT_EXTENSIONPOINT_NAME));
@@ -357,14 +291,14 @@ public class FedoraPackagerUtils {
 	 * Determine the project root, which is the best match for the given
 	 * container.
 	 * 
-	 * @param projectRootList The list of known roots.
+	 * @param projectRootList The list of known root contributions.
 	 * @param container The container the root is being found in respect to.
 	 * @return The project root which has support for the project property of
 	 *         the container or {@code null} if no such project root exists.
 	 */
-	private static IProjectRoot findBestMatchingProjectRoot(
-			List<IProjectRoot> projectRootList, IContainer container) {
-		for (IProjectRoot root : projectRootList) {
+	private static ProjectRootDescriptor findBestMatchingProjectRoot(
+			List<ProjectRootDescriptor> projectRootList, IContainer container) {
+		for (ProjectRootDescriptor root : projectRootList) {
 			for (QualifiedName propName : root
 					.getSupportedProjectPropertyNames()) {
 				try {
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2010-2014 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.fedoraproject.eclipse.packager.utils;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.fedoraproject.eclipse.packager.IFpProjectBits;
+import org.fedoraproject.eclipse.packager.IProjectRoot;
+import org.fedoraproject.eclipse.packager.SourcesFile;
+
+/**
+ * Workspace wide cache of initialized project roots and their VCS handlers,
+ * used by {@link FedoraPackagerUtils}. A root is dropped, together with its
+ * VCS handler, when its container is removed or closed or when a file directly
+ * in it changes. A root is also considered stale if its sources file changed,
+ * even before the resource change notification arrives. VCS plug-ins drop
+ * handlers whose repository state changed via
+ * {@link #invalidateVcsHandlers(IProject)}.
+ *
+ * @since 0.5
+ */
+public class ProjectRootCache implements IResourceChangeListener {
+
+	private static final ProjectRootCache INSTANCE = new ProjectRootCache();
+
+	/**
+	 * An initialized root, the modification stamp of its sources file and its
+	 * VCS handler once known.
+	 */
+	private static class Entry {
+		final IProjectRoot root;
+		final long sourcesStamp;
+		volatile IFpProjectBits vcsHandler;
+
+		Entry(IProjectRoot root, long sourcesStamp) {
+			this.root = root;
+			this.sourcesStamp = sourcesStamp;
+		}
+	}
+
+	private final Map<IContainer, Entry> entries = new ConcurrentHashMap<>();
+
+	private ProjectRootCache() {
+		// singleton
+	}
+
+	/**
+	 * @return The shared instance.
+	 */
+	public static ProjectRootCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Start listening for workspace changes.
+	 */
+	public void install() {
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				this,
+				IResourceChangeEvent.POST_CHANGE
+						| IResourceChangeEvent.PRE_CLOSE
+						| IResourceChangeEvent.PRE_DELETE);
+	}
+
+	/**
+	 * Stop listening for workspace changes and drop all cached roots.
+	 */
+	public void uninstall() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+		entries.clear();
+	}
+
+	/**
+	 * @param container
+	 *            The root container.
+	 * @return The cached root of the container or {@code null} if there is
+	 *         none or it is stale.
+	 */
+	public IProjectRoot getProjectRoot(IContainer container) {
+		Entry entry = entries.get(container);
+		if (entry == null) {
+			return null;
+		}
+		if (!container.isAccessible()
+				|| entry.sourcesStamp != getSourcesStamp(container)) {
+			entries.remove(container, entry);
+			return null;
+		}
+		return entry.root;
+	}
+
+	/**
+	 * Cache an initialized root, replacing a previous one of its container.
+	 *
+	 * @param root
+	 *            The initialized root.
+	 */
+	public void putProjectRoot(IProjectRoot root) {
+		IContainer container = root.getContainer();
+		entries.put(container, new Entry(root, getSourcesStamp(container)));
+	}
+
+	/**
+	 * @param root
+	 *            The project root.
+	 * @return The cached VCS handler of the root or {@code null} if there is
+	 *         none.
+	 */
+	public IFpProjectBits getVcsHandler(IProjectRoot root) {
+		Entry entry = entries.get(root.getContainer());
+		return entry != null && entry.root == root ? entry.vcsHandler : null;
+	}
+
+	/**
+	 * Cache the initialized VCS handler of a root. Nothing is cached if the
+	 * root itself isn't cached, since the handler couldn't be invalidated
+	 * then.
+	 *
+	 * @param root
+	 *            The project root.
+	 * @param vcsHandler
+	 *            The VCS handler initialized for {@code root}.
+	 */
+	public void putVcsHandler(IProjectRoot root, IFpProjectBits vcsHandler) {
+		Entry entry = entries.get(root.getContainer());
+		if (entry != null && entry.root == root) {
+			entry.vcsHandler = vcsHandler;
+		}
+	}
+
+	/**
+	 * @return The projects with cached VCS handlers.
+	 */
+	public Set<IProject> getProjectsWithVcsHandlers() {
+		Set<IProject> projects = new HashSet<>();
+		for (Entry entry : entries.values()) {
+			if (entry.vcsHandler != null) {
+				projects.add(entry.root.getProject());
+			}
+		}
+		return projects;
+	}
+
+	/**
+	 * Drop the VCS handlers of all roots in a project, e.g. because branches
+	 * were added or removed.
+	 *
+	 * @param project
+	 *            The project.
+	 */
+	public void invalidateVcsHandlers(IProject project) {
+		for (Entry entry : entries.values()) {
+			if (project.equals(entry.root.getProject())) {
+				entry.vcsHandler = null;
+			}
+		}
+	}
+
+	/**
+	 * Drop all roots in a project, e.g. because its project properties
+	 * changed.
+	 *
+	 * @param project
+	 *            The project.
+	 */
+	public void invalidate(IProject project) {
+		invalidateBelow(project);
+	}
+
+	private void invalidateBelow(IResource resource) {
+		Iterator<IContainer> it = entries.keySet().iterator();
+		while (it.hasNext()) {
+			if (resource.getFullPath().isPrefixOf(it.next().getFullPath())) {
+				it.remove();
+			}
+		}
+	}
+
+	private static long getSourcesStamp(IContainer container) {
+		return container.getFile(new Path(SourcesFile.SOURCES_FILENAME))
+				.getModificationStamp();
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (entries.isEmpty()) {
+			return;
+		}
+		if (event.getType() != IResourceChangeEvent.POST_CHANGE) {
+			// about to be closed or deleted
+			if (event.getResource() != null) {
+				invalidateBelow(event.getResource());
+			}
+			return;
+		}
+		if (event.getDelta() == null) {
+			return;
+		}
+		try {
+			event.getDelta().accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta delta) {
+					IResource resource = delta.getResource();
+					if (resource.getType() == IResource.FILE) {
+						if (delta.getKind() != IResourceDelta.CHANGED
+								|| (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0) {
+							entries.remove(resource.getParent());
+						}
+						return false;
+					}
+					if (delta.getKind() == IResourceDelta.REMOVED
+							|| (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+						invalidateBelow(resource);
+						return false;
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			// can't tell what changed, so forget everything
+			entries.clear();
+		}
+	}
+}
@@ -11,14 +11,26 @@
 package org.fedoraproject.eclipse.packager.utils;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.linuxtools.rpm.core.utils.RPMQuery;
 import org.eclipse.linuxtools.rpm.core.utils.Utils;
-import org.eclipse.linuxtools.rpm.ui.editor.parser.Specfile;
+import org.eclipse.osgi.util.NLS;
 import org.fedoraproject.eclipse.packager.BranchConfigInstance;
 import org.fedoraproject.eclipse.packager.FedoraPackagerLogger;
 import org.fedoraproject.eclipse.packager.FedoraPackagerText;
@@ -32,6 +44,33 @@ public class RPMUtils {
 
 	private static final FedoraPackagerLogger logger = FedoraPackagerLogger.getInstance();
 
+	/**
+	 * Tags queried along with the requested ones, so that the usual
+	 * combinations of queries share a single rpm invocation.
+	 */
+	private static final List<String> COMMON_TAGS = Arrays.asList("NAME", //$NON-NLS-1$
+			"VERSION", "RELEASE", "ARCH", "CHANGELOGTEXT"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	private static final Pattern TAG_PATTERN = Pattern.compile("[A-Za-z0-9_]+"); //$NON-NLS-1$
+	// Control characters can't occur in tag values of a sane spec file
+	private static final char FIELD_SEPARATOR = '\u001f';
+	private static final char RECORD_SEPARATOR = '\u001e';
+	private static final int MAX_CACHED_QUERIES = 256;
+
+	/**
+	 * Query results by spec file content and defines, least recently used
+	 * first.
+	 */
+	private static final Map<String, Map<String, String>> queryCache = new LinkedHashMap<String, Map<String, String>>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<String, Map<String, String>> eldest) {
+			return size() > MAX_CACHED_QUERIES;
+		}
+	};
+
 	/**
 	 * Creates a list of rpm defines to use the given directory as a base
 	 * directory.
@@ -55,34 +94,178 @@ public class RPMUtils {
 	}
 
 	/**
-	 * Submit a query to RPM. Uses org.eclipse.linuxtools.rpm.Utils.
+	 * Submit a query to RPM. Uses org.eclipse.linuxtools.rpm.Utils. A plain
+	 * tag like {@code NAME} is queried through
+	 * {@link #rpmQuery(IProjectRoot, Collection, BranchConfigInstance)} and
+	 * shares its cache. Anything else, e.g. {@code BUILDTIME:date}, is passed
+	 * to rpm as {@code %{format}} as is, and isn't cached.
 	 *
 	 * @param projectRoot The root under which the query is occuring.
-	 * @param format The format of the query result String.
+	 * @param format The tag to query, optionally with a format.
 	 * @param bci The configuration for the current branch.
-	 * @return The result of the query.
+	 * @return The first line of the tag value.
 	 * @throws IOException
 	 *             If rpm command failed.
 	 */
 	public static String rpmQuery(IProjectRoot projectRoot, String format,
 			BranchConfigInstance bci) throws IOException {
+		String result;
+		if (TAG_PATTERN.matcher(format).matches()) {
+			result = rpmQuery(projectRoot, Collections.singleton(format), bci)
+					.get(format);
+		} else {
+			List<String> command = getQueryCommand(projectRoot,
+					"%{" + format + "}\\n", bci); //$NON-NLS-1$ //$NON-NLS-2$
+			result = Utils.runCommandToString(command.toArray(new String[0]));
+		}
+		int newline = result.indexOf('\n');
+		return newline == -1 ? result : result.substring(0, newline);
+	}
+
+	/**
+	 * Query several tags of the main package of the .spec file with a single
+	 * rpm invocation. Results are cached for the content of the .spec file
+	 * and the defines of the branch, and a few common tags are always queried
+	 * as well, so related queries usually don't start rpm again.
+	 *
+	 * @param projectRoot
+	 *            The root under which the query is occuring.
+	 * @param tags
+	 *            The tags to query, e.g. {@code NAME} or {@code ARCH}.
+	 * @param bci
+	 *            The configuration for the current branch.
+	 * @return The values of the queried tags, keyed by tag. Values of array
+	 *         tags are their first element.
+	 * @throws IOException
+	 *             If rpm command failed.
+	 * @throws IllegalArgumentException
+	 *             If one of the tags isn't a plain tag name, e.g. has a
+	 *             format like {@code :date}.
+	 * @since 0.5
+	 */
+	public static Map<String, String> rpmQuery(IProjectRoot projectRoot,
+			Collection<String> tags, BranchConfigInstance bci)
+			throws IOException {
+		for (String tag : tags) {
+			if (!TAG_PATTERN.matcher(tag).matches()) {
+				throw new IllegalArgumentException(tag);
+			}
+		}
+		String specLocation = projectRoot.getSpecFile().getLocation()
+				.toString();
 		IResource parent = projectRoot.getSpecFile().getParent();
-		String dir = parent.getLocation().toString();
-		List<String> defines = getRPMDefines(dir);
-		List<String> distDefines = getDistDefines(bci);
-
-		String result = null;
-		defines.add(0, "rpm"); //$NON-NLS-1$
-		defines.addAll(distDefines);
-		defines.add("-q"); //$NON-NLS-1$
-		defines.add("--qf"); //$NON-NLS-1$
-		defines.add("%{" + format + "}\\n"); //$NON-NLS-1$//$NON-NLS-2$
-		defines.add("--specfile"); //$NON-NLS-1$
-		defines.add(projectRoot.getSpecFile().getLocation().toString());
-
-		result = Utils.runCommandToString(defines.toArray(new String[0]));
-
-		return result.substring(0, result.indexOf('\n'));
+		List<String> defines = getRPMDefines(parent.getLocation().toString());
+		defines.addAll(getDistDefines(bci));
+
+		String key = hashSpecfile(specLocation) + defines;
+		Map<String, String> cached;
+		synchronized (queryCache) {
+			cached = queryCache.get(key);
+		}
+		if (cached != null && cached.keySet().containsAll(tags)) {
+			return cached;
+		}
+		Set<String> queried = new TreeSet<>(COMMON_TAGS);
+		queried.addAll(tags);
+		if (cached != null) {
+			queried.addAll(cached.keySet());
+		}
+
+		List<String> command = getQueryCommand(projectRoot,
+				getQueryFormat(queried), bci);
+		String output = Utils.runCommandToString(command
+				.toArray(new String[0]));
+		Map<String, String> result = parseQueryOutput(output, queried);
+		synchronized (queryCache) {
+			queryCache.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return The rpm command querying the .spec file of a project with a
+	 *         query format.
+	 */
+	private static List<String> getQueryCommand(IProjectRoot projectRoot,
+			String format, BranchConfigInstance bci) {
+		IResource parent = projectRoot.getSpecFile().getParent();
+		List<String> command = new ArrayList<>();
+		command.add("rpm"); //$NON-NLS-1$
+		command.addAll(getRPMDefines(parent.getLocation().toString()));
+		command.addAll(getDistDefines(bci));
+		command.add("-q"); //$NON-NLS-1$
+		command.add("--qf"); //$NON-NLS-1$
+		command.add(format);
+		command.add("--specfile"); //$NON-NLS-1$
+		command.add(projectRoot.getSpecFile().getLocation().toString());
+		return command;
+	}
+
+	/**
+	 * Build the rpm query format used to query several tags at once. Tag
+	 * values are separated by control characters, so values may be empty or
+	 * span several lines.
+	 *
+	 * @param tags
+	 *            The plain names of the tags to query.
+	 * @return The query format, to be passed to {@code rpm --qf}.
+	 * @see #parseQueryOutput(String, Collection)
+	 * @since 0.5
+	 */
+	public static String getQueryFormat(Collection<String> tags) {
+		StringBuilder format = new StringBuilder();
+		for (String tag : tags) {
+			format.append("%{").append(tag).append('}') //$NON-NLS-1$
+					.append(FIELD_SEPARATOR);
+		}
+		return format.append(RECORD_SEPARATOR).toString();
+	}
+
+	/**
+	 * Split the output of a query with the format built by
+	 * {@link #getQueryFormat(Collection)}. Only the first record, i.e. the
+	 * main package, is read.
+	 *
+	 * @param output
+	 *            The output of rpm.
+	 * @param tags
+	 *            The queried tags, in the same order as for the format.
+	 * @return The values of the tags, keyed by tag.
+	 * @throws IOException
+	 *             If the output doesn't have a value for each tag.
+	 * @since 0.5
+	 */
+	public static Map<String, String> parseQueryOutput(String output,
+			Collection<String> tags) throws IOException {
+		// one record per (sub-)package, the first is the main package
+		int end = output.indexOf(RECORD_SEPARATOR);
+		String[] values = end == -1 ? new String[0] : output.substring(0, end)
+				.split(String.valueOf(FIELD_SEPARATOR), -1);
+		if (values.length != tags.size() + 1) {
+			throw new IOException(NLS.bind(
+					FedoraPackagerText.RPMUtils_unexpectedQueryOutput, output));
+		}
+		Map<String, String> result = new HashMap<>();
+		Iterator<String> value = Arrays.asList(values).iterator();
+		for (String tag : tags) {
+			result.put(tag, value.next());
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	private static String hashSpecfile(String specLocation) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+			StringBuilder hash = new StringBuilder();
+			for (byte b : digest.digest(Files.readAllBytes(Paths
+					.get(specLocation)))) {
+				hash.append(String.format("%02x", b)); //$NON-NLS-1$
+			}
+			return hash.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
 	}
 
 	/**
@@ -96,11 +279,12 @@ public class RPMUtils {
 	 */
 	public static String getNVR(IProjectRoot projectRoot,
 			BranchConfigInstance bci) {
-		Specfile specfile = projectRoot.getSpecfileModel();
 		String str = ""; //$NON-NLS-1$
 		try {
-			str = (RPMQuery.eval(specfile.getName()).trim() + "-" + specfile.getVersion() + "-" + specfile.getRelease().replace("%{?dist}", bci.getDist())); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		} catch (CoreException e) {
+			Map<String, String> nvr = rpmQuery(projectRoot,
+					Arrays.asList("NAME", "VERSION", "RELEASE"), bci); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			str = nvr.get("NAME") + "-" + nvr.get("VERSION") + "-" + nvr.get("RELEASE"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		} catch (IOException e) {
 			logger.logError(FedoraPackagerText.FedoraPackagerUtils_cannotEvalPackageName, e);
 		}
 		return str;
@@ -118,8 +302,10 @@ public class RPMUtils {
 	public static String getChangelog(IProjectRoot projectRoot,
 			BranchConfigInstance bci) {
 		try {
-			String changelogWithHeader = rpmQuery(projectRoot, "CHANGELOGTEXT", bci); //$NON-NLS-1$
-			return changelogWithHeader.replaceAll("^[^\n]*\n[\r\n\t\f ]*", ""); //$NON-NLS-1$//$NON-NLS-2$
+			// the single tag query only returns the first line of the entry
+			return rpmQuery(projectRoot,
+					Collections.singleton("CHANGELOGTEXT"), bci) //$NON-NLS-1$
+					.get("CHANGELOGTEXT").trim(); //$NON-NLS-1$
 		} catch (IOException e) {
 			logger.logError(FedoraPackagerText.FedoraPackagerUtils_cannotEvalChangelog, e);
 			return ""; //$NON-NLS-1$